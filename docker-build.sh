@@ -18,6 +18,10 @@ if [ $? -eq 0 ]; then
     echo ""
     echo "To stop the container:"
     echo "  docker stop exam-user-crud"
+    echo ""
+    echo "The image starts with Spring AOT and a CDS archive. To run another profile (jpa, offheap, sharded):"
+    echo "  docker run -p 8080:8080 -e STARTUP_OPTS=-XX:SharedArchiveFile=extracted/app.jsa \\"
+    echo "      -e SPRING_PROFILES_ACTIVE=offheap exam-user-crud:latest"
 else
     echo "❌ Docker build failed!"
     exit 1
@@ -0,0 +1,56 @@
+package com.macode101.exam.benchmark;
+
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.repository.InMemoryUserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic fixtures shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id) {
+        return new User(id, "User " + id, "user" + id, "user" + id + "@example.com",
+                "1-770-736-" + id, "user" + id + ".example.com");
+    }
+
+    static UserDto userDto(long id) {
+        return new UserDto(id, "User " + id, "user" + id, "user" + id + "@example.com",
+                "1-770-736-" + id, "user" + id + ".example.com");
+    }
+
+    /**
+     * Repository holding users with ids {@code 1..size} and no seed data.
+     */
+    static InMemoryUserRepository repository(int size) {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        List<User> users = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            users.add(user(id));
+        }
+        repository.saveAll(users);
+        return repository;
+    }
+
+    static List<User> users(int size) {
+        List<User> users = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            users.add(user(id));
+        }
+        return users;
+    }
+
+    static List<UserDto> userDtos(int size) {
+        List<UserDto> users = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            users.add(userDto(id));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,102 @@
+package com.macode101.exam.benchmark;
+
+import com.macode101.exam.config.MetricsConfig;
+import com.macode101.exam.model.User;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.UserRepository;
+import com.macode101.exam.repository.UserSeed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metrics around the repository: the store called directly and
+ * the store as the application wires it, with {@link MetricsConfig}'s
+ * {@code TimedAspect} and auto-proxying in place. Repositories are not
+ * {@code @Timed}, so both should be the same; a gap means something started
+ * proxying the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    AnnotationConfigApplicationContext context;
+    UserRepository plain;
+    UserRepository wired;
+    User existing;
+
+    @Configuration
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    static class AopConfig {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MeterRegistry.class, () -> new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        context.registerBean(InMemoryUserRepository.class, () -> new InMemoryUserRepository(null, null, UserSeed.none()));
+        context.register(AopConfig.class, MetricsConfig.class);
+        context.refresh();
+
+        wired = context.getBean(UserRepository.class);
+        plain = (UserRepository) Objects.requireNonNullElse(AopProxyUtils.getSingletonTarget(wired), wired);
+        plain.saveAll(BenchmarkData.users(SIZE));
+        existing = plain.findById(1L).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<User> findByIdPlain() {
+        return plain.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<User> findByIdWired() {
+        return wired.findById(randomId());
+    }
+
+    @Benchmark
+    public User saveExistingPlain() {
+        return plain.save(new User(existing));
+    }
+
+    @Benchmark
+    public User saveExistingWired() {
+        return wired.save(new User(existing));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, SIZE + 1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.macode101.exam.benchmark;
+
+import com.macode101.exam.ExamApplication;
+import com.macode101.exam.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@code GET /users/{id}} against a real embedded Tomcat whose
+ * repository sleeps on every call, comparing platform request threads with
+ * virtual ones ({@code spring.threads.virtual.enabled}). Sample-time mode
+ * reports throughput together with p50/p99/p99.9 latency.
+ * <p>
+ * The {@code virtual} mode only takes effect on Java 21+; build and run with
+ * {@code -Pjava21,benchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+public class ThreadingModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    @Param({"10"})
+    long storeLatencyMillis;
+
+    @Param({"50"})
+    int tomcatMaxThreads;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ExamApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(slowStore(storeLatencyMillis)))
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + tomcatMaxThreads,
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                        "--spring.cache.type=none",
+                        // One client hammering /users would otherwise be measuring its own 429s.
+                        "--users.rate-limit.enabled=false",
+                        "--logging.level.root=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/users/";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getUserById() throws IOException, InterruptedException {
+        long id = ThreadLocalRandom.current().nextLong(1, 6);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static BeanPostProcessor slowStore(long latencyMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof UserRepository repository)) {
+                    return bean;
+                }
+                return Proxy.newProxyInstance(UserRepository.class.getClassLoader(), new Class<?>[] {UserRepository.class},
+                        (proxy, method, args) -> {
+                            Thread.sleep(latencyMillis);
+                            try {
+                                return method.invoke(repository, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}
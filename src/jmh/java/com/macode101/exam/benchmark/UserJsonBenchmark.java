@@ -0,0 +1,62 @@
+package com.macode101.exam.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.macode101.exam.model.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes {@code UserDto} lists the way the {@code spring.jackson} settings in
+ * {@code application.yaml} do, with and without {@code indent-output}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserJsonBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    List<UserDto> users;
+    ObjectWriter indented;
+    ObjectWriter compact;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkData.userDtos(size);
+        ObjectMapper mapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        indented = mapper.writer().with(SerializationFeature.INDENT_OUTPUT);
+        compact = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @Benchmark
+    public byte[] indentOutput() throws JsonProcessingException {
+        return indented.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] compactOutput() throws JsonProcessingException {
+        return compact.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,53 @@
+package com.macode101.exam.benchmark;
+
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.mapper.UserMapperImpl;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    UserMapper mapper = new UserMapperImpl();
+    List<User> users;
+    User user;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkData.users(size);
+        user = users.get(0);
+    }
+
+    @Benchmark
+    public List<UserDto> toDtoList() {
+        return mapper.toDto(users);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public UserDto toDto() {
+        return mapper.toDto(user);
+    }
+}
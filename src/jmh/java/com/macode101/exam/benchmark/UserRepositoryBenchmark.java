@@ -0,0 +1,85 @@
+package com.macode101.exam.benchmark;
+
+import com.macode101.exam.model.User;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    InMemoryUserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkData.repository(size);
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return repository.findById(randomId());
+    }
+
+    /**
+     * The primitive lookup on the {@code GET /users/{id}} path; run with
+     * {@code -prof gc} to check that {@code gc.alloc.rate.norm} stays at zero.
+     */
+    @Benchmark
+    public User findByPrimitiveId() {
+        return repository.findById(randomId()).orElse(null);
+    }
+
+    @Benchmark
+    public User findByBoxedId() {
+        return repository.findById(Long.valueOf(randomId())).orElse(null);
+    }
+
+    @Benchmark
+    public User saveExisting() {
+        return repository.save(BenchmarkData.user(randomId()));
+    }
+
+    @Benchmark
+    public List<User> findAllCached() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<User> findAllAfterWrite() {
+        repository.save(BenchmarkData.user(randomId()));
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<User> findPage() {
+        return repository.findPage(randomId(), 100);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, size + 1);
+    }
+}
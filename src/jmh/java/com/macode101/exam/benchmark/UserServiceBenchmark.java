@@ -0,0 +1,88 @@
+package com.macode101.exam.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.mapper.UserMapperImpl;
+import com.macode101.exam.model.EncodedUsers;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.service.UserJsonCache;
+import com.macode101.exam.service.UserServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full service calls without the Spring proxy, so the DTO cache is bypassed
+ * and every call pays for repository access and mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    UserServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserMapperImpl mapper = new UserMapperImpl();
+        service = new UserServiceImpl(
+                BenchmarkData.repository(size),
+                mapper,
+                new UserJsonCache(new ObjectMapper(), mapper, Long.MAX_VALUE)
+        );
+    }
+
+    @Benchmark
+    public UserDto getUserById() {
+        return service.getUserById(randomId());
+    }
+
+    @Benchmark
+    public UserDto updateUser() {
+        long id = randomId();
+        return service.updateUser(id, BenchmarkData.userDto(id));
+    }
+
+    @Benchmark
+    public List<UserDto> getUsersPage() {
+        return service.getUsers(randomId(), 100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<UserDto> getAllUsers() {
+        return service.getAllUsers();
+    }
+
+    /**
+     * After the first invocation every user's encoding is cached, so this
+     * measures the steady state of {@code GET /users}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public EncodedUsers getAllUsersEncoded() {
+        return service.getAllUsersEncoded();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, size + 1);
+    }
+}
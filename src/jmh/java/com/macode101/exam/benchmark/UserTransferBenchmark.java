@@ -0,0 +1,90 @@
+package com.macode101.exam.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.ImportResult;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.UserRepository;
+import com.macode101.exam.service.UserJsonCache;
+import com.macode101.exam.service.UserTransferService;
+import com.macode101.exam.service.UserTransferService.Format;
+import com.macode101.exam.service.UserTransferServiceImpl;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Users per second through {@code GET /users/export} and
+ * {@code POST /users/import}, without HTTP, for each format. Export writes
+ * into a reused buffer; import fills an empty repository each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(UserTransferBenchmark.SIZE)
+public class UserTransferBenchmark {
+
+    static final int SIZE = 100_000;
+
+    @Param({"NDJSON", "BINARY"})
+    Format format;
+
+    ObjectMapper objectMapper;
+    UserMapper userMapper;
+    UserTransferService source;
+    ByteArrayOutputStream out;
+    byte[] exported;
+    UserTransferService target;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        userMapper = Mappers.getMapper(UserMapper.class);
+        source = service(BenchmarkData.repository(SIZE));
+        out = new ByteArrayOutputStream(64 * SIZE);
+        source.exportUsers(format, out);
+        exported = out.toByteArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTarget() {
+        target = service(new InMemoryUserRepository());
+    }
+
+    @Benchmark
+    public int export() throws IOException {
+        out.reset();
+        source.exportUsers(format, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public ImportResult importUsers() throws IOException {
+        return target.importUsers(format, new ByteArrayInputStream(exported));
+    }
+
+    private UserTransferService service(UserRepository repository) {
+        return new UserTransferServiceImpl(repository, userMapper,
+                new UserJsonCache(objectMapper, userMapper, 64L * SIZE * 4), new NoOpCacheManager(), objectMapper);
+    }
+}
@@ -0,0 +1,85 @@
+package com.macode101.exam.benchmark;
+
+import com.macode101.exam.mapper.UserMapperImpl;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.validation.UserDtoValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The body of a {@code PUT /users/{id}} from validation to the response DTO,
+ * as it was (Bean Validation, map to the entity, save, map back) and as it is
+ * (plain-code validation, map to the entity, save, reuse the request DTO).
+ * Run with {@code -prof gc} to compare allocations per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserWritePathBenchmark {
+
+    static final long ID = 42;
+
+    Validator beanValidator;
+    UserDtoValidator userDtoValidator;
+    UserMapperImpl mapper;
+    InMemoryUserRepository repository;
+    UserDto userDto;
+
+    @Setup
+    public void setUp() {
+        beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        userDtoValidator = new UserDtoValidator();
+        mapper = new UserMapperImpl();
+        repository = BenchmarkData.repository(1000);
+        userDto = BenchmarkData.userDto(ID);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDto>> validateBeanValidation() {
+        return beanValidator.validate(userDto);
+    }
+
+    @Benchmark
+    public boolean validateUserDtoValidator() {
+        return userDtoValidator.isValid(userDto);
+    }
+
+    @Benchmark
+    public UserDto writeBeanValidationAndMapBack() {
+        if (!beanValidator.validate(userDto).isEmpty()) {
+            throw new IllegalStateException();
+        }
+        User user = mapper.toEntity(userDto);
+        user.setId(ID);
+        return mapper.toDto(repository.save(user));
+    }
+
+    @Benchmark
+    public UserDto writeUserDtoValidatorAndReuseDto() {
+        if (!userDtoValidator.isValid(userDto)) {
+            throw new IllegalStateException();
+        }
+        User user = mapper.toEntity(userDto);
+        user.setId(ID);
+        return mapper.toSavedDto(userDto, repository.save(user));
+    }
+}
@@ -0,0 +1,101 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.exception.TooManyRequestsException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits a request only if its client has a token left and there is room
+ * for one more read or write in flight; otherwise it throws
+ * {@link TooManyRequestsException}, which the exception handler turns into a
+ * 429 with {@code Retry-After}. Running as an interceptor rather than a
+ * filter is what puts rejections through that handler.
+ * <p>
+ * A streamed response gives its permit back once it goes async: streams are
+ * bounded on their own and would otherwise hold a permit for their lifetime.
+ */
+class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+    private static final Duration BUSY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final TokenBucketLimiter clients;
+    private final ConcurrencyLimiter reads;
+    private final ConcurrencyLimiter writes;
+    private final String clientHeader;
+    private final Set<String> apiKeys;
+    private final LongSupplier nanoClock;
+
+    AdmissionControlInterceptor(RateLimitProperties properties) {
+        this(new TokenBucketLimiter(properties.getRequestsPerSecond(), properties.getBurst(), properties.getMaxClients()),
+                new ConcurrencyLimiter(properties.getMaxConcurrentReads()),
+                new ConcurrencyLimiter(properties.getMaxConcurrentWrites()),
+                properties.getClientHeader(),
+                Set.copyOf(properties.getApiKeys()),
+                System::nanoTime);
+    }
+
+    AdmissionControlInterceptor(TokenBucketLimiter clients, ConcurrencyLimiter reads, ConcurrencyLimiter writes,
+                                String clientHeader, Set<String> apiKeys, LongSupplier nanoClock) {
+        this.clients = clients;
+        this.reads = reads;
+        this.writes = writes;
+        this.clientHeader = clientHeader;
+        this.apiKeys = apiKeys;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        long wait = clients.tryAcquire(client(request), nanoClock.getAsLong());
+        if (wait > 0) {
+            throw new TooManyRequestsException("Request rate limit exceeded", Duration.ofNanos(wait));
+        }
+        ConcurrencyLimiter limiter = isRead(request) ? reads : writes;
+        if (!limiter.tryAcquire()) {
+            throw new TooManyRequestsException(
+                    "Too many " + (limiter == reads ? "reads" : "writes") + " in progress", BUSY_RETRY_AFTER);
+        }
+        request.setAttribute(PERMIT, limiter);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    /**
+     * The configured API key the request carries, else its remote address.
+     */
+    private String client(HttpServletRequest request) {
+        String key = request.getHeader(clientHeader);
+        return key != null && apiKeys.contains(key) ? key : request.getRemoteAddr();
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT) instanceof ConcurrencyLimiter limiter) {
+            request.removeAttribute(PERMIT);
+            limiter.release();
+        }
+    }
+}
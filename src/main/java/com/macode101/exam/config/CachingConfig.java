@@ -0,0 +1,30 @@
+package com.macode101.exam.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.service.UserJsonCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the read-through {@code users} DTO cache. Size, TTL and stats
+ * recording are configured through {@code spring.cache.caffeine.spec}; hit,
+ * miss and eviction counts are published as {@code cache.*} metrics.
+ * <p>
+ * The {@code users-json} cache of encoded users is separate, as it is sized
+ * in bytes and checked against user versions rather than evicted on write.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(JsonCacheProperties.class)
+public class CachingConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    @Bean
+    public UserJsonCache userJsonCache(ObjectMapper objectMapper, UserMapper userMapper, JsonCacheProperties properties) {
+        return new UserJsonCache(objectMapper, userMapper, properties.getMaxSize().toBytes());
+    }
+}
@@ -0,0 +1,16 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.repository.UserChangeLog;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+
+    @Bean
+    public UserChangeLog userChangeLog(ChangeFeedProperties properties) {
+        return new UserChangeLog(properties.getCapacity());
+    }
+}
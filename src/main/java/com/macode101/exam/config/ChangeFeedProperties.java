@@ -0,0 +1,26 @@
+package com.macode101.exam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Buffering and delivery of the user change stream ({@code GET /users/changes}).
+ */
+@Data
+@ConfigurationProperties(prefix = "users.changes")
+public class ChangeFeedProperties {
+
+    /** Number of most recent changes kept for subscribers to catch up or resume from. */
+    private int capacity = 65_536;
+
+    /** Maximum number of concurrent subscribers; each one is served by a thread of its own. */
+    private int maxSubscribers = 64;
+
+    /** Idle time after which a subscriber is sent a keep-alive comment. */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /** How long one stream stays open before the client has to reconnect with Last-Event-ID. */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+}
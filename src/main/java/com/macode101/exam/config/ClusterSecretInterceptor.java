@@ -0,0 +1,35 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.exception.ClusterAuthenticationException;
+import com.macode101.exam.repository.UserShard;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Admits calls to the shard endpoints only from other nodes, which send the
+ * cluster secret in {@link UserShard#SECRET_HEADER}. Those endpoints skip
+ * validation and the username and email checks, so they must not be open on
+ * the public port. The comparison takes the same time wherever the secrets
+ * differ.
+ */
+class ClusterSecretInterceptor implements HandlerInterceptor {
+
+    private final byte[] secret;
+
+    ClusterSecretInterceptor(String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String presented = request.getHeader(UserShard.SECRET_HEADER);
+        if (presented == null || !MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8))) {
+            throw new ClusterAuthenticationException("Missing or wrong cluster secret");
+        }
+        return true;
+    }
+}
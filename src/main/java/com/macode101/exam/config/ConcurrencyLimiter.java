@@ -0,0 +1,40 @@
+package com.macode101.exam.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking cap on the requests in flight: a permit is a compare-and-set
+ * on a counter, and a request over the limit is turned away rather than
+ * queued.
+ */
+final class ConcurrencyLimiter {
+
+    private final int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    ConcurrencyLimiter(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
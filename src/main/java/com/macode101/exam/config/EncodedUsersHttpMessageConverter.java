@@ -0,0 +1,58 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.model.EncodedUsers;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes {@link EncodedUsers} as a JSON array by copying each user's bytes
+ * straight to the response, with an exact {@code Content-Length}.
+ */
+public class EncodedUsersHttpMessageConverter extends AbstractHttpMessageConverter<EncodedUsers> {
+
+    public EncodedUsersHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EncodedUsers.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected EncodedUsers readInternal(Class<? extends EncodedUsers> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Encoded users are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(EncodedUsers users, @Nullable MediaType contentType) {
+        return users.byteLength();
+    }
+
+    @Override
+    protected void writeInternal(EncodedUsers users, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+        List<byte[]> json = users.users();
+        out.write('[');
+        for (int i = 0; i < json.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(json.get(i));
+        }
+        out.write(']');
+    }
+}
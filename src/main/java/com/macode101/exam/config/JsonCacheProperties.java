@@ -0,0 +1,16 @@
+package com.macode101.exam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Cache of users' encoded JSON, written out as-is by {@code GET /users}.
+ */
+@Data
+@ConfigurationProperties(prefix = "users.json-cache")
+public class JsonCacheProperties {
+
+    /** Upper bound on the total size of cached JSON; past it the least valuable entries are evicted. */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+}
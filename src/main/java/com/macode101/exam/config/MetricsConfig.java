@@ -0,0 +1,56 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.OffHeapUserRepository;
+import com.macode101.exam.repository.UserRepository;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timers for the {@code @Timed} service class plus gauges over the user store.
+ * Percentile histograms are switched on per meter name under
+ * {@code management.metrics.distribution.percentiles-histogram}.
+ * <p>
+ * Repositories are deliberately not {@code @Timed}: a lookup takes tens of
+ * nanoseconds, and the proxy alone would add several times that to every call,
+ * timed method or not. The service timer covers the repository work of each
+ * request.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "users.service";
+    public static final String ERROR_COUNTER = "users.errors";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder userStoreMetrics(UserRepository userRepository) {
+        return registry -> {
+            Gauge.builder("users.store.size", userRepository, UserRepository::count)
+                    .description("Number of users in the store")
+                    .register(registry);
+            if (userRepository instanceof InMemoryUserRepository inMemory) {
+                Gauge.builder("users.store.next.id", inMemory, InMemoryUserRepository::nextId)
+                        .description("Id the next created user will receive")
+                        .register(registry);
+            }
+            if (userRepository instanceof OffHeapUserRepository offHeap) {
+                Gauge.builder("users.store.next.id", offHeap, OffHeapUserRepository::nextId)
+                        .description("Id the next created user will receive")
+                        .register(registry);
+                Gauge.builder("users.store.offheap.bytes", offHeap, OffHeapUserRepository::allocatedBytes)
+                        .description("Direct memory reserved for user records")
+                        .baseUnit("bytes")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.repository.UserWriteAheadLog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "users.persistence", name = "enabled", havingValue = "true")
+    public UserWriteAheadLog userWriteAheadLog(PersistenceProperties properties) {
+        return new UserWriteAheadLog(
+                properties.getDirectory(),
+                properties.getFlushInterval(),
+                properties.getSnapshotThreshold()
+        );
+    }
+}
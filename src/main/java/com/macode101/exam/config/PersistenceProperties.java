@@ -0,0 +1,27 @@
+package com.macode101.exam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional durability for the in-memory user store.
+ */
+@Data
+@ConfigurationProperties(prefix = "users.persistence")
+public class PersistenceProperties {
+
+    /** Whether mutations are written to a write-ahead log and recovered on startup. */
+    private boolean enabled = false;
+
+    /** Directory holding the log segments and the latest snapshot. */
+    private Path directory = Path.of("data");
+
+    /** Group-commit interval; acknowledged writes inside this window can be lost on a crash. */
+    private Duration flushInterval = Duration.ofMillis(10);
+
+    /** Number of logged mutations after which the log is compacted into a snapshot. */
+    private long snapshotThreshold = 100_000;
+}
@@ -0,0 +1,44 @@
+package com.macode101.exam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Admission control in front of the {@code /users} endpoints: a token bucket
+ * per client, and separate limits on the reads and writes in flight.
+ */
+@Data
+@ConfigurationProperties(prefix = "users.rate-limit")
+public class RateLimitProperties {
+
+    /** Whether requests are limited at all. */
+    private boolean enabled = true;
+
+    /** Header carrying the client's API key. */
+    private String clientHeader = "X-API-Key";
+
+    /**
+     * API keys that get a bucket of their own. The header is not otherwise
+     * authenticated, so requests with any other key, or none, are limited per
+     * remote address; a client cannot dodge its limit by inventing keys.
+     */
+    private Set<String> apiKeys = new HashSet<>();
+
+    /** Sustained requests per second allowed to each client. */
+    private int requestsPerSecond = 200;
+
+    /** Requests a client may send at once on top of its sustained rate. */
+    private int burst = 400;
+
+    /** Clients tracked at once; past it, idle clients are forgotten and unknown ones share a bucket. */
+    private int maxClients = 100_000;
+
+    /** Reads (GET, HEAD, OPTIONS) handled at the same time across all clients. */
+    private int maxConcurrentReads = 150;
+
+    /** Writes handled at the same time across all clients. */
+    private int maxConcurrentWrites = 50;
+}
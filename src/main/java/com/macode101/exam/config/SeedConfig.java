@@ -0,0 +1,27 @@
+package com.macode101.exam.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.repository.UserSeed;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SeedProperties.class)
+public class SeedConfig {
+
+    @Bean
+    public UserSeed userSeed(SeedProperties properties, ObjectMapper objectMapper) {
+        UserSeed seed = switch (properties.getSource()) {
+            case SAMPLES -> UserSeed.samples();
+            case NONE -> UserSeed.none();
+            case FILE -> {
+                if (properties.getFile() == null) {
+                    throw new IllegalStateException("users.seed.file must be set when users.seed.source is file");
+                }
+                yield UserSeed.file(properties.getFile(), objectMapper);
+            }
+        };
+        return seed.lazy(properties.isLazy());
+    }
+}
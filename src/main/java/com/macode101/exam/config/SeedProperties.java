@@ -0,0 +1,26 @@
+package com.macode101.exam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Initial users of the in-memory store, when it has no write-ahead log to
+ * recover from.
+ */
+@Data
+@ConfigurationProperties(prefix = "users.seed")
+public class SeedProperties {
+
+    public enum Source { SAMPLES, FILE, NONE }
+
+    /** Where the initial users come from. */
+    private Source source = Source.SAMPLES;
+
+    /** JSON array or newline-delimited JSON of users, for the {@code file} source. */
+    private Path file;
+
+    /** Whether users are loaded in the background after startup instead of before it. */
+    private boolean lazy = false;
+}
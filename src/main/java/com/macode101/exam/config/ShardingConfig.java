@@ -0,0 +1,61 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.RemoteUserShard;
+import com.macode101.exam.repository.ShardedUserRepository;
+import com.macode101.exam.repository.UserChangeLog;
+import com.macode101.exam.repository.UserShard;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharded user store. This node's partition is an unseeded in-memory store
+ * without a write-ahead log; its changes, and only those, feed this node's
+ * change stream. Calls between nodes carry the cluster secret, which
+ * {@link ClusterSecretInterceptor} checks on the receiving end.
+ */
+@Configuration
+@Profile("sharded")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardedUserRepository shardedUserRepository(
+            ShardingProperties properties,
+            RestClient.Builder restClientBuilder,
+            @Nullable UserChangeLog changeLog
+    ) {
+        if (!StringUtils.hasText(properties.getSecret())) {
+            throw new IllegalStateException("users.sharding.secret must be set so that only cluster nodes reach "
+                    + UserShard.PATH);
+        }
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings.defaults()
+                .withConnectTimeout(properties.getTimeout())
+                .withReadTimeout(properties.getTimeout());
+        List<UserShard> nodes = new ArrayList<>(properties.getNodes().size());
+        for (URI node : properties.getNodes()) {
+            nodes.add(new RemoteUserShard(restClientBuilder.clone()
+                    .baseUrl(node.toString())
+                    .defaultHeader(UserShard.SECRET_HEADER, properties.getSecret())
+                    .requestFactory(ClientHttpRequestFactoryBuilder.detect().build(settings))
+                    .build()));
+        }
+        return new ShardedUserRepository(
+                properties.getNodeId(),
+                nodes,
+                properties.getVirtualNodes(),
+                new InMemoryUserRepository(null, changeLog)
+        );
+    }
+}
@@ -0,0 +1,35 @@
+package com.macode101.exam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster layout of the sharded user store ({@code sharded} profile).
+ */
+@Data
+@ConfigurationProperties(prefix = "users.sharding")
+public class ShardingProperties {
+
+    /** Index of this node in {@link #nodes}. */
+    private int nodeId;
+
+    /** Base URLs of all nodes, this one included, in the same order on every node. */
+    private List<URI> nodes = new ArrayList<>();
+
+    /** Points each node owns on the hash ring; more points spread users more evenly. */
+    private int virtualNodes = 128;
+
+    /**
+     * Secret shared by all nodes, sent on every call to another node and
+     * required of every call to this one. Must be set.
+     */
+    private String secret;
+
+    /** Connect and read timeout for calls to other nodes. */
+    private Duration timeout = Duration.ofSeconds(2);
+}
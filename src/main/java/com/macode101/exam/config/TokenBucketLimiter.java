@@ -0,0 +1,80 @@
+package com.macode101.exam.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per client, kept as the generic cell rate algorithm: a bucket
+ * is a single {@link AtomicLong} holding the time at which it would be full
+ * again, and taking a token is one compare-and-set that pushes that time one
+ * interval further. Nothing is locked, and a full bucket needs no refill
+ * timer.
+ * <p>
+ * Buckets of idle clients are only dropped when {@code maxClients} is reached,
+ * at most once a second; until there is room again, new clients share one
+ * overflow bucket.
+ */
+final class TokenBucketLimiter {
+
+    static final String OVERFLOW_CLIENT = "";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxClients;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+
+    TokenBucketLimiter(int requestsPerSecond, int burst, int maxClients) {
+        if (requestsPerSecond <= 0 || burst <= 0 || maxClients <= 0) {
+            throw new IllegalArgumentException("Rate, burst and client limit must be positive");
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        this.burstNanos = intervalNanos * burst;
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Takes a token from {@code client}'s bucket.
+     *
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until
+     *         the next one is available
+     */
+    long tryAcquire(String client, long nowNanos) {
+        AtomicLong bucket = bucket(client, nowNanos);
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    int clients() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(String client, long nowNanos) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            long sweptAt = lastSweep.get();
+            if (nowNanos - sweptAt >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(sweptAt, nowNanos)) {
+                buckets.values().removeIf(idle -> idle.get() <= nowNanos);
+            }
+            if (buckets.size() >= maxClients) {
+                client = OVERFLOW_CLIENT;
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(nowNanos));
+    }
+}
@@ -0,0 +1,87 @@
+package com.macode101.exam.controller;
+
+import com.macode101.exam.model.User;
+import com.macode101.exam.repository.ShardedUserRepository;
+import com.macode101.exam.repository.UserShard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Serves this node's partition to the other nodes of a sharded store; the
+ * counterpart of {@link com.macode101.exam.repository.RemoteUserShard}. These
+ * endpoints bypass validation, so only callers presenting the cluster secret
+ * get through (see {@code ClusterSecretInterceptor}).
+ */
+@RestController
+@Profile("sharded")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+@RequestMapping(UserShard.PATH)
+public class ShardController {
+
+    private final ShardedUserRepository repository;
+
+    @GetMapping("/users/{id}")
+    public ResponseEntity<User> findById(@PathVariable long id) {
+        return ResponseEntity.of(shard().findById(id));
+    }
+
+    @GetMapping("/users")
+    public List<User> findPage(@RequestParam(required = false) Long after, @RequestParam int limit) {
+        return shard().findPage(after, limit);
+    }
+
+    @GetMapping("/count")
+    public long count() {
+        return shard().count();
+    }
+
+    @GetMapping("/version")
+    public long version() {
+        return shard().version();
+    }
+
+    @PutMapping("/users/{id}")
+    public ResponseEntity<User> save(
+            @PathVariable long id,
+            @RequestBody User user,
+            @RequestParam(required = false) Long expectedVersion
+    ) {
+        user.setId(id);
+        return ResponseEntity.of(shard().save(user, expectedVersion));
+    }
+
+    @DeleteMapping("/users/{id}")
+    public ResponseEntity<Void> delete(@PathVariable long id, @RequestParam(required = false) Long expectedVersion) {
+        return shard().delete(id, expectedVersion)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/claims/{key}")
+    public ResponseEntity<Long> findClaim(@PathVariable UserShard.Key key, @RequestParam String value) {
+        OptionalLong id = shard().findClaim(key, value);
+        return id.isPresent() ? ResponseEntity.ok(id.getAsLong()) : ResponseEntity.notFound().build();
+    }
+
+    @PutMapping("/claims/{key}")
+    public boolean claim(@PathVariable UserShard.Key key, @RequestParam String value, @RequestParam long id) {
+        return shard().claim(key, value, id);
+    }
+
+    @DeleteMapping("/claims/{key}")
+    public ResponseEntity<Void> release(@PathVariable UserShard.Key key, @RequestParam String value, @RequestParam long id) {
+        shard().release(key, value, id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private UserShard shard() {
+        return repository.localShard();
+    }
+}
@@ -0,0 +1,98 @@
+package com.macode101.exam.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.macode101.exam.config.ChangeFeedProperties;
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.model.UserChangeEvent;
+import com.macode101.exam.service.UserChangeService;
+import com.macode101.exam.service.UserChangeSubscriber;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+@RequestMapping("/users/changes")
+public class UserChangeController {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeController.class);
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+    static final String RESET_EVENT = "reset";
+
+    private final UserChangeService userChangeService;
+    private final ObjectMapper objectMapper;
+    private final ChangeFeedProperties properties;
+
+    /**
+     * Server-sent events, one per user change, each with its sequence as the
+     * event id. Resumes after {@code Last-Event-ID} (which EventSource sends
+     * when it reconnects) or {@code after}; otherwise starts with the next
+     * change. A subscriber whose position is no longer buffered, on connect
+     * or by falling behind, gets a final {@value #RESET_EVENT} event and has to
+     * re-read the users. Errors are reported in the stream or as a bare status,
+     * since an event-stream client cannot accept a JSON error body.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestParam(required = false) Long after,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId
+    ) throws IOException {
+        long from = lastEventId != null ? lastEventId
+                : after != null ? after
+                : userChangeService.getLatestSequence();
+        log.debug("Streaming user changes after sequence: {}", from);
+
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        ObjectWriter writer = objectMapper.writerFor(UserChangeEvent.class).without(SerializationFeature.INDENT_OUTPUT);
+        UserChangeSubscriber subscriber = new UserChangeSubscriber() {
+            @Override
+            public void onChange(UserChangeEvent change) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSequence()))
+                        .data(writer.writeValueAsString(change)));
+            }
+
+            @Override
+            public void onIdle() throws IOException {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+
+            @Override
+            public void onExpired(ChangesExpiredException ex) throws IOException {
+                emitter.send(SseEmitter.event().name(RESET_EVENT).data(ex.getMessage()));
+                emitter.complete();
+            }
+        };
+
+        Future<?> subscription;
+        try {
+            subscription = userChangeService.subscribe(from, subscriber);
+        } catch (ChangesExpiredException ex) {
+            log.warn("Change stream requested after expired sequence: {}", from);
+            subscriber.onExpired(ex);
+            return ResponseEntity.ok(emitter);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Change stream rejected: too many subscribers");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(() -> subscription.cancel(true));
+        return ResponseEntity.ok(emitter);
+    }
+}
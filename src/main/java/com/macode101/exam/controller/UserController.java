@@ -1,45 +1,176 @@
 package com.macode101.exam.controller;
 
+import com.macode101.exam.exception.UserNotFoundException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.BatchItemResult;
+import com.macode101.exam.model.EncodedUsers;
 import com.macode101.exam.model.UserDto;
 import com.macode101.exam.service.UserService;
-import jakarta.validation.Valid;
+import com.macode101.exam.validation.UserDtoValidator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+/**
+ * Users carry strong ETags derived from their repository version, and the
+ * collection one derived from the store-wide version where the store has it.
+ * {@code If-None-Match} is checked against those versions before anything is
+ * loaded or mapped; {@code If-Match} on {@code PUT} and {@code DELETE} is
+ * checked by the repository atomically with the write.
+ */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Validated
 @RequiredArgsConstructor
 @RequestMapping("/users")
 public class UserController {
     
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int STREAM_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int DEFAULT_SEARCH_LIMIT = 10;
+    static final int MAX_SEARCH_LIMIT = 100;
+    static final int MAX_QUERY_LENGTH = 100;
+    static final String PREFER = "Prefer";
+    static final String PREFERENCE_APPLIED = "Preference-Applied";
+    static final String RETURN_MINIMAL = "return=minimal";
+
     private final UserService userService;
+    private final UserDtoValidator userDtoValidator = new UserDtoValidator();
+
+    /**
+     * Request bodies are checked by {@link UserDtoValidator} rather than Bean
+     * Validation. They are marked {@code @Validated}, not {@code @Valid}: the
+     * method validation this class opts into would cascade into a
+     * {@code @Valid} body and validate it a second time, reflectively.
+     */
+    @InitBinder("userDto")
+    void initUserDtoBinder(WebDataBinder binder) {
+        binder.setValidator(userDtoValidator);
+    }
 
+    /**
+     * Lists users. The full list and pages are written from each user's
+     * cached JSON encoding; lookups by username or email go through the
+     * object mapper.
+     */
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        log.debug("Retrieving all users");
-        List<UserDto> users = userService.getAllUsers();
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        // Read before the users, so a racing write can only make the tag stale.
+        OptionalLong version = userService.getUsersVersion();
+        String eTag = version.isPresent() ? eTag(version.getAsLong()) : null;
+        if (eTag != null && matches(ifNoneMatch, eTag)) {
+            log.debug("User collection not modified");
+            return notModified(eTag);
+        }
+
+        if (username != null || email != null) {
+            log.debug("Looking up user by username: {} and email: {}", username, email);
+            Optional<UserDto> user = username != null
+                    ? userService.findUserByUsername(username)
+                            .filter(found -> email == null || email.equalsIgnoreCase(found.getEmail()))
+                    : userService.findUserByEmail(email);
+            return ResponseEntity.ok().eTag(eTag).body(user.map(List::of).orElse(List.of()));
+        }
+
+        if (after == null && limit == null) {
+            log.debug("Retrieving all users");
+            EncodedUsers users = userService.getAllUsersEncoded();
+            log.debug("Retrieved {} users", users.size());
+            return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(users);
+        }
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.debug("Retrieving up to {} users after ID: {}", pageSize, after);
+        EncodedUsers users = userService.getUsersEncoded(after, pageSize);
         log.debug("Retrieved {} users", users.size());
-        return ResponseEntity.ok(users);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON);
+        if (users.size() == pageSize) {
+            response.header(HttpHeaders.LINK, "</users?after=" + users.lastId() + "&limit=" + pageSize + ">; rel=\"next\"");
+        }
+        return response.body(users);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.debug("Streaming all users as NDJSON");
+
+        StreamingResponseBody body = out -> {
+            Long after = null;
+            EncodedUsers page;
+            do {
+                page = userService.getUsersEncoded(after, STREAM_PAGE_SIZE);
+                for (byte[] user : page.users()) {
+                    out.write(user);
+                    out.write('\n');
+                }
+                after = page.lastId() != null ? page.lastId() : after;
+            } while (page.size() == STREAM_PAGE_SIZE);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Type-ahead search over names, usernames, emails and websites; each word
+     * of {@code q} matches the start of a word, best matches first.
+     */
+    @GetMapping("/search")
+    public List<UserDto> searchUsers(
+            @RequestParam @NotBlank @Size(max = MAX_QUERY_LENGTH) String q,
+            @RequestParam(required = false) @Min(1) @Max(MAX_SEARCH_LIMIT) Integer limit
+    ) {
+        int resultLimit = limit != null ? limit : DEFAULT_SEARCH_LIMIT;
+        log.debug("Searching up to {} users for: {}", resultLimit, q);
+        return userService.searchUsers(q, resultLimit);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> getUserById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("Retrieving user with ID: {}", id);
+        if (ifNoneMatch != null) {
+            String eTag = eTag(userService.getUserVersion(id).orElseThrow(() -> new UserNotFoundException(id)));
+            if (matches(ifNoneMatch, eTag)) {
+                log.debug("User with ID: {} not modified", id);
+                return notModified(eTag);
+            }
+        }
         UserDto user = userService.getUserById(id);
         log.debug("Successfully retrieved user: {}", user.getUsername());
-        return ResponseEntity.ok(user);
+        return withETag(ResponseEntity.ok(), user).body(user);
     }
 
     @PostMapping
-    public ResponseEntity<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
+    public ResponseEntity<UserDto> createUser(@Validated @RequestBody UserDto userDto) {
         log.debug("Creating new user with username: {}", userDto.getUsername());
         
         if (userDto.getId() != null) {
@@ -49,13 +180,14 @@ public class UserController {
         
         UserDto createdUser = userService.createUser(userDto);
         log.info("Successfully created user with ID: {} and username: {}", createdUser.getId(), createdUser.getUsername());
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+        return withETag(ResponseEntity.status(HttpStatus.CREATED), createdUser).body(createdUser);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<UserDto> updateUser(
             @PathVariable Long id,
-            @Valid @RequestBody UserDto userDto
+            @Validated @RequestBody UserDto userDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         log.debug("Updating user with ID: {} and username: {}", id, userDto.getUsername());
         if (userDto.getId() != null && !userDto.getId().equals(id)) {
@@ -63,16 +195,130 @@ public class UserController {
         }
         userDto.setId(id);
         
-        UserDto updatedUser = userService.updateUser(id, userDto);
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        UserDto updatedUser = expectedVersion == null
+                ? userService.updateUser(id, userDto)
+                : userService.updateUser(id, userDto, expectedVersion);
         log.info("Successfully updated user with ID: {} and username: {}", updatedUser.getId(), updatedUser.getUsername());
-        return ResponseEntity.ok(updatedUser);
+        return withETag(ResponseEntity.ok(), updatedUser).body(updatedUser);
+    }
+
+    /**
+     * Partial update: only the fields present in the body change. Send
+     * {@code Prefer: return=minimal} to get back just the id and the fields
+     * whose value actually changed.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserDto> patchUser(
+            @PathVariable Long id,
+            @RequestBody UserDto changes,
+            @RequestHeader(value = PREFER, required = false) String prefer
+    ) {
+        boolean minimal = RETURN_MINIMAL.equalsIgnoreCase(prefer);
+        log.debug("Patching user with ID: {}", id);
+        UserDto patchedUser = userService.patchUser(id, changes, minimal);
+        log.info("Successfully patched user with ID: {}", id);
+        if (minimal) {
+            return ResponseEntity.ok().header(PREFERENCE_APPLIED, RETURN_MINIMAL).body(patchedUser);
+        }
+        return withETag(ResponseEntity.ok(), patchedUser).body(patchedUser);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteUser(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         log.debug("Deleting user with ID: {}", id);
-        userService.deleteUser(id);
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        if (expectedVersion == null) {
+            userService.deleteUser(id);
+        } else {
+            userService.deleteUser(id, expectedVersion);
+        }
         log.info("Successfully deleted user with ID: {}", id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createUsers(
+            @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<@NotNull UserDto> userDtos
+    ) {
+        log.debug("Creating batch of {} users", userDtos.size());
+        List<BatchItemResult> results = userService.createUsers(userDtos);
+        log.info("Processed batch create of {} users", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> updateUsers(
+            @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<@NotNull UserDto> userDtos
+    ) {
+        log.debug("Updating batch of {} users", userDtos.size());
+        List<BatchItemResult> results = userService.updateUsers(userDtos);
+        log.info("Processed batch update of {} users", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> deleteUsers(
+            @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<@NotNull Long> ids
+    ) {
+        log.debug("Deleting batch of {} users", ids.size());
+        List<BatchItemResult> results = userService.deleteUsers(ids);
+        log.info("Processed batch delete of {} users", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder response, UserDto user) {
+        return user.getVersion() == null ? response : response.eTag(eTag(user.getVersion()));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * Weak comparison against an {@code If-None-Match} list, as RFC 9110
+     * prescribes for that header.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version required by an {@code If-Match} header, or {@code null} when
+     * there is none or it is {@code *}. Anything but a single strong ETag can
+     * never match under the strong comparison {@code If-Match} uses.
+     */
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // Not one of ours, so it cannot match.
+            }
+        }
+        throw new UserVersionMismatchException(id);
+    }
 }
@@ -0,0 +1,178 @@
+package com.macode101.exam.controller;
+
+import com.macode101.exam.model.ErrorResponse;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.service.ReactiveUserService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.macode101.exam.controller.UserController.DEFAULT_PAGE_SIZE;
+import static com.macode101.exam.controller.UserController.MAX_PAGE_SIZE;
+
+/**
+ * Non-blocking handlers behind the functional {@code /users} routes of the
+ * reactive stack. Mirrors {@link UserController}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class UserHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(UserHandler.class);
+
+    private final ReactiveUserService userService;
+    private final Validator validator;
+
+    public Mono<ServerResponse> getAllUsers(ServerRequest request) {
+        Optional<String> username = request.queryParam("username");
+        Optional<String> email = request.queryParam("email");
+        if (username.isPresent() || email.isPresent()) {
+            log.debug("Looking up user by username: {} and email: {}", username.orElse(null), email.orElse(null));
+            Mono<UserDto> user = username.isPresent()
+                    ? userService.findUserByUsername(username.get())
+                            .filter(found -> email.isEmpty() || email.get().equalsIgnoreCase(found.getEmail()))
+                    : userService.findUserByEmail(email.get());
+            return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(user.flux(), UserDto.class);
+        }
+
+        Optional<String> after = request.queryParam("after");
+        Optional<String> limit = request.queryParam("limit");
+        if (after.isEmpty() && limit.isEmpty()) {
+            log.debug("Streaming all users");
+            return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(userService.getAllUsers(), UserDto.class);
+        }
+
+        Long afterId;
+        int pageSize;
+        try {
+            afterId = after.map(Long::valueOf).orElse(null);
+        } catch (NumberFormatException ex) {
+            return invalidType("after", after.get(), Long.class);
+        }
+        try {
+            pageSize = limit.map(Integer::valueOf).orElse(DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException ex) {
+            return invalidType("limit", limit.get(), Integer.class);
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return badRequest("Invalid parameter provided", "limit: must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        log.debug("Retrieving up to {} users after ID: {}", pageSize, afterId);
+        Flux<UserDto> users = userService.getUsers(afterId, pageSize);
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(users, UserDto.class);
+    }
+
+    public Mono<ServerResponse> streamAllUsers(ServerRequest request) {
+        log.debug("Streaming all users as NDJSON");
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(userService.getAllUsers(), UserDto.class);
+    }
+
+    public Mono<ServerResponse> getUserById(ServerRequest request) {
+        return withId(request, id -> {
+            log.debug("Retrieving user with ID: {}", id);
+            return userService.getUserById(id)
+                    .flatMap(user -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(user));
+        });
+    }
+
+    public Mono<ServerResponse> createUser(ServerRequest request) {
+        return request.bodyToMono(UserDto.class)
+                .map(this::validate)
+                .flatMap(userDto -> {
+                    log.debug("Creating new user with username: {}", userDto.getUsername());
+                    if (userDto.getId() != null) {
+                        log.warn("Attempt to create user with non-null ID: {}", userDto.getId());
+                        userDto.setId(null);
+                    }
+                    return userService.createUser(userDto);
+                })
+                .flatMap(created -> {
+                    log.info("Successfully created user with ID: {} and username: {}", created.getId(), created.getUsername());
+                    return ServerResponse.created(URI.create("/users/" + created.getId()))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(created);
+                });
+    }
+
+    public Mono<ServerResponse> updateUser(ServerRequest request) {
+        return withId(request, id -> request.bodyToMono(UserDto.class)
+                .map(this::validate)
+                .flatMap(userDto -> {
+                    log.debug("Updating user with ID: {} and username: {}", id, userDto.getUsername());
+                    if (userDto.getId() != null && !userDto.getId().equals(id)) {
+                        log.warn("ID mismatch - Path ID: {}, DTO ID: {}", id, userDto.getId());
+                    }
+                    userDto.setId(id);
+                    return userService.updateUser(id, userDto);
+                })
+                .flatMap(updated -> {
+                    log.info("Successfully updated user with ID: {} and username: {}", updated.getId(), updated.getUsername());
+                    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(updated);
+                }));
+    }
+
+    public Mono<ServerResponse> deleteUser(ServerRequest request) {
+        return withId(request, id -> {
+            log.debug("Deleting user with ID: {}", id);
+            return userService.deleteUser(id)
+                    .then(Mono.defer(() -> {
+                        log.info("Successfully deleted user with ID: {}", id);
+                        return ServerResponse.noContent().build();
+                    }));
+        });
+    }
+
+    private Mono<ServerResponse> withId(ServerRequest request, Function<Long, Mono<ServerResponse>> handler) {
+        String value = request.pathVariable("id");
+        long id;
+        try {
+            id = Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return invalidType("id", value, Long.class);
+        }
+        return handler.apply(id);
+    }
+
+    private UserDto validate(UserDto userDto) {
+        Set<ConstraintViolation<UserDto>> violations = validator.validate(userDto);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return userDto;
+    }
+
+    private static Mono<ServerResponse> invalidType(String parameter, String value, Class<?> type) {
+        return badRequest("Invalid parameter type provided",
+                String.format("Invalid value '%s' for parameter '%s'. Expected type: %s", value, parameter, type.getSimpleName()));
+    }
+
+    private static Mono<ServerResponse> badRequest(String message, String error) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                message,
+                HttpStatus.BAD_REQUEST.value(),
+                Instant.now().toEpochMilli(),
+                List.of(error)
+        );
+        return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON).bodyValue(errorResponse);
+    }
+}
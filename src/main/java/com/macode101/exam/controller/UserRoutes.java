@@ -0,0 +1,60 @@
+package com.macode101.exam.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.macode101.exam.exception.ReactiveExceptionHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Functional {@code /users} routes, active when the application runs with
+ * {@code spring.main.web-application-type=reactive}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UserRoutes {
+
+    /**
+     * Keeps NDJSON one object per line even though {@code indent-output} is on.
+     */
+    @Bean
+    public CodecCustomizer ndjsonCodecCustomizer(ObjectMapper objectMapper) {
+        ObjectMapper compact = objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT);
+        return configurer -> configurer.customCodecs()
+                .register(new Jackson2JsonEncoder(compact, MediaType.APPLICATION_NDJSON));
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> userRouterFunction(UserHandler handler, ReactiveExceptionHandler exceptionHandler) {
+        return userRoutes(handler, exceptionHandler);
+    }
+
+    static RouterFunction<ServerResponse> userRoutes(UserHandler handler, ReactiveExceptionHandler exceptionHandler) {
+        return route()
+                .GET("/users", UserRoutes::acceptsNdjson, handler::streamAllUsers)
+                .GET("/users", handler::getAllUsers)
+                .GET("/users/{id}", handler::getUserById)
+                .POST("/users", handler::createUser)
+                .PUT("/users/{id}", handler::updateUser)
+                .DELETE("/users/{id}", handler::deleteUser)
+                .onError(Throwable.class, exceptionHandler::handle)
+                .build();
+    }
+
+    /**
+     * Only an explicit NDJSON Accept header selects streaming; a missing or
+     * wildcard Accept keeps the JSON array, as on the servlet stack.
+     */
+    private static boolean acceptsNdjson(ServerRequest request) {
+        return request.headers().accept().stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+}
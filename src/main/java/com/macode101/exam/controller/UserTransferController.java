@@ -0,0 +1,72 @@
+package com.macode101.exam.controller;
+
+import com.macode101.exam.model.ImportResult;
+import com.macode101.exam.service.UserTransferService;
+import com.macode101.exam.service.UserTransferService.Format;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Bulk export and import of the whole store. The format follows the
+ * {@code Accept} and {@code Content-Type} headers: NDJSON, or the binary
+ * records of {@link Format#BINARY} as {@value #USER_RECORDS_VALUE}. Both
+ * directions stream; neither holds the store or the request in memory.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+@RequestMapping("/users")
+public class UserTransferController {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTransferController.class);
+    public static final String USER_RECORDS_VALUE = "application/x-user-records";
+    public static final MediaType USER_RECORDS = MediaType.parseMediaType(USER_RECORDS_VALUE);
+
+    private final UserTransferService userTransferService;
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportNdjson() {
+        return export(Format.NDJSON, MediaType.APPLICATION_NDJSON);
+    }
+
+    @GetMapping(value = "/export", produces = USER_RECORDS_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBinary() {
+        return export(Format.BINARY, USER_RECORDS);
+    }
+
+    /**
+     * Also takes a JSON array, which is read one user at a time like NDJSON.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ImportResult importNdjson(InputStream body) throws IOException {
+        return importUsers(Format.NDJSON, body);
+    }
+
+    @PostMapping(value = "/import", consumes = USER_RECORDS_VALUE)
+    public ImportResult importBinary(InputStream body) throws IOException {
+        return importUsers(Format.BINARY, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Format format, MediaType mediaType) {
+        log.info("Exporting all users as {}", format);
+        StreamingResponseBody body = out -> userTransferService.exportUsers(format, out);
+        return ResponseEntity.ok().contentType(mediaType).body(body);
+    }
+
+    private ImportResult importUsers(Format format, InputStream body) throws IOException {
+        log.info("Importing users as {}", format);
+        return userTransferService.importUsers(format, body);
+    }
+}
@@ -0,0 +1,8 @@
+package com.macode101.exam.exception;
+
+public class ChangesExpiredException extends DomainException {
+
+    public ChangesExpiredException(long afterSequence) {
+        super("Changes after sequence " + afterSequence + " are no longer available; re-read the users and subscribe again");
+    }
+}
@@ -0,0 +1,8 @@
+package com.macode101.exam.exception;
+
+public class ClusterAuthenticationException extends DomainException {
+
+    public ClusterAuthenticationException(String message) {
+        super(message);
+    }
+}
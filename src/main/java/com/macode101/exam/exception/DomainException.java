@@ -0,0 +1,17 @@
+package com.macode101.exam.exception;
+
+/**
+ * Base of the exceptions that report an expected outcome to the client rather
+ * than a fault. They carry no stack trace: filling one in is the most
+ * expensive part of throwing, and handlers only ever report the message.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+
+    protected DomainException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
@@ -0,0 +1,12 @@
+package com.macode101.exam.exception;
+
+public class DuplicateUserException extends DomainException {
+
+    public DuplicateUserException(String message) {
+        super(message);
+    }
+
+    public DuplicateUserException(String field, String value) {
+        super("User already exists with " + field + ": " + value);
+    }
+}
@@ -0,0 +1,72 @@
+package com.macode101.exam.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pre-encoded JSON of an {@link com.macode101.exam.model.ErrorResponse} whose
+ * message is a fixed text followed by a number, e.g. the id that was not
+ * found. Rendering copies the constant parts and writes the two numbers in
+ * place: no message string, no response object, no Jackson. The output is
+ * what Jackson writes for the same response without indentation.
+ */
+final class ErrorResponseTemplate {
+
+    private final byte[] head;
+    private final byte[] middle;
+
+    ErrorResponseTemplate(String messagePrefix, HttpStatus status) {
+        byte[] prefix = JsonStringEncoder.getInstance().quoteAsUTF8(messagePrefix);
+        byte[] open = "{\"message\":\"".getBytes(StandardCharsets.US_ASCII);
+        head = new byte[open.length + prefix.length];
+        System.arraycopy(open, 0, head, 0, open.length);
+        System.arraycopy(prefix, 0, head, open.length, prefix.length);
+        middle = ("\",\"status\":" + status.value() + ",\"timestamp\":").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    byte[] render(long value, long timestamp) {
+        byte[] json = new byte[head.length + digits(value) + middle.length + digits(timestamp) + 1];
+        System.arraycopy(head, 0, json, 0, head.length);
+        int position = write(value, json, head.length);
+        System.arraycopy(middle, 0, json, position, middle.length);
+        position = write(timestamp, json, position + middle.length);
+        json[position] = '}';
+        return json;
+    }
+
+    private static int digits(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int digits = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value); rest >= 10; rest /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes {@code value} in decimal at {@code position} and returns the
+     * position after it.
+     */
+    private static int write(long value, byte[] json, int position) {
+        if (value == Long.MIN_VALUE) {
+            byte[] min = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(min, 0, json, position, min.length);
+            return position + min.length;
+        }
+        int end = position + digits(value);
+        if (value < 0) {
+            json[position] = '-';
+            value = -value;
+        }
+        int digit = end;
+        do {
+            json[--digit] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        return end;
+    }
+}
@@ -1,10 +1,17 @@
 package com.macode101.exam.exception;
 
+import com.macode101.exam.config.MetricsConfig;
 import com.macode101.exam.model.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -14,29 +21,149 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Client errors are cheap to report, as they can arrive in floods: their
+ * warnings are sampled to {@value #CLIENT_ERROR_LOGS_PER_SECOND} a second,
+ * error counters are looked up once per exception type, and a user that is
+ * not found by id gets a pre-encoded body without going through Jackson.
+ */
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    static final int CLIENT_ERROR_LOGS_PER_SECOND = 20;
+    private static final ErrorResponseTemplate USER_ID_NOT_FOUND =
+            new ErrorResponseTemplate(UserNotFoundException.ID_MESSAGE, HttpStatus.NOT_FOUND);
+
+    private final MeterRegistry meterRegistry;
+    private final LogSampler clientErrorLog = new LogSampler(logger, CLIENT_ERROR_LOGS_PER_SECOND);
+    private final Map<ErrorKey, Counter> errorCounters = new ConcurrentHashMap<>();
 
     @ExceptionHandler(UserNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleUserNotFoundException(UserNotFoundException ex, HttpServletRequest request) {
-        logger.warn("User not found - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
-        
+    public ResponseEntity<?> handleUserNotFoundException(UserNotFoundException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("User not found - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
+        count(ex, HttpStatus.NOT_FOUND);
+        if (ex.getUserId() != null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(USER_ID_NOT_FOUND.render(ex.getUserId(), System.currentTimeMillis()));
+        }
+
         ErrorResponse errorResponse = new ErrorResponse(
                 ex.getMessage(),
                 HttpStatus.NOT_FOUND.value(),
-                Instant.now().toEpochMilli()
+                System.currentTimeMillis()
         );
         
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(DuplicateUserException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateUserException(DuplicateUserException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("Duplicate user - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.CONFLICT.value(),
+                System.currentTimeMillis()
+        );
+
+        return respond(ex, errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(UserVersionMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleUserVersionMismatchException(UserVersionMismatchException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("Precondition failed - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.PRECONDITION_FAILED.value(),
+                System.currentTimeMillis()
+        );
+
+        return respond(ex, errorResponse, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("Request rejected - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
+        count(ex, HttpStatus.TOO_MANY_REQUESTS);
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                System.currentTimeMillis()
+        );
+
+        // Retry-After takes whole seconds; rounding down would invite an early retry.
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(ClusterAuthenticationException.class)
+    public ResponseEntity<ErrorResponse> handleClusterAuthenticationException(ClusterAuthenticationException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("Cluster call refused - Request: {} {}, Remote: {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+        }
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.FORBIDDEN.value(),
+                System.currentTimeMillis()
+        );
+
+        return respond(ex, errorResponse, HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(MalformedImportException.class)
+    public ResponseEntity<ErrorResponse> handleMalformedImportException(MalformedImportException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("Malformed import - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST.value(),
+                System.currentTimeMillis()
+        );
+
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidUserException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidUserException(InvalidUserException ex, HttpServletRequest request) {
+        if (clientErrorLog.allow()) {
+            logger.warn("Validation failed - Request: {} {}, Errors: {}", request.getMethod(), request.getRequestURI(), ex.getErrors());
+        }
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST.value(),
+                System.currentTimeMillis(),
+                ex.getErrors()
+        );
+
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex, HttpServletRequest request) {
         List<String> errors = ex.getBindingResult()
@@ -49,21 +176,25 @@ public class GlobalExceptionHandler {
             errors.add("Global: " + error.getDefaultMessage())
         );
 
-        logger.warn("Validation failed - Request: {} {}, Errors: {}", request.getMethod(), request.getRequestURI(), errors);
+        if (clientErrorLog.allow()) {
+            logger.warn("Validation failed - Request: {} {}, Errors: {}", request.getMethod(), request.getRequestURI(), errors);
+        }
 
         ErrorResponse errorResponse = new ErrorResponse(
                 "Validation failed for the provided data",
                 HttpStatus.BAD_REQUEST.value(),
-                Instant.now().toEpochMilli(),
+                System.currentTimeMillis(),
                 errors
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorResponse> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex, HttpServletRequest request) {
-        logger.warn("Malformed JSON request - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        if (clientErrorLog.allow()) {
+            logger.warn("Malformed JSON request - Request: {} {}, Error: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
         
         List<String> errors = new ArrayList<>();
         errors.add("Malformed JSON request body");
@@ -71,17 +202,19 @@ public class GlobalExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(
                 "Invalid JSON format in request body",
                 HttpStatus.BAD_REQUEST.value(),
-                Instant.now().toEpochMilli(),
+                System.currentTimeMillis(),
                 errors
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex, HttpServletRequest request) {
-        logger.warn("Invalid parameter type - Request: {} {}, Parameter: {}, Value: {}", 
-                   request.getMethod(), request.getRequestURI(), ex.getName(), ex.getValue());
+        if (clientErrorLog.allow()) {
+            logger.warn("Invalid parameter type - Request: {} {}, Parameter: {}, Value: {}", 
+                       request.getMethod(), request.getRequestURI(), ex.getName(), ex.getValue());
+        }
         
         List<String> errors = new ArrayList<>();
         errors.add(String.format("Invalid value '%s' for parameter '%s'. Expected type: %s", 
@@ -90,16 +223,18 @@ public class GlobalExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(
                 "Invalid parameter type provided",
                 HttpStatus.BAD_REQUEST.value(),
-                Instant.now().toEpochMilli(),
+                System.currentTimeMillis(),
                 errors
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(MissingPathVariableException.class)
     public ResponseEntity<ErrorResponse> handleMissingPathVariableException(MissingPathVariableException ex, HttpServletRequest request) {
-        logger.warn("Missing path variable - Request: {} {}, Variable: {}", request.getMethod(), request.getRequestURI(), ex.getVariableName());
+        if (clientErrorLog.allow()) {
+            logger.warn("Missing path variable - Request: {} {}, Variable: {}", request.getMethod(), request.getRequestURI(), ex.getVariableName());
+        }
         
         List<String> errors = new ArrayList<>();
         errors.add(String.format("Missing required path variable: %s", ex.getVariableName()));
@@ -107,17 +242,19 @@ public class GlobalExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(
                 "Missing required path parameter",
                 HttpStatus.BAD_REQUEST.value(),
-                Instant.now().toEpochMilli(),
+                System.currentTimeMillis(),
                 errors
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<ErrorResponse> handleHttpRequestMethodNotSupportedException(HttpRequestMethodNotSupportedException ex, HttpServletRequest request) {
-        logger.warn("Method not supported - Request: {} {}, Supported methods: {}", 
-                   request.getMethod(), request.getRequestURI(), ex.getSupportedMethods());
+        if (clientErrorLog.allow()) {
+            logger.warn("Method not supported - Request: {} {}, Supported methods: {}", 
+                       request.getMethod(), request.getRequestURI(), ex.getSupportedMethods());
+        }
         
         List<String> errors = new ArrayList<>();
         errors.add(String.format("HTTP method '%s' is not supported for this endpoint", ex.getMethod()));
@@ -126,11 +263,11 @@ public class GlobalExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(
                 "HTTP method not supported",
                 HttpStatus.METHOD_NOT_ALLOWED.value(),
-                Instant.now().toEpochMilli(),
+                System.currentTimeMillis(),
                 errors
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.METHOD_NOT_ALLOWED);
+        return respond(ex, errorResponse, HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @ExceptionHandler(jakarta.validation.ConstraintViolationException.class)
@@ -140,16 +277,18 @@ public class GlobalExceptionHandler {
                 .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
                 .collect(Collectors.toList());
 
-        logger.warn("Constraint violation - Request: {} {}, Errors: {}", request.getMethod(), request.getRequestURI(), errors);
+        if (clientErrorLog.allow()) {
+            logger.warn("Constraint violation - Request: {} {}, Errors: {}", request.getMethod(), request.getRequestURI(), errors);
+        }
 
         ErrorResponse errorResponse = new ErrorResponse(
                 "Invalid parameter provided",
                 HttpStatus.BAD_REQUEST.value(),
-                Instant.now().toEpochMilli(),
+                System.currentTimeMillis(),
                 errors
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ex, errorResponse, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(Exception.class)
@@ -159,9 +298,24 @@ public class GlobalExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(
                 "An unexpected error occurred. Please try again later.",
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                Instant.now().toEpochMilli()
+                System.currentTimeMillis()
         );
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        return respond(ex, errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private ResponseEntity<ErrorResponse> respond(Exception ex, ErrorResponse errorResponse, HttpStatus status) {
+        count(ex, status);
+        return new ResponseEntity<>(errorResponse, status);
     }
+
+    private void count(Exception ex, HttpStatus status) {
+        errorCounters.computeIfAbsent(new ErrorKey(ex.getClass(), status), key ->
+                meterRegistry.counter(MetricsConfig.ERROR_COUNTER,
+                        "exception", key.type().getSimpleName(),
+                        "status", String.valueOf(key.status().value()))
+        ).increment();
+    }
+
+    private record ErrorKey(Class<?> type, HttpStatus status) {}
 }
@@ -0,0 +1,23 @@
+package com.macode101.exam.exception;
+
+import java.util.List;
+
+/**
+ * A user request that failed validation, with the violations as
+ * {@code field: message}, the way the batch endpoints report them per item.
+ */
+public class InvalidUserException extends DomainException {
+
+    public static final String MESSAGE = "Validation failed for the provided data";
+
+    private final List<String> errors;
+
+    public InvalidUserException(List<String> errors) {
+        super(MESSAGE);
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
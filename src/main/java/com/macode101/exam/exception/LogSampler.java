@@ -0,0 +1,51 @@
+package com.macode101.exam.exception;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most {@code permitsPerSecond} log lines through per second and
+ * counts the rest, so that a flood of bad requests cannot turn into a flood
+ * of log I/O. The first line let through after some were dropped is preceded
+ * by a line saying how many.
+ */
+final class LogSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger logger;
+    private final int permitsPerSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger used = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    LogSampler(Logger logger, int permitsPerSecond) {
+        this.logger = logger;
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Whether the caller may log now; callers build their log arguments only
+     * when it is {@code true}.
+     */
+    boolean allow() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() > permitsPerSecond) {
+            dropped.increment();
+            return false;
+        }
+        long skipped = dropped.sumThenReset();
+        if (skipped > 0) {
+            logger.warn("{} similar log lines were dropped to stay within {} per second", skipped, permitsPerSecond);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package com.macode101.exam.exception;
+
+public class MalformedImportException extends DomainException {
+
+    public MalformedImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
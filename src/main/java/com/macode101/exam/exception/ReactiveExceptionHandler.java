@@ -0,0 +1,104 @@
+package com.macode101.exam.exception;
+
+import com.macode101.exam.config.MetricsConfig;
+import com.macode101.exam.model.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reactive counterpart of {@link GlobalExceptionHandler}, producing the same
+ * statuses and {@link ErrorResponse} bodies for the functional routes.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveExceptionHandler.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public Mono<ServerResponse> handle(Throwable ex, ServerRequest request) {
+        if (ex instanceof UserNotFoundException) {
+            logger.warn("User not found - Request: {} {}, Error: {}", request.method(), request.path(), ex.getMessage());
+            return respond(ex, HttpStatus.NOT_FOUND, new ErrorResponse(
+                    ex.getMessage(),
+                    HttpStatus.NOT_FOUND.value(),
+                    Instant.now().toEpochMilli()
+            ));
+        }
+
+        if (ex instanceof DuplicateUserException) {
+            logger.warn("Duplicate user - Request: {} {}, Error: {}", request.method(), request.path(), ex.getMessage());
+            return respond(ex, HttpStatus.CONFLICT, new ErrorResponse(
+                    ex.getMessage(),
+                    HttpStatus.CONFLICT.value(),
+                    Instant.now().toEpochMilli()
+            ));
+        }
+
+        if (ex instanceof InvalidUserException invalid) {
+            logger.warn("Validation failed - Request: {} {}, Errors: {}", request.method(), request.path(), invalid.getErrors());
+            return respond(ex, HttpStatus.BAD_REQUEST, new ErrorResponse(
+                    invalid.getMessage(),
+                    HttpStatus.BAD_REQUEST.value(),
+                    Instant.now().toEpochMilli(),
+                    invalid.getErrors()
+            ));
+        }
+
+        if (ex instanceof jakarta.validation.ConstraintViolationException violation) {
+            List<String> errors = violation.getConstraintViolations()
+                    .stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.toList());
+            logger.warn("Validation failed - Request: {} {}, Errors: {}", request.method(), request.path(), errors);
+            return respond(ex, HttpStatus.BAD_REQUEST, new ErrorResponse(
+                    "Validation failed for the provided data",
+                    HttpStatus.BAD_REQUEST.value(),
+                    Instant.now().toEpochMilli(),
+                    errors
+            ));
+        }
+
+        if (ex instanceof ServerWebInputException || ex instanceof DecodingException) {
+            logger.warn("Malformed JSON request - Request: {} {}, Error: {}", request.method(), request.path(), ex.getMessage());
+            return respond(ex, HttpStatus.BAD_REQUEST, new ErrorResponse(
+                    "Invalid JSON format in request body",
+                    HttpStatus.BAD_REQUEST.value(),
+                    Instant.now().toEpochMilli(),
+                    List.of("Malformed JSON request body")
+            ));
+        }
+
+        logger.error("Unexpected error - Request: {} {}, Error: {}", request.method(), request.path(), ex.getMessage(), ex);
+        return respond(ex, HttpStatus.INTERNAL_SERVER_ERROR, new ErrorResponse(
+                "An unexpected error occurred. Please try again later.",
+                HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                Instant.now().toEpochMilli()
+        ));
+    }
+
+    private Mono<ServerResponse> respond(Throwable ex, HttpStatus status, ErrorResponse errorResponse) {
+        meterRegistry.counter(MetricsConfig.ERROR_COUNTER,
+                "exception", ex.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(errorResponse);
+    }
+}
@@ -0,0 +1,20 @@
+package com.macode101.exam.exception;
+
+import java.time.Duration;
+
+public class TooManyRequestsException extends DomainException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * How long the client should wait before trying again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
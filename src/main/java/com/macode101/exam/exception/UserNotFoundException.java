@@ -1,20 +1,43 @@
 package com.macode101.exam.exception;
 
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends DomainException {
+
+    static final String ID_MESSAGE = "User not found with id: ";
+
+    private final Long userId;
 
     public UserNotFoundException() {
-        super("User not found");
+        this("User not found");
     }
 
     public UserNotFoundException(String message) {
         super(message);
+        this.userId = null;
     }
 
     public UserNotFoundException(Long userId) {
-        super("User not found with id: " + userId);
+        super(null);
+        this.userId = userId;
     }
 
     public UserNotFoundException(String message, Throwable cause) {
         super(message, cause);
+        this.userId = null;
+    }
+
+    /**
+     * Id that was looked up, or {@code null} if the exception was raised
+     * with a message of its own.
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Built on demand: the error response for an id is rendered without it.
+     */
+    @Override
+    public String getMessage() {
+        return userId != null ? ID_MESSAGE + userId : super.getMessage();
     }
 }
@@ -0,0 +1,12 @@
+package com.macode101.exam.exception;
+
+public class UserVersionMismatchException extends DomainException {
+
+    public UserVersionMismatchException(Long userId) {
+        super("User with id " + userId + " has been modified since it was read");
+    }
+
+    public UserVersionMismatchException(Long userId, long expectedVersion, long actualVersion) {
+        super("User with id " + userId + " is at version " + actualVersion + ", not " + expectedVersion);
+    }
+}
@@ -2,7 +2,50 @@ package com.macode101.exam.mapper;
 
 import com.macode101.exam.model.User;
 import com.macode101.exam.model.UserDto;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring")
-public interface UserMapper extends EntityMapper<UserDto, User> {}
+public interface UserMapper extends EntityMapper<UserDto, User> {
+
+    /**
+     * Versions are assigned by the repository, never taken from a client.
+     */
+    @Override
+    @Mapping(target = "version", ignore = true)
+    User toEntity(UserDto dto);
+
+    /**
+     * The DTO of {@code saved}, a user mapped from {@code dto} by
+     * {@link #toEntity} or {@link #update}: the repository only assigned its
+     * id and version, so those are copied back into {@code dto} instead of
+     * mapping a new one.
+     */
+    default UserDto toSavedDto(UserDto dto, User saved) {
+        dto.setId(saved.getId());
+        dto.setVersion(saved.getVersion());
+        return dto;
+    }
+
+    /**
+     * Replaces every field but the id and version with the one in {@code dto}.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void update(@MappingTarget User entity, UserDto dto);
+
+    /**
+     * Copies the non-null fields of {@code dto}; the id always comes from the
+     * request path, never from the body.
+     */
+    @Override
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void partialUpdate(@MappingTarget User entity, UserDto dto);
+}
@@ -0,0 +1,28 @@
+package com.macode101.exam.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of one item in a batch request, reported at the item's position
+ * in the request body.
+ */
+@Data
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index;
+    private int status;
+    private Long id;
+    private UserDto user;
+    private List<String> errors;
+
+    public BatchItemResult(int index, int status, UserDto user) {
+        this(index, status, user.getId(), user, null);
+    }
+
+    public BatchItemResult(int index, int status, Long id, List<String> errors) {
+        this(index, status, id, null, errors);
+    }
+}
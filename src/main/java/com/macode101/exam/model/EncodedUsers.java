@@ -0,0 +1,26 @@
+package com.macode101.exam.model;
+
+import java.util.List;
+
+/**
+ * Users already encoded as compact JSON objects, in id order, to be written
+ * out as one JSON array without going through the object mapper again.
+ * {@code lastId} is the id of the last user, or {@code null} when empty.
+ */
+public record EncodedUsers(List<byte[]> users, Long lastId) {
+
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * Length in bytes of the JSON array holding all users.
+     */
+    public long byteLength() {
+        long length = 2 + Math.max(users.size() - 1, 0);
+        for (byte[] user : users) {
+            length += user.length;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,16 @@
+package com.macode101.exam.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of a bulk import: how many users were stored, and how many were
+ * left out because they lacked a required field, had an id the store cannot
+ * hold, or another user already had their username or email.
+ */
+@Data
+@AllArgsConstructor
+public class ImportResult {
+    private long imported;
+    private long skipped;
+}
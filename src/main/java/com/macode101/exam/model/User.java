@@ -1,17 +1,75 @@
 package com.macode101.exam.model;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+/**
+ * The mapping is only used by the JPA-backed store ({@code jpa} profile); the
+ * in-memory store treats this as a plain object. Ids come from a sequence
+ * incremented by {@link #ID_ALLOCATION_SIZE} so Hibernate's pooled optimizer
+ * hands out a block of ids per round trip; users saved with an id of their own
+ * keep it (see {@link UserIdGenerator}).
+ * <p>
+ * {@link #version} is set by the repository: above every version issued
+ * before for a new user (at {@code 0} in the JPA store), and bumped when the
+ * user is saved (by the JPA store only if a field actually changed); it backs
+ * the ETags of the user API and Hibernate's optimistic locking.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Entity
+@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class User {
+
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String ID_SEQUENCE = "users_seq";
+
+    @Id
+    @GeneratedValue(generator = ID_SEQUENCE)
+    @GenericGenerator(name = ID_SEQUENCE, type = UserIdGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ID_SEQUENCE),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_ALLOCATION_SIZE)
+    })
     private Long id;
+
+    @Column(nullable = false)
     private String name;
+
+    @Column(nullable = false, unique = true)
     private String username;
+
+    @Column(nullable = false, unique = true)
     private String email;
+
     private String phone;
+
     private String website;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    public User(Long id, String name, String username, String email, String phone, String website) {
+        this(id, name, username, email, phone, website, 0L);
+    }
+
+    public User(User other) {
+        this(other.id, other.name, other.username, other.email, other.phone, other.website, other.version);
+    }
 }
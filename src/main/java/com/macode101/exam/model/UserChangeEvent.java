@@ -0,0 +1,26 @@
+package com.macode101.exam.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the user change stream. {@code user} holds the state after a
+ * create or update and is absent for a delete; {@code version} is the user's
+ * version after the change. Changes of one user arrive in order of their
+ * {@code sequence}, and a consumer that receives a version older than one it
+ * already applied can drop it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangeEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private long sequence;
+    private Type type;
+    private Long id;
+    private Long version;
+    private UserDto user;
+}
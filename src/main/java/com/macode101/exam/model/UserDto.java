@@ -1,5 +1,6 @@
 package com.macode101.exam.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,18 +10,33 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserDto {
+    public static final String NAME_REQUIRED = "Name is required and cannot be blank";
+    public static final String USERNAME_REQUIRED = "Username is required and cannot be blank";
+    public static final String EMAIL_REQUIRED = "Email is required and cannot be blank";
+
     private Long id;
     
-    @NotBlank(message = "Name is required and cannot be blank")
+    @NotBlank(message = NAME_REQUIRED)
     private String name;
     
-    @NotBlank(message = "Username is required and cannot be blank")
+    @NotBlank(message = USERNAME_REQUIRED)
     private String username;
     
-    @NotBlank(message = "Email is required and cannot be blank")
+    @NotBlank(message = EMAIL_REQUIRED)
     private String email;
     
     private String phone;
     
     private String website;
+
+    /**
+     * Version of the user this was mapped from; sent as the ETag header
+     * rather than in the body.
+     */
+    @JsonIgnore
+    private Long version;
+
+    public UserDto(Long id, String name, String username, String email, String phone, String website) {
+        this(id, name, username, email, phone, website, null);
+    }
 }
@@ -0,0 +1,46 @@
+package com.macode101.exam.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code users_seq} generator of {@link User}, which also keeps ids that
+ * are given: imported users are inserted under their own ids. Once such ids
+ * are stored, {@link #skipThrough} makes sure the block of ids this node has
+ * already taken from the sequence does not hand them out again.
+ */
+public class UserIdGenerator extends SequenceStyleGenerator {
+
+    private final AtomicLong floor = new AtomicLong();
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        return currentValue != null ? currentValue : generate(session, owner);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object id;
+        do {
+            id = super.generate(session, object);
+        } while (((Number) id).longValue() <= floor.get());
+        return id;
+    }
+
+    /**
+     * Never generates {@code id} or any id below it from now on; the sequence
+     * itself must already be past it, or this will draw it until it is.
+     */
+    public void skipThrough(long id) {
+        floor.accumulateAndGet(id, Math::max);
+    }
+}
@@ -0,0 +1,69 @@
+package com.macode101.exam.repository;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hashing of 64-bit key hashes onto {@code nodeCount} nodes. Each
+ * node owns {@code virtualNodes} points on the ring and a key belongs to the
+ * first point at or after its hash, so load evens out across nodes and a node
+ * joining or leaving moves only its own share of keys. Points are kept in a
+ * sorted primitive array, so lookups are a binary search that allocates
+ * nothing.
+ */
+final class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    ConsistentHashRing(int nodeCount, int virtualNodes) {
+        if (nodeCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one node and one point per node");
+        }
+        long[][] entries = new long[nodeCount * virtualNodes][];
+        for (int node = 0; node < nodeCount; node++) {
+            for (int point = 0; point < virtualNodes; point++) {
+                entries[node * virtualNodes + point] = new long[] {hash(((long) node << 32) | point), node};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[entries.length];
+        owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    int nodeFor(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * MurmurHash3's 64-bit finalizer: sequential ids land far apart.
+     */
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 64-bit FNV-1a over the string's chars, finalized like {@link #hash(long)}.
+     * Stable across JVMs, unlike identity or seeded hashes.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash(hash);
+    }
+}
@@ -0,0 +1,86 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Reactive view over the same {@link UserRepository} the servlet stack uses,
+ * so both stacks can be benchmarked against one store. Whichever store is
+ * active, its calls may block (JPA, the peers of a sharded node, the in-memory
+ * store's write locks), so they run on {@link Schedulers#boundedElastic()}
+ * rather than on the event loop that subscribed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InMemoryReactiveUserRepository implements ReactiveUserRepository {
+
+    static final int PAGE_SIZE = 256;
+
+    private final UserRepository userRepository;
+
+    @Override
+    public Flux<User> findAll() {
+        return pagesAfter(null);
+    }
+
+    @Override
+    public Flux<User> findPage(Long afterId, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(userRepository.findPage(afterId, limit)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        return Mono.fromCallable(() -> userRepository.findById(id).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<User> findByUsername(String username) {
+        return Mono.fromCallable(() -> userRepository.findByUsername(username).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<User> findByEmail(String email) {
+        return Mono.fromCallable(() -> userRepository.findByEmail(email).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<User> save(User user) {
+        return Mono.fromCallable(() -> userRepository.save(user))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return Mono.<Void>fromRunnable(() -> userRepository.deleteById(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return Mono.fromCallable(() -> userRepository.existsById(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Flux<User> pagesAfter(Long afterId) {
+        return Mono.fromCallable(() -> userRepository.findPage(afterId, PAGE_SIZE))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(page -> {
+                    Flux<User> users = Flux.fromIterable(page);
+                    if (page.size() < PAGE_SIZE) {
+                        return users;
+                    }
+                    Long last = page.get(page.size() - 1).getId();
+                    return users.concatWith(Flux.defer(() -> pagesAfter(last)));
+                });
+    }
+}
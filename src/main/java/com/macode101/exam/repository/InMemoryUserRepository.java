@@ -1,96 +1,659 @@
 package com.macode101.exam.repository;
 
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
 import com.macode101.exam.model.User;
-import java.util.HashMap;
+import com.macode101.exam.model.UserChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
 import jakarta.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 
+/**
+ * Thread-safe in-memory store. Reads never lock; writes lock only the id's
+ * stripe and, to commit, a short global section. Lookups by id go through a
+ * primitive {@link LongObjectHashMap} of the latest users so they neither box
+ * the id nor allocate.
+ * <p>
+ * Reads of many users are multi-versioned. Every save and delete takes the
+ * next store version and pushes a new {@link Version} onto the id's chain in
+ * the skip list, which keeps the id order for paging. {@link #findAll},
+ * {@link #findPage} and {@link #snapshot} read through a {@link ReadView}
+ * frozen at the last committed store version: they see each user as of that
+ * version and never a later write, however long they take. Store versions are
+ * taken, installed and committed in one section under a global commit lock, so
+ * they commit in the order they are taken and views never see a write without
+ * the ones before it. The section is one skip list insert, nothing waits in
+ * it, and a write has committed by the time it returns. Views take no locks
+ * and writers never wait for them; {@link #findAll()} is cached until the next
+ * commit.
+ * <p>
+ * Versions that no open view can see any more are unlinked in the background,
+ * shortly after the write that superseded them; deleted users leave their
+ * chain once that happens.
+ * <p>
+ * Usernames and emails are kept in unique hash indexes. Writes to the same id
+ * are serialized on a lock stripe so the indexes follow the primary map;
+ * uniqueness across different ids is claimed with {@code putIfAbsent}. The
+ * {@link UserSearchIndex} behind {@link #search} is updated the same way.
+ * <p>
+ * When a {@link UserWriteAheadLog} is configured, every mutation is logged,
+ * writes fail while the log cannot flush, and the store is recovered from it
+ * on startup instead of being seeded from its {@link UserSeed}.
+ * Every mutation is also appended to the {@link UserChangeLog}, if there is
+ * one, while the id's stripe is held.
+ */
 @Repository
+@Profile("!jpa & !offheap & !sharded")
 public class InMemoryUserRepository implements UserRepository {
     
-    private final HashMap<Long, User> users = new HashMap<>();
+    private static final int LOCK_STRIPES = 64;
+    private static final long RECLAIM_DELAY_MILLIS = 10;
+    private static final long RECLAIM_RETRY_MILLIS = 100;
+
+    private final ConcurrentNavigableMap<Long, Version> users = new ConcurrentSkipListMap<>();
+    private final LongObjectHashMap<User> usersById = new LongObjectHashMap<>(1024);
+    private final ConcurrentMap<String, Long> usernameIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> emailIndex = new ConcurrentHashMap<>();
+    private final UserSearchIndex searchIndex = new UserSearchIndex();
+    private final Object[] locks = new Object[LOCK_STRIPES];
     private final AtomicLong idGenerator = new AtomicLong(1);
+    // Doubles as the store-wide version and the first version of new users; starting
+    // from the clock keeps a restart from handing out versions (and so ETags) that were
+    // already used.
+    private final AtomicLong modCount = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong committed = new AtomicLong(modCount.get());
+    private final Object commitLock = new Object();
+    private final AtomicLong size = new AtomicLong();
+    private final Set<ReadView> openViews = ConcurrentHashMap.newKeySet();
+    private final Queue<Long> supersededIds = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean reclaimScheduled = new AtomicBoolean();
+    // Views older than this may have lost versions, so none may open below it.
+    private volatile long reclaimHorizon;
+    private volatile CachedList cachedList;
+    private final UserWriteAheadLog writeAheadLog;
+    private final UserChangeLog changeLog;
+    private final UserSeed seed;
+
+    public InMemoryUserRepository() {
+        this(null, null);
+    }
+
+    public InMemoryUserRepository(@Nullable UserWriteAheadLog writeAheadLog) {
+        this(writeAheadLog, null);
+    }
+
+    public InMemoryUserRepository(@Nullable UserWriteAheadLog writeAheadLog, @Nullable UserChangeLog changeLog) {
+        this(writeAheadLog, changeLog, null);
+    }
+
+    @Autowired
+    public InMemoryUserRepository(
+            @Nullable UserWriteAheadLog writeAheadLog,
+            @Nullable UserChangeLog changeLog,
+            @Nullable UserSeed seed
+    ) {
+        this.writeAheadLog = writeAheadLog;
+        this.changeLog = changeLog;
+        this.seed = seed != null ? seed : UserSeed.samples();
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
 
     @PostConstruct
     public void initializeData() {
-        User user1 = new User();
-        user1.setId(idGenerator.getAndIncrement());
-        user1.setName("Leanne Graham");
-        user1.setUsername("Bret");
-        user1.setEmail("Sincere@april.biz");
-        user1.setPhone("1-770-736-8031 x56442");
-        user1.setWebsite("hildegard.org");
-        users.put(user1.getId(), user1);
-        
-        User user2 = new User();
-        user2.setId(idGenerator.getAndIncrement());
-        user2.setName("Ervin Howell");
-        user2.setUsername("Antonette");
-        user2.setEmail("Shanna@melissa.tv");
-        user2.setPhone("010-692-6593 x09125");
-        user2.setWebsite("anastasia.net");
-        users.put(user2.getId(), user2);
-        
-        User user3 = new User();
-        user3.setId(idGenerator.getAndIncrement());
-        user3.setName("Clementine Bauch");
-        user3.setUsername("Samantha");
-        user3.setEmail("Nathan@yesenia.net");
-        user3.setPhone("1-463-123-4447");
-        user3.setWebsite("ramiro.info");
-        users.put(user3.getId(), user3);
-        
-        User user4 = new User();
-        user4.setId(idGenerator.getAndIncrement());
-        user4.setName("Patricia Lebsack");
-        user4.setUsername("Karianne");
-        user4.setEmail("Julianne.OConner@kory.org");
-        user4.setPhone("493-170-9623 x156");
-        user4.setWebsite("kale.biz");
-        users.put(user4.getId(), user4);
-        
-        User user5 = new User();
-        user5.setId(idGenerator.getAndIncrement());
-        user5.setName("Chelsey Dietrich");
-        user5.setUsername("Kamren");
-        user5.setEmail("Lucio_Hettinger@annie.ca");
-        user5.setPhone("(254)954-1289");
-        user5.setWebsite("demarco.info");
-        users.put(user5.getId(), user5);
+        if (writeAheadLog != null) {
+            Map<Long, User> recovered = new HashMap<>();
+            OptionalLong nextId = writeAheadLog.recover(recovered);
+            writeAheadLog.start(this::findAll, idGenerator::get);
+            if (nextId.isPresent()) {
+                // New users are versioned from modCount, so it must stay above every recovered version.
+                recovered.values().forEach(user -> modCount.accumulateAndGet(user.getVersion(), Math::max));
+                long version = modCount.incrementAndGet();
+                recovered.forEach((id, user) -> {
+                    users.put(id, new Version(version, user, null));
+                    usersById.put(id, user);
+                });
+                committed.set(version);
+                size.set(recovered.size());
+                rebuildIndexes(recovered.values());
+                idGenerator.set(nextId.getAsLong());
+                return;
+            }
+        }
+        seed.seedInto(this);
     }
     
     @Override
     public List<User> findAll() {
-        return new ArrayList<>(users.values());
+        CachedList cached = cachedList;
+        if (cached != null && cached.version() == committed.get()) {
+            return cached.users();
+        }
+        try (ReadView view = openView()) {
+            List<User> all = new ArrayList<>((int) Math.min(size.get(), Integer.MAX_VALUE - 8));
+            for (Version head : users.values()) {
+                User user = view.resolve(head);
+                if (user != null) {
+                    all.add(user);
+                }
+            }
+            cached = new CachedList(view.version, Collections.unmodifiableList(all));
+        }
+        cachedList = cached;
+        return cached.users();
+    }
+    
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        try (ReadView view = openView()) {
+            return view.findPage(afterId, limit);
+        }
+    }
+
+    /**
+     * A view frozen at the last committed version; writes made while it is
+     * open are not visible through it.
+     */
+    @Override
+    public UserSnapshot snapshot() {
+        return openView();
     }
     
     @Override
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
+        return findById(id.longValue());
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return Optional.ofNullable(usersById.get(id));
+    }
+    
+    @Override
+    public List<User> search(String query, int limit) {
+        return searchIndex.search(query, limit, usersById::get);
+    }
+
+    @Override
+    public OptionalLong findVersionById(long id) {
+        User user = usersById.get(id);
+        return user == null ? OptionalLong.empty() : OptionalLong.of(user.getVersion());
+    }
+
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(committed.get());
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        return lookup(usernameIndex.get(username))
+                .filter(user -> username.equals(user.getUsername()));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return lookup(emailIndex.get(emailKey(email)))
+                .filter(user -> email.equalsIgnoreCase(user.getEmail()));
     }
     
     @Override
     public User save(User user) {
         if (user.getId() == null) {
             user.setId(idGenerator.getAndIncrement());
+        } else {
+            reserveIdsThrough(user.getId());
+        }
+        return saveWithId(user);
+    }
+
+    private User saveWithId(User user) {
+        Long id = user.getId();
+        synchronized (lockFor(id)) {
+            store(id, user, usersById.get(id));
         }
-        users.put(user.getId(), user);
         return user;
     }
+
+    @Override
+    public Optional<User> update(long id, Consumer<User> changes) {
+        synchronized (lockFor(id)) {
+            User previous = usersById.get(id);
+            if (previous == null) {
+                return Optional.empty();
+            }
+            // Stored users are read without locking, so never mutate one in place.
+            User updated = new User(previous);
+            changes.accept(updated);
+            updated.setId(id);
+            store(id, updated, previous);
+            return Optional.of(updated);
+        }
+    }
+
+    /**
+     * Claims the user's keys, stores it and releases the keys {@code previous}
+     * no longer uses. Callers hold the id's lock stripe.
+     * <p>
+     * A new user starts above every version the store has issued, in this run
+     * or, as the store version starts from the clock, an earlier one; so its
+     * version never names other content its id had, such as a deleted user's.
+     */
+    private void store(Long id, User user, User previous) {
+        if (writeAheadLog != null) {
+            writeAheadLog.checkWritable();
+        }
+        String username = user.getUsername();
+        String email = emailKey(user.getEmail());
+        boolean usernameClaimed = claim(usernameIndex, username, id, "username", user.getUsername());
+        try {
+            claim(emailIndex, email, id, "email", user.getEmail());
+        } catch (DuplicateUserException ex) {
+            if (usernameClaimed) {
+                usernameIndex.remove(username, id);
+            }
+            throw ex;
+        }
+
+        if (previous != null) {
+            user.setVersion(previous.getVersion() + 1);
+        } else {
+            user.setVersion(modCount.get() + 1);
+        }
+        install(id, user);
+        if (usersById.put(id, user) == null) {
+            size.incrementAndGet();
+        }
+        searchIndex.update(previous, user);
+        if (writeAheadLog != null) {
+            writeAheadLog.appendSave(user);
+        }
+        if (changeLog != null) {
+            changeLog.append(previous == null ? UserChangeEvent.Type.CREATED : UserChangeEvent.Type.UPDATED, id, user);
+        }
+
+        if (previous != null) {
+            release(usernameIndex, previous.getUsername(), username, id);
+            release(emailIndex, emailKey(previous.getEmail()), email, id);
+        }
+    }
+
+    @Override
+    public List<User> saveAll(List<User> batch) {
+        long newUsers = 0;
+        for (User user : batch) {
+            if (user.getId() == null) {
+                newUsers++;
+            } else {
+                reserveIdsThrough(user.getId());
+            }
+        }
+        long nextId = idGenerator.getAndAdd(newUsers);
+
+        List<User> saved = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            if (user.getId() == null) {
+                user.setId(nextId++);
+            }
+            try {
+                saveWithId(user);
+                saved.add(user);
+            } catch (DuplicateUserException ex) {
+                // Rejected by the unique indexes; callers detect it by absence.
+            }
+        }
+        return saved;
+    }
     
     @Override
     public void deleteById(Long id) {
-        users.remove(id);
+        remove(id);
+    }
+
+    @Override
+    public boolean deleteById(long id, long expectedVersion) {
+        synchronized (lockFor(id)) {
+            User current = usersById.get(id);
+            if (current == null) {
+                return false;
+            }
+            if (current.getVersion() != expectedVersion) {
+                throw new UserVersionMismatchException(id, expectedVersion, current.getVersion());
+            }
+            return remove(id);
+        }
+    }
+
+    @Override
+    public List<Long> deleteAllById(Collection<Long> ids) {
+        List<Long> deleted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (remove(id)) {
+                deleted.add(id);
+            }
+        }
+        return deleted;
     }
     
     @Override
     public boolean existsById(Long id) {
-        return users.containsKey(id);
+        return existsById(id.longValue());
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return usersById.get(id) != null;
+    }
+
+    @Override
+    public long count() {
+        return size.get();
+    }
+
+    /**
+     * Id that the next user saved without an id will receive.
+     */
+    public long nextId() {
+        return idGenerator.get();
+    }
+
+    private boolean remove(Long id) {
+        synchronized (lockFor(id)) {
+            if (writeAheadLog != null && usersById.get(id) != null) {
+                writeAheadLog.checkWritable();
+            }
+            User removed = usersById.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            install(id, null);
+            size.decrementAndGet();
+            searchIndex.update(removed, null);
+            if (writeAheadLog != null) {
+                writeAheadLog.appendDelete(id);
+            }
+            if (changeLog != null) {
+                changeLog.append(UserChangeEvent.Type.DELETED, id, null);
+            }
+            release(usernameIndex, removed.getUsername(), null, id);
+            release(emailIndex, emailKey(removed.getEmail()), null, id);
+            return true;
+        }
+    }
+
+    /**
+     * Keeps users saved with an id of their own, e.g. imported ones, from
+     * being handed out again to new users.
+     */
+    private void reserveIdsThrough(long id) {
+        if (id >= idGenerator.get()) {
+            idGenerator.accumulateAndGet(id + 1, Math::max);
+        }
+    }
+
+    /**
+     * Pushes the next store version of {@code id}, {@code null} for a delete,
+     * and commits it. Callers hold the id's lock stripe, which is always taken
+     * before {@link #commitLock}.
+     */
+    private void install(long id, @Nullable User user) {
+        Version head = users.get(id);
+        synchronized (commitLock) {
+            long version = modCount.incrementAndGet();
+            users.put(id, new Version(version, user, head));
+            committed.set(version);
+        }
+        if (head != null) {
+            supersededIds.add(id);
+            scheduleReclaim(RECLAIM_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Registers a view at the last committed version. A view must be
+     * registered before the reclaimer computes its horizon to be safe, and
+     * the two only race when the reclaimer is running: a view that lost the
+     * race sees a horizon above its version and is opened again.
+     */
+    private ReadView openView() {
+        while (true) {
+            ReadView view = new ReadView(committed.get());
+            openViews.add(view);
+            if (view.version >= reclaimHorizon) {
+                return view;
+            }
+            openViews.remove(view);
+        }
+    }
+
+    private void scheduleReclaim(long delayMillis) {
+        if (!reclaimScheduled.get() && reclaimScheduled.compareAndSet(false, true)) {
+            Reclaimer.EXECUTOR.schedule(this::reclaimVersions, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Unlinks, from the chains of the ids written since the last run, every
+     * version that no open view and no view opened from now on can see.
+     *
+     * @return how many chains still hold such versions, which an open view
+     *         or a pending commit kept; they are retried later
+     */
+    int reclaimVersions() {
+        long horizon = committed.get();
+        // Published before the open views are read, so that a view opening
+        // concurrently is either seen here or sees the new horizon.
+        reclaimHorizon = horizon;
+        for (ReadView view : openViews) {
+            horizon = Math.min(horizon, view.version);
+        }
+        List<Long> retained = new ArrayList<>();
+        Long id;
+        while ((id = supersededIds.poll()) != null) {
+            if (!truncate(id, horizon)) {
+                retained.add(id);
+            }
+        }
+        supersededIds.addAll(retained);
+        reclaimScheduled.set(false);
+        if (!supersededIds.isEmpty()) {
+            scheduleReclaim(retained.isEmpty() ? RECLAIM_DELAY_MILLIS : RECLAIM_RETRY_MILLIS);
+        }
+        return retained.size();
+    }
+
+    /**
+     * Cuts the chain of {@code id} below its newest version at or before
+     * {@code horizon}, and drops the chain if that version is its head and a
+     * delete.
+     *
+     * @return {@code false} if versions after {@code horizon} still keep
+     *         older ones alive
+     */
+    private boolean truncate(long id, long horizon) {
+        Version head = users.get(id);
+        for (Version version = head; version != null; version = version.older) {
+            if (version.version <= horizon) {
+                version.older = null;
+                if (version != head) {
+                    return false;
+                }
+                if (version.user == null) {
+                    synchronized (lockFor(id)) {
+                        users.remove(id, head);
+                    }
+                }
+                return true;
+            }
+        }
+        return head == null;
+    }
+
+    /**
+     * Number of versions kept besides the current users, for tests.
+     */
+    long retainedVersions() {
+        long retained = 0;
+        for (Version head : users.values()) {
+            for (Version version = head; version != null; version = version.older) {
+                if (version != head || version.user == null) {
+                    retained++;
+                }
+            }
+        }
+        return retained;
+    }
+
+    private void rebuildIndexes(Collection<User> recovered) {
+        for (User user : recovered) {
+            Long id = user.getId();
+            try {
+                claim(usernameIndex, user.getUsername(), id, "username", user.getUsername());
+                claim(emailIndex, emailKey(user.getEmail()), id, "email", user.getEmail());
+            } catch (DuplicateUserException ex) {
+                throw new IllegalStateException("Recovered user store is inconsistent: " + ex.getMessage(), ex);
+            }
+            searchIndex.update(null, user);
+        }
+    }
+
+    private Optional<User> lookup(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(usersById.get(id));
+    }
+
+    private Object lockFor(Long id) {
+        return locks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Returns {@code true} if the key was newly claimed for {@code id}, {@code false}
+     * if {@code id} already owned it.
+     */
+    private static boolean claim(ConcurrentMap<String, Long> index, String key, Long id, String field, String value) {
+        if (key == null) {
+            return false;
+        }
+        Long owner = index.putIfAbsent(key, id);
+        if (owner == null) {
+            return true;
+        }
+        if (owner.equals(id)) {
+            return false;
+        }
+        throw new DuplicateUserException(field, value);
+    }
+
+    private static void release(ConcurrentMap<String, Long> index, String oldKey, String newKey, Long id) {
+        if (oldKey != null && !oldKey.equals(newKey)) {
+            index.remove(oldKey, id);
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One version of the user with an id, linked to the one it replaced; a
+     * delete is a version without a user.
+     */
+    private static final class Version {
+        final long version;
+        final User user;
+        volatile Version older;
+
+        Version(long version, User user, Version older) {
+            this.version = version;
+            this.user = user;
+            this.older = older;
+        }
+    }
+
+    private final class ReadView implements UserSnapshot {
+        final long version;
+
+        ReadView(long version) {
+            this.version = version;
+        }
+
+        /**
+         * The user as of this view, or {@code null} if it did not exist then.
+         */
+        User resolve(Version head) {
+            for (Version candidate = head; candidate != null; candidate = candidate.older) {
+                if (candidate.version <= version) {
+                    return candidate.user;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public List<User> findPage(Long afterId, int limit) {
+            Collection<Version> tail = afterId == null ? users.values() : users.tailMap(afterId, false).values();
+            List<User> page = new ArrayList<>(Math.min(limit, 256));
+            for (Version head : tail) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                User user = resolve(head);
+                if (user != null) {
+                    page.add(user);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public void close() {
+            openViews.remove(this);
+        }
+    }
+
+    private record CachedList(long version, List<User> users) {}
+
+    /**
+     * Shared by every store; a run only walks the chains written since the
+     * last one.
+     */
+    private static final class Reclaimer {
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-version-reclaimer");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 }
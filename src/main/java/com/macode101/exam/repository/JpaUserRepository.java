@@ -0,0 +1,357 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserChangeEvent;
+import com.macode101.exam.model.UserIdGenerator;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Relational store used under the {@code jpa} profile (Oracle in production,
+ * H2 in Oracle mode in tests).
+ * <p>
+ * Lookups by id go through Hibernate's second-level cache. Batch writes are
+ * flushed once per call so Hibernate can group the inserts and updates into
+ * JDBC batches, and new ids come from the pooled sequence on {@link User}.
+ * The unique username/email rules of the in-memory store are checked up front
+ * so conflicting users are rejected individually instead of failing the whole
+ * transaction; the database constraints remain the final guard.
+ * <p>
+ * Versions are Hibernate's: plain saves take over the stored version, so only
+ * a conditional {@link #update} or {@link #deleteById(long, long)} can fail
+ * on a concurrent change, which surfaces as {@link UserVersionMismatchException}.
+ * There is no store-wide version, since keeping one would make every write
+ * contend on a single row.
+ * <p>
+ * Changes reach the {@link UserChangeLog} only once their transaction has
+ * committed, and only for writes made through this instance.
+ */
+@Repository
+@Profile("jpa")
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class JpaUserRepository implements UserRepository {
+
+    private final UserJpaRepository jpa;
+    private final EntityManager entityManager;
+    @Nullable
+    private final UserChangeLog changeLog;
+
+    @Override
+    public List<User> findAll() {
+        return jpa.findAllByOrderByIdAsc();
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return afterId == null
+                ? jpa.findByOrderByIdAsc(Limit.of(limit))
+                : jpa.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return jpa.findById(id);
+    }
+
+    @Override
+    public OptionalLong findVersionById(long id) {
+        return jpa.findById(id).map(user -> OptionalLong.of(user.getVersion())).orElse(OptionalLong.empty());
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return jpa.findByUsername(username);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return jpa.findFirstByEmailIgnoreCase(email);
+    }
+
+    @Override
+    @Transactional
+    public User save(User user) {
+        Owners owners = Owners.of(jpa.findOwners(Set.of(user.getUsername()), Set.of(emailKey(user.getEmail()))));
+        owners.claim(user);
+        boolean created = true;
+        if (user.getId() != null) {
+            Optional<User> current = jpa.findById(user.getId());
+            current.ifPresent(existing -> user.setVersion(existing.getVersion()));
+            created = current.isEmpty();
+        }
+        try {
+            User saved;
+            if (created) {
+                Long assignedId = user.getId();
+                insert(user);
+                jpa.flush();
+                if (assignedId != null) {
+                    reserveIdsThrough(assignedId);
+                }
+                saved = user;
+            } else {
+                saved = jpa.saveAndFlush(user);
+            }
+            publish(created ? UserChangeEvent.Type.CREATED : UserChangeEvent.Type.UPDATED, saved.getId(), saved);
+            return saved;
+        } catch (DataIntegrityViolationException ex) {
+            throw new DuplicateUserException("username or email", user.getUsername());
+        } catch (OptimisticLockingFailureException ex) {
+            throw new UserVersionMismatchException(user.getId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public Optional<User> update(long id, Consumer<User> changes) {
+        Optional<User> current = jpa.findById(id);
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        // Changes go to a detached copy first: the uniqueness check runs a query,
+        // which would otherwise auto-flush a half-validated managed entity.
+        User updated = new User(current.get());
+        changes.accept(updated);
+        updated.setId(id);
+        return Optional.of(save(updated));
+    }
+
+    @Override
+    @Transactional
+    public List<User> saveAll(List<User> batch) {
+        Set<String> usernames = batch.stream().map(User::getUsername).collect(Collectors.toSet());
+        Set<String> emails = batch.stream().map(user -> emailKey(user.getEmail())).collect(Collectors.toSet());
+        Owners owners = Owners.of(jpa.findOwners(usernames, emails));
+        Map<Long, User> existing = jpa.findAllById(batch.stream()
+                        .map(User::getId)
+                        .filter(Objects::nonNull)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+
+        List<User> saved = new ArrayList<>(batch.size());
+        List<User> managed = new ArrayList<>(batch.size());
+        Set<String> released = new HashSet<>();
+        long highestAssignedId = 0;
+        for (User user : batch) {
+            User previous = user.getId() == null ? null : existing.get(user.getId());
+            if (previous != null) {
+                owners.release(previous);
+            }
+            try {
+                owners.claim(user);
+            } catch (DuplicateUserException ex) {
+                if (previous != null) {
+                    owners.claim(previous);
+                }
+                continue;
+            }
+            // Hibernate reorders the batch (inserts first, updates by id), so a
+            // key given up earlier in this batch must reach the database first.
+            if (released.contains(user.getUsername()) || released.contains(emailKey(user.getEmail()))) {
+                jpa.flush();
+                released.clear();
+            }
+            if (previous != null) {
+                released.add(previous.getUsername());
+                released.add(emailKey(previous.getEmail()));
+                user.setVersion(previous.getVersion());
+            }
+            User stored;
+            if (previous == null) {
+                if (user.getId() != null) {
+                    highestAssignedId = Math.max(highestAssignedId, user.getId());
+                }
+                insert(user);
+                stored = user;
+            } else {
+                stored = jpa.save(user);
+            }
+            publish(previous == null ? UserChangeEvent.Type.CREATED : UserChangeEvent.Type.UPDATED, stored.getId(), stored);
+            saved.add(user);
+            managed.add(stored);
+        }
+        jpa.flush();
+        // Updates went through merge, so only the managed copies carry the versions the flush assigned.
+        for (int i = 0; i < saved.size(); i++) {
+            saved.get(i).setId(managed.get(i).getId());
+            saved.get(i).setVersion(managed.get(i).getVersion());
+        }
+        if (highestAssignedId > 0) {
+            reserveIdsThrough(highestAssignedId);
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void deleteById(Long id) {
+        jpa.findById(id).ifPresent(user -> {
+            jpa.delete(user);
+            publish(UserChangeEvent.Type.DELETED, id, null);
+        });
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteById(long id, long expectedVersion) {
+        Optional<User> current = jpa.findById(id);
+        if (current.isEmpty()) {
+            return false;
+        }
+        User user = current.get();
+        if (user.getVersion() != expectedVersion) {
+            throw new UserVersionMismatchException(id, expectedVersion, user.getVersion());
+        }
+        try {
+            jpa.delete(user);
+            jpa.flush();
+        } catch (OptimisticLockingFailureException ex) {
+            throw new UserVersionMismatchException(id);
+        }
+        publish(UserChangeEvent.Type.DELETED, id, null);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> existing = Set.copyOf(jpa.findExistingIds(ids));
+        jpa.deleteAllByIdInBatch(existing);
+        List<Long> deleted = ids.stream().filter(existing::contains).distinct().toList();
+        deleted.forEach(id -> publish(UserChangeEvent.Type.DELETED, id, null));
+        return deleted;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return jpa.existsById(id);
+    }
+
+    @Override
+    public long count() {
+        return jpa.count();
+    }
+
+    /**
+     * Persists a user that has no row yet, under its own id if it has one.
+     * Spring Data would merge a user with an id, which Hibernate refuses for
+     * an id it cannot find. New rows start at version {@code 0}.
+     */
+    private void insert(User user) {
+        user.setVersion(0);
+        entityManager.persist(user);
+    }
+
+    /**
+     * Moves {@code users_seq} past {@code id}, a user's own id just stored, so
+     * that no id generated from now on collides with it. On Oracle restarting
+     * the sequence is DDL, which commits the writes made so far.
+     */
+    private void reserveIdsThrough(long id) {
+        SessionFactoryImplementor factory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        String nextValue = factory.getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(User.ID_SEQUENCE);
+        long next = ((Number) entityManager.createNativeQuery(nextValue).getSingleResult()).longValue();
+        // The pooled optimizer hands out the block of ids just below each value the sequence returns.
+        if (next - User.ID_ALLOCATION_SIZE < id) {
+            entityManager.createNativeQuery("ALTER SEQUENCE " + User.ID_SEQUENCE + " RESTART START WITH "
+                    + (id + User.ID_ALLOCATION_SIZE)).executeUpdate();
+        }
+        ((UserIdGenerator) factory.getMappingMetamodel().getEntityDescriptor(User.class).getGenerator())
+                .skipThrough(id);
+    }
+
+    /**
+     * Appends the change once the surrounding transaction commits. The user is
+     * copied only then, so the event carries the version the flush assigned.
+     */
+    private void publish(UserChangeEvent.Type type, long id, @Nullable User user) {
+        if (changeLog == null) {
+            return;
+        }
+        Runnable append = () -> changeLog.append(type, id, user == null ? null : new User(user));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append.run();
+            }
+        });
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Which user currently owns each username and lower-cased email, seeded
+     * from the database and updated as a batch claims and releases keys. Owners
+     * are ids, or the instance itself for users that do not have one yet.
+     */
+    private record Owners(Map<String, Object> usernames, Map<String, Object> emails) {
+
+        static Owners of(List<User> users) {
+            Owners owners = new Owners(new HashMap<>(), new HashMap<>());
+            users.forEach(user -> {
+                owners.usernames.put(user.getUsername(), user.getId());
+                owners.emails.put(emailKey(user.getEmail()), user.getId());
+            });
+            return owners;
+        }
+
+        void release(User user) {
+            usernames.remove(user.getUsername(), user.getId());
+            emails.remove(emailKey(user.getEmail()), user.getId());
+        }
+
+        void claim(User user) {
+            Object owner = user.getId() == null ? user : user.getId();
+            if (!ownedBy(usernames.get(user.getUsername()), owner)) {
+                throw new DuplicateUserException("username", user.getUsername());
+            }
+            if (!ownedBy(emails.get(emailKey(user.getEmail())), owner)) {
+                throw new DuplicateUserException("email", user.getEmail());
+            }
+            usernames.put(user.getUsername(), owner);
+            emails.put(emailKey(user.getEmail()), owner);
+        }
+
+        private static boolean ownedBy(Object current, Object owner) {
+            return current == null || current == owner || (owner instanceof Long && owner.equals(current));
+        }
+    }
+}
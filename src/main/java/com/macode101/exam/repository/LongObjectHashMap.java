@@ -0,0 +1,231 @@
+package com.macode101.exam.repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open-addressing {@code long -> V} hash map with lock-free, allocation-free
+ * reads. Keys are spread over {@value #SEGMENTS} segments by the top bits of
+ * their hash, and writes lock only their key's segment, so writers of
+ * different keys rarely wait for each other.
+ * <p>
+ * Within one segment's table a slot's key is written once and never changes,
+ * so readers can probe without locking: a writer publishes the value before
+ * the key, and removal clears only the value, leaving a tombstone that later
+ * puts of the same key reuse. Tombstones are dropped when a segment's table is
+ * rebuilt, which writers do into a fresh table that is then published in one
+ * volatile write. Null values are not supported.
+ */
+final class LongObjectHashMap<V> {
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int SEGMENTS = 16;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile Object zeroValue;
+
+    LongObjectHashMap(int expectedSize) {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(expectedSize / SEGMENTS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == EMPTY) {
+            return (V) zeroValue;
+        }
+        long hash = hash(key);
+        Table current = segmentFor(hash).table;
+        long[] keys = current.keys;
+        for (int slot = current.slot(hash); ; slot = (slot + 1) & current.mask) {
+            long existing = (long) KEYS.getAcquire(keys, slot);
+            if (existing == key) {
+                return (V) VALUES.getAcquire(current.values, slot);
+            }
+            if (existing == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The number of entries; while writers run, a count each segment had at
+     * some point during the call.
+     */
+    int size() {
+        int size = zeroValue != null ? 1 : 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Associates {@code value} with {@code key} and returns the previous value.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        if (key == EMPTY) {
+            synchronized (this) {
+                V previous = (V) zeroValue;
+                zeroValue = value;
+                return previous;
+            }
+        }
+        long hash = hash(key);
+        return (V) segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     * Removes {@code key} and returns its value, or {@code null} when absent.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == EMPTY) {
+            synchronized (this) {
+                V previous = (V) zeroValue;
+                zeroValue = null;
+                return previous;
+            }
+        }
+        long hash = hash(key);
+        return (V) segmentFor(hash).remove(key, hash);
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        // Leave room to grow by half again before the next rebuild.
+        long needed = (long) Math.ceil(Math.max(expectedSize, 8) * 1.5 / LOAD_FACTOR);
+        if (needed > 1 << 30) {
+            throw new IllegalStateException("LongObjectHashMap cannot grow beyond " + (1 << 30) + " slots a segment");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * The keys whose hash has one value in its top bits, with writes
+     * serialized on the segment's monitor.
+     */
+    private static final class Segment {
+
+        private volatile Table table;
+        private volatile int size;
+        private int used;
+
+        Segment(int expectedSize) {
+            table = new Table(capacityFor(expectedSize));
+        }
+
+        synchronized Object put(long key, long hash, Object value) {
+            Table current = table;
+            int slot = current.slot(hash);
+            for (; ; slot = (slot + 1) & current.mask) {
+                long existing = current.keys[slot];
+                if (existing == key) {
+                    Object previous = current.values[slot];
+                    VALUES.setRelease(current.values, slot, value);
+                    if (previous == null) {
+                        size++;
+                    }
+                    return previous;
+                }
+                if (existing == EMPTY) {
+                    break;
+                }
+            }
+            if (used + 1 > current.resizeAt) {
+                current = rebuild(size + 1);
+                slot = current.freeSlot(hash);
+            }
+            VALUES.setRelease(current.values, slot, value);
+            KEYS.setRelease(current.keys, slot, key);
+            used++;
+            size++;
+            return null;
+        }
+
+        synchronized Object remove(long key, long hash) {
+            Table current = table;
+            for (int slot = current.slot(hash); ; slot = (slot + 1) & current.mask) {
+                long existing = current.keys[slot];
+                if (existing == key) {
+                    Object previous = current.values[slot];
+                    if (previous != null) {
+                        VALUES.setRelease(current.values, slot, null);
+                        size--;
+                    }
+                    return previous;
+                }
+                if (existing == EMPTY) {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Copies the live entries into a table sized for {@code expectedSize}
+         * and publishes it; concurrent readers finish on the old table.
+         */
+        private Table rebuild(int expectedSize) {
+            Table old = table;
+            Table rebuilt = new Table(capacityFor(expectedSize));
+            int live = 0;
+            for (int slot = 0; slot < old.keys.length; slot++) {
+                Object value = old.values[slot];
+                if (value != null) {
+                    long key = old.keys[slot];
+                    int target = rebuilt.freeSlot(hash(key));
+                    rebuilt.keys[target] = key;
+                    rebuilt.values[target] = value;
+                    live++;
+                }
+            }
+            used = live;
+            table = rebuilt;
+            return rebuilt;
+        }
+    }
+
+    private static final class Table {
+
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+        final int resizeAt;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+
+        int slot(long hash) {
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        int freeSlot(long hash) {
+            int slot = slot(hash);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,690 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserChangeEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * User store for very large user counts ({@code offheap} profile). Records are
+ * encoded as compact UTF-8 into direct {@link ByteBuffer} chunks and only
+ * turned back into {@link User} objects on read, so the heap holds a few
+ * primitive arrays instead of millions of small objects for the GC to trace.
+ * <p>
+ * A record is a varint payload length followed by the user's version as a
+ * varint and then name, username, email, phone and website, each a varint ({@code 0} for null, otherwise byte length + 1)
+ * and its UTF-8 bytes. Records are append-only: updates write a new record and
+ * leave the old one as garbage, which is compacted away once it outweighs the
+ * live data. Ids map to record addresses through a {@link LongLongHashMap} and
+ * their order is kept in a {@link BitSet}, so ids must fit in an {@code int}.
+ * <p>
+ * Usernames and emails are indexed by a 64-bit hash; the rare key whose hash
+ * is already taken by a different key goes to a small on-heap map. Reads share
+ * a read lock and writes are serialized on the write lock, under which they
+ * are also appended to the {@link UserChangeLog} if there is one. The change
+ * log keeps the saved {@link User} objects it buffers on the heap. The store
+ * starts with the users of its {@link UserSeed}.
+ */
+@Repository
+@Profile("offheap")
+public class OffHeapUserRepository implements UserRepository {
+
+    static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+    private static final int USERNAME = 1;
+    private static final int EMAIL = 2;
+    private static final int FIELDS = 5;
+
+    private final int chunkSize;
+    private final UserChangeLog changeLog;
+    private final UserSeed seed;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final LongLongHashMap addresses = new LongLongHashMap(1024);
+    private final BitSet ids = new BitSet();
+    private final KeyIndex usernameIndex = new KeyIndex(USERNAME, false);
+    private final KeyIndex emailIndex = new KeyIndex(EMAIL, true);
+
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private int writeOffset;
+    private long allocatedBytes;
+    private long liveBytes;
+    // Store-wide version and the first version of new users, written under the
+    // write lock. Starts from the clock so a restart does not reissue versions
+    // (and so ETags) from a previous run.
+    private volatile long modCount = System.currentTimeMillis();
+    private byte[] scratch = new byte[256];
+
+    public OffHeapUserRepository() {
+        this(DEFAULT_CHUNK_SIZE, null);
+    }
+
+    public OffHeapUserRepository(@Nullable UserChangeLog changeLog) {
+        this(changeLog, null);
+    }
+
+    @Autowired
+    public OffHeapUserRepository(@Nullable UserChangeLog changeLog, @Nullable UserSeed seed) {
+        this(DEFAULT_CHUNK_SIZE, changeLog, seed);
+    }
+
+    OffHeapUserRepository(int chunkSize) {
+        this(chunkSize, null);
+    }
+
+    OffHeapUserRepository(int chunkSize, @Nullable UserChangeLog changeLog) {
+        this(chunkSize, changeLog, null);
+    }
+
+    OffHeapUserRepository(int chunkSize, @Nullable UserChangeLog changeLog, @Nullable UserSeed seed) {
+        this.chunkSize = chunkSize;
+        this.changeLog = changeLog;
+        this.seed = seed != null ? seed : UserSeed.samples();
+    }
+
+    @PostConstruct
+    public void initializeData() {
+        seed.seedInto(this);
+    }
+
+    @Override
+    public List<User> findAll() {
+        lock.readLock().lock();
+        try {
+            List<User> all = new ArrayList<>(addresses.size());
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                all.add(decode(id, addresses.get(id)));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        int from = afterId == null || afterId < 0 ? 0
+                : afterId >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) (afterId + 1);
+        lock.readLock().lock();
+        try {
+            List<User> page = new ArrayList<>(Math.min(limit, 256));
+            for (int id = ids.nextSetBit(from); id >= 0 && page.size() < limit; id = ids.nextSetBit(id + 1)) {
+                page.add(decode(id, addresses.get(id)));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return findById(id.longValue());
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        lock.readLock().lock();
+        try {
+            return lookup(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public OptionalLong findVersionById(long id) {
+        lock.readLock().lock();
+        try {
+            long address = addresses.get(id);
+            return address == LongLongHashMap.NO_VALUE ? OptionalLong.empty() : OptionalLong.of(readVersion(address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(modCount);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return lookup(usernameIndex.find(username));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return lookup(emailIndex.find(email));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        if (user.getId() == null) {
+            user.setId(idGenerator.getAndIncrement());
+        } else {
+            checkId(user.getId());
+            reserveIdsThrough(user.getId());
+        }
+        return saveWithId(user);
+    }
+
+    /**
+     * A new user starts above every version the store has issued, in this run
+     * or, as the store version starts from the clock, an earlier one; so its
+     * version never names other content its id had, such as a deleted user's.
+     */
+    private User saveWithId(User user) {
+        long id = user.getId();
+        checkId(id);
+
+        lock.writeLock().lock();
+        try {
+            usernameIndex.checkAvailable(user.getUsername(), id, "username");
+            emailIndex.checkAvailable(user.getEmail(), id, "email");
+
+            long previous = addresses.get(id);
+            user.setVersion(modCount + 1);
+            if (previous != LongLongHashMap.NO_VALUE) {
+                usernameIndex.remove(readField(previous, USERNAME), id);
+                emailIndex.remove(readField(previous, EMAIL), id);
+                liveBytes -= recordLength(previous);
+                user.setVersion(readVersion(previous) + 1);
+            }
+            long address = append(user);
+            addresses.put(id, address);
+            ids.set((int) id);
+            usernameIndex.put(user.getUsername(), id);
+            emailIndex.put(user.getEmail(), id);
+            modCount++;
+            if (changeLog != null) {
+                changeLog.append(previous == LongLongHashMap.NO_VALUE
+                        ? UserChangeEvent.Type.CREATED : UserChangeEvent.Type.UPDATED, id, user);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return user;
+    }
+
+    @Override
+    public Optional<User> update(long id, Consumer<User> changes) {
+        lock.writeLock().lock();
+        try {
+            long address = addresses.get(id);
+            if (address == LongLongHashMap.NO_VALUE) {
+                return Optional.empty();
+            }
+            User user = decode(id, address);
+            changes.accept(user);
+            user.setId(id);
+            return Optional.of(save(user));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> saveAll(List<User> batch) {
+        long newUsers = 0;
+        for (User user : batch) {
+            if (user.getId() == null) {
+                newUsers++;
+            } else {
+                checkId(user.getId());
+                reserveIdsThrough(user.getId());
+            }
+        }
+        long nextId = idGenerator.getAndAdd(newUsers);
+
+        List<User> saved = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            if (user.getId() == null) {
+                user.setId(nextId++);
+            }
+            try {
+                saveWithId(user);
+                saved.add(user);
+            } catch (DuplicateUserException ex) {
+                // Rejected by the unique indexes; callers detect it by absence.
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        remove(id);
+    }
+
+    @Override
+    public boolean deleteById(long id, long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            long address = addresses.get(id);
+            if (address == LongLongHashMap.NO_VALUE) {
+                return false;
+            }
+            long version = readVersion(address);
+            if (version != expectedVersion) {
+                throw new UserVersionMismatchException(id, expectedVersion, version);
+            }
+            return remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> deleteAllById(Collection<Long> ids) {
+        List<Long> deleted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (remove(id)) {
+                deleted.add(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return existsById(id.longValue());
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        lock.readLock().lock();
+        try {
+            return addresses.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return addresses.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Id that the next user saved without an id will receive.
+     */
+    public long nextId() {
+        return idGenerator.get();
+    }
+
+    /**
+     * Keeps users saved with an id of their own, e.g. imported ones, from
+     * being handed out again to new users.
+     */
+    private void reserveIdsThrough(long id) {
+        if (id >= idGenerator.get()) {
+            idGenerator.accumulateAndGet(id + 1, Math::max);
+        }
+    }
+
+    @Override
+    public long maxId() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+    private static void checkId(long id) {
+        if (id < 0 || id >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap store only supports ids below " + Integer.MAX_VALUE + ": " + id);
+        }
+    }
+
+    /**
+     * Direct memory currently reserved for records, live or not.
+     */
+    public long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            long address = addresses.remove(id);
+            if (address == LongLongHashMap.NO_VALUE) {
+                return false;
+            }
+            ids.clear(id.intValue());
+            usernameIndex.remove(readField(address, USERNAME), id);
+            emailIndex.remove(readField(address, EMAIL), id);
+            liveBytes -= recordLength(address);
+            modCount++;
+            if (changeLog != null) {
+                changeLog.append(UserChangeEvent.Type.DELETED, id, null);
+            }
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Optional<User> lookup(long id) {
+        if (id == LongLongHashMap.NO_VALUE) {
+            return Optional.empty();
+        }
+        long address = addresses.get(id);
+        return address == LongLongHashMap.NO_VALUE ? Optional.empty() : Optional.of(decode(id, address));
+    }
+
+    private long append(User user) {
+        int payload = varintSize(user.getVersion());
+        String[] fields = {user.getName(), user.getUsername(), user.getEmail(), user.getPhone(), user.getWebsite()};
+        byte[][] encoded = new byte[FIELDS][];
+        for (int i = 0; i < FIELDS; i++) {
+            encoded[i] = fields[i] == null ? null : fields[i].getBytes(StandardCharsets.UTF_8);
+            int length = encoded[i] == null ? 0 : encoded[i].length + 1;
+            payload += varintSize(length) + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+        int total = varintSize(payload) + payload;
+        if (total > chunkSize) {
+            throw new IllegalArgumentException("User record of " + total + " bytes exceeds the chunk size");
+        }
+        if (scratch.length < total) {
+            scratch = new byte[Math.max(total, scratch.length * 2)];
+        }
+
+        int position = writeVarint(scratch, 0, payload);
+        position = writeVarint(scratch, position, user.getVersion());
+        for (byte[] field : encoded) {
+            position = writeVarint(scratch, position, field == null ? 0 : field.length + 1);
+            if (field != null) {
+                System.arraycopy(field, 0, scratch, position, field.length);
+                position += field.length;
+            }
+        }
+        liveBytes += total;
+        return write(scratch, total);
+    }
+
+    private long write(byte[] record, int length) {
+        if (chunks.isEmpty() || writeOffset + length > chunkSize) {
+            chunks.add(ByteBuffer.allocateDirect(chunkSize));
+            allocatedBytes += chunkSize;
+            writeOffset = 0;
+        }
+        int chunk = chunks.size() - 1;
+        chunks.get(chunk).put(writeOffset, record, 0, length);
+        long address = ((long) chunk << 32) | writeOffset;
+        writeOffset += length;
+        return address;
+    }
+
+    /**
+     * Rewrites the live records into fresh chunks once garbage exceeds both a
+     * full chunk and the live data, keeping the amortized cost per write
+     * constant. Only touches the address values, so the index keeps its shape.
+     */
+    private void compactIfNeeded() {
+        long used = (long) (chunks.size() - 1) * chunkSize + writeOffset;
+        long garbage = used - liveBytes;
+        if (garbage <= chunkSize || garbage <= liveBytes) {
+            return;
+        }
+        List<ByteBuffer> old = chunks;
+        chunks = new ArrayList<>();
+        writeOffset = 0;
+        allocatedBytes = 0;
+        addresses.forEach((id, address) -> {
+            int length = recordLength(old, address);
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            old.get(chunkOf(address)).get(offsetOf(address), scratch, 0, length);
+            addresses.put(id, write(scratch, length));
+        });
+    }
+
+    private User decode(long id, long address) {
+        ByteBuffer chunk = chunks.get(chunkOf(address));
+        int offset = offsetOf(address);
+        int payload = readVarint(chunk, offset);
+        int start = offset + varintSize(payload);
+        byte[] bytes = new byte[payload];
+        chunk.get(start, bytes, 0, payload);
+
+        long version = readVarlong(bytes, 0);
+        String[] fields = new String[FIELDS];
+        int position = varintSize(version);
+        for (int i = 0; i < FIELDS; i++) {
+            int length = readVarint(bytes, position);
+            position += varintSize(length);
+            if (length > 0) {
+                fields[i] = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+                position += length - 1;
+            }
+        }
+        return new User(id, fields[0], fields[1], fields[2], fields[3], fields[4], version);
+    }
+
+    private String readField(long address, int field) {
+        ByteBuffer chunk = chunks.get(chunkOf(address));
+        int offset = offsetOf(address);
+        int position = offset + varintSize(readVarint(chunk, offset));
+        position += varintSize(readVarlong(chunk, position));
+        for (int i = 0; i < field; i++) {
+            int length = readVarint(chunk, position);
+            position += varintSize(length) + Math.max(length - 1, 0);
+        }
+        int length = readVarint(chunk, position);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        chunk.get(position + varintSize(length), bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVersion(long address) {
+        ByteBuffer chunk = chunks.get(chunkOf(address));
+        int offset = offsetOf(address);
+        return readVarlong(chunk, offset + varintSize(readVarint(chunk, offset)));
+    }
+
+    private int recordLength(long address) {
+        return recordLength(chunks, address);
+    }
+
+    private static int recordLength(List<ByteBuffer> chunks, long address) {
+        int payload = readVarint(chunks.get(chunkOf(address)), offsetOf(address));
+        return varintSize(payload) + payload;
+    }
+
+    private static int chunkOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private static int varintSize(long value) {
+        return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+
+    private static int writeVarint(byte[] target, int position, long value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarint(ByteBuffer source, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = source.get(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int readVarint(byte[] source, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = source[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long readVarlong(ByteBuffer source, int position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = source.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long readVarlong(byte[] source, int position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = source[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Unique index from a key (username, or lower-cased email) to the owning
+     * id. Hash matches are confirmed against the stored record, so the map only
+     * needs the 64-bit hash and id per user.
+     */
+    private final class KeyIndex {
+
+        private final LongLongHashMap hashes = new LongLongHashMap(1024);
+        private final Map<String, Long> collisions = new HashMap<>();
+        private final int field;
+        private final boolean ignoreCase;
+
+        KeyIndex(int field, boolean ignoreCase) {
+            this.field = field;
+            this.ignoreCase = ignoreCase;
+        }
+
+        long find(String value) {
+            String key = normalize(value);
+            long id = hashes.get(hash(key));
+            if (id != LongLongHashMap.NO_VALUE && key.equals(keyOf(id))) {
+                return id;
+            }
+            Long collision = collisions.get(key);
+            return collision == null ? LongLongHashMap.NO_VALUE : collision;
+        }
+
+        void checkAvailable(String value, long id, String name) {
+            if (value == null) {
+                return;
+            }
+            long owner = find(value);
+            if (owner != LongLongHashMap.NO_VALUE && owner != id) {
+                throw new DuplicateUserException(name, value);
+            }
+        }
+
+        void put(String value, long id) {
+            if (value == null) {
+                return;
+            }
+            String key = normalize(value);
+            long hash = hash(key);
+            long existing = hashes.get(hash);
+            if (existing == LongLongHashMap.NO_VALUE || existing == id) {
+                hashes.put(hash, id);
+            } else {
+                collisions.put(key, id);
+            }
+        }
+
+        void remove(String value, long id) {
+            if (value == null) {
+                return;
+            }
+            String key = normalize(value);
+            long hash = hash(key);
+            if (hashes.get(hash) == id) {
+                hashes.remove(hash);
+            } else {
+                collisions.remove(key, id);
+            }
+        }
+
+        private String keyOf(long id) {
+            long address = addresses.get(id);
+            return address == LongLongHashMap.NO_VALUE ? null : normalize(readField(address, field));
+        }
+
+        private String normalize(String value) {
+            return ignoreCase && value != null ? value.toLowerCase(Locale.ROOT) : value;
+        }
+
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+            }
+            return hash ^ (hash >>> 29);
+        }
+    }
+}
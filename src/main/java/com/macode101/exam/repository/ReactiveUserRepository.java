@@ -0,0 +1,31 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository}.
+ */
+public interface ReactiveUserRepository {
+
+    /**
+     * Streams every user in id order, fetching further pages only as the
+     * subscriber requests them.
+     */
+    Flux<User> findAll();
+
+    Flux<User> findPage(Long afterId, int limit);
+
+    Mono<User> findById(Long id);
+
+    Mono<User> findByUsername(String username);
+
+    Mono<User> findByEmail(String email);
+
+    Mono<User> save(User user);
+
+    Mono<Void> deleteById(Long id);
+
+    Mono<Boolean> existsById(Long id);
+}
@@ -0,0 +1,149 @@
+package com.macode101.exam.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * {@link UserShard} on another node, called over HTTP. Conflicts and failed
+ * preconditions come back as the same exceptions a local shard throws; any
+ * other failure surfaces as the client's own exception.
+ */
+public class RemoteUserShard implements UserShard {
+
+    private static final ParameterizedTypeReference<List<User>> USER_LIST = new ParameterizedTypeReference<>() {};
+
+    private final RestClient restClient;
+
+    /**
+     * @param restClient client whose base URL is the node's root
+     */
+    public RemoteUserShard(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        try {
+            return Optional.ofNullable(restClient.get()
+                    .uri(PATH + "/users/{id}", id)
+                    .retrieve()
+                    .body(User.class));
+        } catch (HttpClientErrorException.NotFound ex) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return restClient.get()
+                .uri(builder -> builder.path(PATH + "/users")
+                        .queryParamIfPresent("after", Optional.ofNullable(afterId))
+                        .queryParam("limit", limit)
+                        .build())
+                .retrieve()
+                .body(USER_LIST);
+    }
+
+    @Override
+    public long count() {
+        return restClient.get().uri(PATH + "/count").retrieve().body(Long.class);
+    }
+
+    @Override
+    public long version() {
+        return restClient.get().uri(PATH + "/version").retrieve().body(Long.class);
+    }
+
+    @Override
+    public Optional<User> save(User user, @Nullable Long expectedVersion) {
+        try {
+            return Optional.ofNullable(restClient.put()
+                    .uri(builder -> builder.path(PATH + "/users/{id}")
+                            .queryParamIfPresent("expectedVersion", Optional.ofNullable(expectedVersion))
+                            .build(user.getId()))
+                    .body(user)
+                    .retrieve()
+                    .body(User.class));
+        } catch (HttpClientErrorException.NotFound ex) {
+            return Optional.empty();
+        } catch (HttpClientErrorException ex) {
+            throw translate(ex, user.getId());
+        }
+    }
+
+    @Override
+    public boolean delete(long id, @Nullable Long expectedVersion) {
+        try {
+            restClient.delete()
+                    .uri(builder -> builder.path(PATH + "/users/{id}")
+                            .queryParamIfPresent("expectedVersion", Optional.ofNullable(expectedVersion))
+                            .build(id))
+                    .retrieve()
+                    .toBodilessEntity();
+            return true;
+        } catch (HttpClientErrorException.NotFound ex) {
+            return false;
+        } catch (HttpClientErrorException ex) {
+            throw translate(ex, id);
+        }
+    }
+
+    // Values go in as URI variables so that they are fully encoded; a '+' in
+    // a literal query would reach the other node as a space.
+    @Override
+    public OptionalLong findClaim(Key key, String value) {
+        try {
+            Long id = restClient.get()
+                    .uri(builder -> builder.path(PATH + "/claims/{key}").queryParam("value", "{value}").build(key, value))
+                    .retrieve()
+                    .body(Long.class);
+            return id == null ? OptionalLong.empty() : OptionalLong.of(id);
+        } catch (HttpClientErrorException.NotFound ex) {
+            return OptionalLong.empty();
+        }
+    }
+
+    @Override
+    public boolean claim(Key key, String value, long id) {
+        return Boolean.TRUE.equals(restClient.put()
+                .uri(builder -> builder.path(PATH + "/claims/{key}")
+                        .queryParam("value", "{value}")
+                        .queryParam("id", id)
+                        .build(key, value))
+                .retrieve()
+                .body(Boolean.class));
+    }
+
+    @Override
+    public void release(Key key, String value, long id) {
+        restClient.delete()
+                .uri(builder -> builder.path(PATH + "/claims/{key}")
+                        .queryParam("value", "{value}")
+                        .queryParam("id", id)
+                        .build(key, value))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    private static RuntimeException translate(HttpClientErrorException ex, long id) {
+        if (ex.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT)) {
+            JsonNode body = ex.getResponseBodyAs(JsonNode.class);
+            return new DuplicateUserException(body != null ? body.path("message").asText() : ex.getMessage());
+        }
+        if (ex.getStatusCode().isSameCodeAs(HttpStatus.PRECONDITION_FAILED)) {
+            return new UserVersionMismatchException(id);
+        }
+        return ex;
+    }
+}
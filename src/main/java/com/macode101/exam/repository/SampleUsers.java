@@ -0,0 +1,24 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+
+import java.util.List;
+
+/**
+ * The users a fresh store is seeded with, in id order and without ids.
+ */
+final class SampleUsers {
+
+    private SampleUsers() {
+    }
+
+    static List<User> create() {
+        return List.of(
+                new User(null, "Leanne Graham", "Bret", "Sincere@april.biz", "1-770-736-8031 x56442", "hildegard.org"),
+                new User(null, "Ervin Howell", "Antonette", "Shanna@melissa.tv", "010-692-6593 x09125", "anastasia.net"),
+                new User(null, "Clementine Bauch", "Samantha", "Nathan@yesenia.net", "1-463-123-4447", "ramiro.info"),
+                new User(null, "Patricia Lebsack", "Karianne", "Julianne.OConner@kory.org", "493-170-9623 x156", "kale.biz"),
+                new User(null, "Chelsey Dietrich", "Kamren", "Lucio_Hettinger@annie.ca", "(254)954-1289", "demarco.info")
+        );
+    }
+}
@@ -0,0 +1,486 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import jakarta.annotation.PreDestroy;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One node of a store partitioned across several nodes ({@code sharded}
+ * profile). Users live on the node their id hashes to on a
+ * {@link ConsistentHashRing}; this node keeps its own partition in an
+ * {@link InMemoryUserRepository} and reaches the others as {@link UserShard}s,
+ * so any node can serve any request.
+ * <p>
+ * Usernames and emails are unique across the cluster through claims held on
+ * the node the value hashes to. Writes to an id run on the id's node one at a
+ * time, claiming the new values before storing the user and releasing the old
+ * ones after, so a value is never free while still in use. As claims may be
+ * remote calls, writes to one id wait for each other without holding a lock
+ * that other ids share. A node failing between those steps can leave a value
+ * claimed but unused.
+ * <p>
+ * Ids are generated on the node that creates the user: the low
+ * {@value #NODE_BITS} bits are the node id and the rest a per-node sequence
+ * starting from the clock in microseconds, so nodes never coordinate and a
+ * restarted node does not reissue ids. Such ids are around 2^60, beyond the
+ * 2^53 that a JSON number parsed as a double holds exactly, so clients such
+ * as JavaScript must read them as big integers or strings. {@link #findAll()} and pages are
+ * gathered from every node in parallel and merged in id order.
+ * <p>
+ * Membership is static: every node must be configured with the same node
+ * list, as adding a node changes which node owns which ids.
+ */
+public class ShardedUserRepository implements UserRepository {
+
+    static final int NODE_BITS = 10;
+    public static final int MAX_NODES = 1 << NODE_BITS;
+
+    private final int nodeId;
+    private final List<? extends UserShard> nodes;
+    private final ConsistentHashRing ring;
+    private final InMemoryUserRepository store;
+    private final Map<UserShard.Key, ConcurrentMap<String, Long>> claims = new EnumMap<>(UserShard.Key.class);
+    private final ConcurrentMap<Long, CompletableFuture<Void>> writesInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    private final ExecutorService scatterExecutor;
+    private final UserShard localShard = new LocalShard();
+
+    /**
+     * @param nodes the cluster's nodes, indexed by node id. The entry for
+     *              {@code nodeId} is never used, as this node serves its own
+     *              partition. The list is read on every call, so in-process
+     *              clusters can fill it in after creating their nodes.
+     * @param store this node's partition; it is not seeded
+     */
+    public ShardedUserRepository(int nodeId, List<? extends UserShard> nodes, int virtualNodes, InMemoryUserRepository store) {
+        if (nodes.isEmpty() || nodes.size() > MAX_NODES) {
+            throw new IllegalArgumentException("A sharded store needs between 1 and " + MAX_NODES + " nodes: " + nodes.size());
+        }
+        if (nodeId < 0 || nodeId >= nodes.size()) {
+            throw new IllegalArgumentException("Node id " + nodeId + " is not one of the " + nodes.size() + " nodes");
+        }
+        this.nodeId = nodeId;
+        this.nodes = nodes;
+        this.ring = new ConsistentHashRing(nodes.size(), virtualNodes);
+        this.store = store;
+        for (UserShard.Key key : UserShard.Key.values()) {
+            claims.put(key, new ConcurrentHashMap<>());
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(nodes.size(), runnable -> {
+            Thread thread = new Thread(runnable, "user-shards-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This node's partition, as served to the other nodes.
+     */
+    public UserShard localShard() {
+        return localShard;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatterExecutor.shutdownNow();
+    }
+
+    @Override
+    public List<User> findAll() {
+        return merge(scatter(shard -> shard.findPage(null, Integer.MAX_VALUE)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return merge(scatter(shard -> shard.findPage(afterId, limit)), limit);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return findById(id.longValue());
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return shardFor(id).findById(id);
+    }
+
+    @Override
+    public OptionalLong findVersionById(long id) {
+        Optional<User> user = findById(id);
+        return user.isPresent() ? OptionalLong.of(user.get().getVersion()) : OptionalLong.empty();
+    }
+
+    /**
+     * Sum of the shards' counters, which grows whenever any of them changes.
+     */
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(scatter(UserShard::version).stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        return findByClaim(UserShard.Key.USERNAME, username)
+                .filter(user -> username.equals(user.getUsername()));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return findByClaim(UserShard.Key.EMAIL, emailKey(email))
+                .filter(user -> email.equalsIgnoreCase(user.getEmail()));
+    }
+
+    @Override
+    public User save(User user) {
+        if (user.getId() == null) {
+            user.setId(nextId());
+        }
+        User stored = shardFor(user.getId()).save(user, null).orElseThrow();
+        // A remote shard returns a copy; callers expect their own instance back.
+        user.setVersion(stored.getVersion());
+        return user;
+    }
+
+    @Override
+    public List<User> saveAll(List<User> batch) {
+        List<User> saved = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            try {
+                save(user);
+                saved.add(user);
+            } catch (DuplicateUserException ex) {
+                // Rejected by the unique claims; callers detect it by absence.
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Applies {@code changes} to the current user and stores the result if
+     * nothing else wrote to it in between, retrying on the newer state
+     * otherwise; {@code changes} may therefore run more than once.
+     */
+    @Override
+    public Optional<User> update(long id, Consumer<User> changes) {
+        UserShard shard = shardFor(id);
+        while (true) {
+            Optional<User> current = shard.findById(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            User updated = new User(current.get());
+            changes.accept(updated);
+            updated.setId(id);
+            try {
+                Optional<User> stored = shard.save(updated, current.get().getVersion());
+                stored.ifPresent(user -> updated.setVersion(user.getVersion()));
+                return stored.map(user -> updated);
+            } catch (UserVersionMismatchException ex) {
+                // Raced with another write to this id; apply the changes again.
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        shardFor(id).delete(id, null);
+    }
+
+    @Override
+    public boolean deleteById(long id, long expectedVersion) {
+        return shardFor(id).delete(id, expectedVersion);
+    }
+
+    @Override
+    public List<Long> deleteAllById(Collection<Long> ids) {
+        List<Long> deleted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (shardFor(id).delete(id, null)) {
+                deleted.add(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return existsById(id.longValue());
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        return scatter(UserShard::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Id that this node assigns to the next user created without one.
+     */
+    public long nextId() {
+        return (idSequence.getAndIncrement() << NODE_BITS) | nodeId;
+    }
+
+    private UserShard shardFor(long id) {
+        return node(ring.nodeFor(ConsistentHashRing.hash(id)));
+    }
+
+    private UserShard shardFor(String value) {
+        return node(ring.nodeFor(ConsistentHashRing.hash(value)));
+    }
+
+    private UserShard node(int node) {
+        return node == nodeId ? localShard : nodes.get(node);
+    }
+
+    private Optional<User> findByClaim(UserShard.Key key, String value) {
+        OptionalLong id = shardFor(value).findClaim(key, value);
+        return id.isPresent() ? findById(id.getAsLong()) : Optional.empty();
+    }
+
+    /**
+     * Runs {@code call} against every node at once and returns the results
+     * in node order.
+     */
+    private <T> List<T> scatter(Function<UserShard, T> call) {
+        if (nodes.size() == 1) {
+            return List.of(call.apply(localShard));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(nodes.size());
+        for (int node = 0; node < nodes.size(); node++) {
+            UserShard shard = node(node);
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(shard), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        return results;
+    }
+
+    /**
+     * Merges per-node lists already in id order into the first {@code limit}
+     * users overall. Picks the smallest head by scanning, as there are only
+     * as many lists as nodes.
+     */
+    private static List<User> merge(List<List<User>> lists, int limit) {
+        if (lists.size() == 1) {
+            List<User> only = lists.get(0);
+            return only.size() <= limit ? only : only.subList(0, limit);
+        }
+        int total = lists.stream().mapToInt(List::size).sum();
+        List<User> merged = new ArrayList<>(Math.min(total, limit));
+        int[] positions = new int[lists.size()];
+        while (merged.size() < limit) {
+            int next = -1;
+            long nextId = Long.MAX_VALUE;
+            for (int i = 0; i < lists.size(); i++) {
+                List<User> list = lists.get(i);
+                if (positions[i] < list.size() && list.get(positions[i]).getId() <= nextId) {
+                    next = i;
+                    nextId = list.get(positions[i]).getId();
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            merged.add(lists.get(next).get(positions[next]++));
+        }
+        return merged;
+    }
+
+    /**
+     * Waits until no other write to {@code id} is in flight and marks one for
+     * the caller, who must hand the result to {@link #endWrite}. Unlike a lock
+     * stripe this never holds up writes to other ids while a write waits on
+     * another node's claims, and it parks rather than pins a monitor.
+     */
+    private CompletableFuture<Void> beginWrite(long id) {
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        CompletableFuture<Void> other;
+        while ((other = writesInFlight.putIfAbsent(id, write)) != null) {
+            other.join();
+        }
+        return write;
+    }
+
+    private void endWrite(long id, CompletableFuture<Void> write) {
+        writesInFlight.remove(id, write);
+        write.complete(null);
+    }
+
+    /**
+     * Claims {@code value} for {@code id} unless {@code previous} is the same
+     * value, which the user already holds.
+     *
+     * @return whether a new claim was taken
+     */
+    private boolean claimFor(UserShard.Key key, String value, String previous, long id, String field, String shown) {
+        if (value == null || value.equals(previous)) {
+            return false;
+        }
+        if (!shardFor(value).claim(key, value, id)) {
+            throw new DuplicateUserException(field, shown);
+        }
+        return true;
+    }
+
+    private void releaseClaim(UserShard.Key key, String value, long id) {
+        if (value != null) {
+            shardFor(value).release(key, value, id);
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * This node's partition and claims.
+     */
+    private final class LocalShard implements UserShard {
+
+        @Override
+        public Optional<User> findById(long id) {
+            return store.findById(id);
+        }
+
+        @Override
+        public List<User> findPage(Long afterId, int limit) {
+            return afterId == null && limit == Integer.MAX_VALUE ? store.findAll() : store.findPage(afterId, limit);
+        }
+
+        @Override
+        public long count() {
+            return store.count();
+        }
+
+        @Override
+        public long version() {
+            return store.version().orElseThrow();
+        }
+
+        @Override
+        public Optional<User> save(User user, @Nullable Long expectedVersion) {
+            long id = user.getId();
+            CompletableFuture<Void> write = beginWrite(id);
+            try {
+                User previous = store.findById(id).orElse(null);
+                if (expectedVersion != null) {
+                    if (previous == null) {
+                        return Optional.empty();
+                    }
+                    if (previous.getVersion() != expectedVersion) {
+                        throw new UserVersionMismatchException(id, expectedVersion, previous.getVersion());
+                    }
+                }
+                String username = user.getUsername();
+                String email = emailKey(user.getEmail());
+                String previousUsername = previous == null ? null : previous.getUsername();
+                String previousEmail = previous == null ? null : emailKey(previous.getEmail());
+
+                boolean usernameClaimed = claimFor(Key.USERNAME, username, previousUsername, id, "username", username);
+                boolean emailClaimed = false;
+                try {
+                    emailClaimed = claimFor(Key.EMAIL, email, previousEmail, id, "email", user.getEmail());
+                    store.save(user);
+                } catch (RuntimeException ex) {
+                    if (usernameClaimed) {
+                        releaseClaim(Key.USERNAME, username, id);
+                    }
+                    if (emailClaimed) {
+                        releaseClaim(Key.EMAIL, email, id);
+                    }
+                    throw ex;
+                }
+                if (!Objects.equals(username, previousUsername)) {
+                    releaseClaim(Key.USERNAME, previousUsername, id);
+                }
+                if (!Objects.equals(email, previousEmail)) {
+                    releaseClaim(Key.EMAIL, previousEmail, id);
+                }
+                return Optional.of(user);
+            } finally {
+                endWrite(id, write);
+            }
+        }
+
+        @Override
+        public boolean delete(long id, @Nullable Long expectedVersion) {
+            CompletableFuture<Void> write = beginWrite(id);
+            try {
+                User previous = store.findById(id).orElse(null);
+                if (previous == null) {
+                    return false;
+                }
+                if (expectedVersion != null && previous.getVersion() != expectedVersion) {
+                    throw new UserVersionMismatchException(id, expectedVersion, previous.getVersion());
+                }
+                store.deleteById(id);
+                releaseClaim(Key.USERNAME, previous.getUsername(), id);
+                releaseClaim(Key.EMAIL, emailKey(previous.getEmail()), id);
+                return true;
+            } finally {
+                endWrite(id, write);
+            }
+        }
+
+        @Override
+        public OptionalLong findClaim(Key key, String value) {
+            Long id = claims.get(key).get(value);
+            return id == null ? OptionalLong.empty() : OptionalLong.of(id);
+        }
+
+        @Override
+        public boolean claim(Key key, String value, long id) {
+            Long holder = claims.get(key).putIfAbsent(value, id);
+            return holder == null || holder == id;
+        }
+
+        @Override
+        public void release(Key key, String value, long id) {
+            claims.get(key).remove(value, id);
+        }
+    }
+}
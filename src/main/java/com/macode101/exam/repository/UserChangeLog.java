@@ -0,0 +1,108 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded, in-order buffer of the most recent user mutations, fed by the
+ * repositories and read by change-stream subscribers.
+ * <p>
+ * Appends are serialized on the log's monitor but never wait for readers:
+ * once the ring is full the oldest change is overwritten. Readers do not lock;
+ * they walk the ring from their own cursor and notice when they have been
+ * lapped because the slot holds a later sequence than the one they expected.
+ * Sequences start from the clock, so a cursor kept across a restart falls
+ * outside the buffered range instead of silently matching new changes.
+ */
+public class UserChangeLog {
+
+    private final Change[] ring;
+    private final int mask;
+    private long nextSequence;
+    private volatile long lastSequence;
+
+    public UserChangeLog(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Change log capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        ring = new Change[Math.max(size, 1)];
+        mask = ring.length - 1;
+        lastSequence = System.currentTimeMillis();
+        nextSequence = lastSequence + 1;
+    }
+
+    /**
+     * Sequence of the latest change, or of the log's start if nothing has
+     * changed yet; reading after it yields only new changes.
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Records a change. Callers append while still holding whatever lock
+     * orders writes to {@code userId}, so changes of one user stay in order.
+     */
+    synchronized void append(UserChangeEvent.Type type, long userId, User user) {
+        long sequence = nextSequence++;
+        ring[(int) sequence & mask] = new Change(sequence, type, userId, user);
+        lastSequence = sequence;
+        notifyAll();
+    }
+
+    /**
+     * Returns up to {@code limit} changes following {@code afterSequence}, in
+     * order; empty when there is nothing newer yet.
+     *
+     * @throws ChangesExpiredException if changes after {@code afterSequence}
+     *         have already been overwritten, or it was never issued by this log
+     */
+    public List<Change> readAfter(long afterSequence, int limit) {
+        long last = lastSequence;
+        if (afterSequence > last || afterSequence < last - ring.length) {
+            throw new ChangesExpiredException(afterSequence);
+        }
+        int count = (int) Math.min(limit, last - afterSequence);
+        List<Change> changes = new ArrayList<>(count);
+        for (long sequence = afterSequence + 1; sequence <= afterSequence + count; sequence++) {
+            Change change = ring[(int) sequence & mask];
+            if (change == null || change.sequence() != sequence) {
+                throw new ChangesExpiredException(afterSequence);
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    /**
+     * Waits until a change after {@code afterSequence} is appended.
+     *
+     * @return {@code false} if none arrived within {@code timeoutMillis}
+     */
+    public boolean awaitAfter(long afterSequence, long timeoutMillis) throws InterruptedException {
+        if (lastSequence > afterSequence) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            long remaining = timeoutMillis;
+            while (lastSequence <= afterSequence && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return lastSequence > afterSequence;
+        }
+    }
+
+    /**
+     * One buffered mutation; {@code user} is the stored state after a save and
+     * {@code null} for a delete. Repositories hand over users they will not
+     * mutate again, so it is shared rather than copied.
+     */
+    public record Change(long sequence, UserChangeEvent.Type type, long userId, User user) {}
+}
@@ -0,0 +1,34 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data queries behind {@link JpaUserRepository}; not meant to be used
+ * directly by the service layer.
+ */
+interface UserJpaRepository extends JpaRepository<User, Long> {
+
+    List<User> findAllByOrderByIdAsc();
+
+    List<User> findByOrderByIdAsc(Limit limit);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    Optional<User> findByUsername(String username);
+
+    Optional<User> findFirstByEmailIgnoreCase(String email);
+
+    @Query("select u from User u where u.username in :usernames or lower(u.email) in :emails")
+    List<User> findOwners(@Param("usernames") Collection<String> usernames, @Param("emails") Collection<String> emails);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
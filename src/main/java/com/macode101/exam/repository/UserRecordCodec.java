@@ -0,0 +1,80 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of a user's fields, shared by the write-ahead log and the
+ * binary export: each string as its UTF-8 length and bytes ({@code -1} for
+ * {@code null}), then the version. The id is framed by the caller.
+ */
+public final class UserRecordCodec {
+
+    private UserRecordCodec() {
+    }
+
+    public static void writeUser(DataOutput out, User user) throws IOException {
+        writeString(out, user.getName());
+        writeString(out, user.getUsername());
+        writeString(out, user.getEmail());
+        writeString(out, user.getPhone());
+        writeString(out, user.getWebsite());
+        out.writeLong(user.getVersion());
+    }
+
+    public static User readUser(DataInput in, long id) throws IOException {
+        return readUser(in, id, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a user whose fields take at most {@code maxBytes}, so that a
+     * corrupt or hostile length is rejected before anything is allocated for
+     * it.
+     *
+     * @throws IOException if a string claims more bytes than are left
+     */
+    public static User readUser(DataInput in, long id, int maxBytes) throws IOException {
+        int[] remaining = {maxBytes - Long.BYTES};
+        return new User(id, readString(in, remaining), readString(in, remaining), readString(in, remaining),
+                readString(in, remaining), readString(in, remaining), in.readLong());
+    }
+
+    /**
+     * Reads a user written before records carried a version, which gets
+     * version {@code 0} as a newly inserted user would.
+     */
+    static User readUnversionedUser(DataInput in, long id) throws IOException {
+        int[] remaining = {Integer.MAX_VALUE};
+        return new User(id, readString(in, remaining), readString(in, remaining), readString(in, remaining),
+                readString(in, remaining), readString(in, remaining), 0L);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in, int[] remaining) throws IOException {
+        int length = in.readInt();
+        remaining[0] -= Integer.BYTES;
+        if (length < 0) {
+            return null;
+        }
+        if (length > remaining[0]) {
+            throw new IOException("String of " + length + " bytes does not fit in the record");
+        }
+        remaining[0] -= length;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
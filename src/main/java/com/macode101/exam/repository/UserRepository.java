@@ -1,18 +1,144 @@
 package com.macode101.exam.repository;
 
 import com.macode101.exam.model.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
 public interface UserRepository {
 
     List<User> findAll();
 
+    /**
+     * Keyset page of users ordered by id, starting strictly after {@code afterId}
+     * (or from the beginning when it is {@code null}).
+     */
+    List<User> findPage(Long afterId, int limit);
+
+    /**
+     * Opens a {@link UserSnapshot} for reading many pages of users. The
+     * default reads the live store through {@link #findPage}.
+     */
+    default UserSnapshot snapshot() {
+        return new UserSnapshot() {
+            @Override
+            public List<User> findPage(Long afterId, int limit) {
+                return UserRepository.this.findPage(afterId, limit);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
     Optional<User> findById(Long id);
 
+    /**
+     * Primitive overload for hot paths; implementations should look the id up
+     * without boxing it.
+     */
+    default Optional<User> findById(long id) {
+        return findById(Long.valueOf(id));
+    }
+
+    Optional<User> findByUsername(String username);
+
+    /**
+     * Email lookup is case-insensitive.
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Type-ahead search: users whose name, username, email or website has a
+     * word starting with each word of {@code query}, best matches first.
+     * Stores without a search index scan every user.
+     */
+    default List<User> search(String query, int limit) {
+        return UserSearchIndex.scan(findAll(), query, limit);
+    }
+
+    /**
+     * Current {@link User#getVersion() version} of the user with {@code id},
+     * without materializing the user where the store allows it.
+     */
+    OptionalLong findVersionById(long id);
+
+    /**
+     * Store-wide version that changes whenever any user is saved or deleted,
+     * or empty when the store cannot track one cheaply.
+     */
+    default OptionalLong version() {
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Largest id the store can hold; ids from {@code 1} up to it can be given
+     * to {@link #save} by callers that bring their own, such as an import.
+     */
+    default long maxId() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Inserts or replaces a user. The stored user's version is set to one more
+     * than the version it replaces. A new user starts above every version the
+     * store has issued, in this run or an earlier one, so that a version never
+     * names two different contents even when an id is re-created; stores
+     * without a store-wide version (JPA) start new users at {@code 0}, their
+     * rows' versions being kept by the database.
+     *
+     * @throws com.macode101.exam.exception.DuplicateUserException if another user
+     *         already owns the username or email
+     */
     User save(User user);
 
+    /**
+     * Saves a batch in one pass, reserving a single id range for the users
+     * without an id. Users rejected by the unique username/email constraint
+     * are left out of the returned list; the rest are returned in input order.
+     */
+    List<User> saveAll(List<User> users);
+
+    /**
+     * Atomically applies {@code changes} to the user with {@code id} and stores
+     * the result, in one lookup and without racing other writes to that id.
+     * The id itself cannot be changed. {@code changes} sees the current
+     * version and may throw to abort the update, which makes this the place to
+     * check an expected version.
+     *
+     * @return the updated user, or empty if there is no user with that id
+     * @throws com.macode101.exam.exception.DuplicateUserException if the change
+     *         would take another user's username or email
+     */
+    Optional<User> update(long id, Consumer<User> changes);
+
     void deleteById(Long id);
 
+    /**
+     * Deletes the user only if it is still at {@code expectedVersion}.
+     *
+     * @return {@code false} if there is no user with that id
+     * @throws com.macode101.exam.exception.UserVersionMismatchException if the
+     *         user has a different version
+     */
+    boolean deleteById(long id, long expectedVersion);
+
+    /**
+     * Deletes every given id and returns the ones that actually existed.
+     */
+    List<Long> deleteAllById(Collection<Long> ids);
+
     boolean existsById(Long id);
+
+    /**
+     * Primitive overload of {@link #existsById(Long)}.
+     */
+    default boolean existsById(long id) {
+        return existsById(Long.valueOf(id));
+    }
+
+    long count();
 }
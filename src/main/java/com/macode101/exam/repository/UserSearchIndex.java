@@ -0,0 +1,350 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongFunction;
+
+/**
+ * Inverted index for type-ahead search over a user's name, username, email
+ * and website. Every field is split into words, runs of letters and digits,
+ * and each lower-cased word maps to the ids of the users that contain it. The
+ * words are kept sorted, so that a prefix is a range of them.
+ * <p>
+ * A query is split the same way; a user matches if each query word starts one
+ * of its words. At most {@value #MAX_CANDIDATES} matches are ranked, exact
+ * matches of the driving word first, which keeps a lookup's cost independent
+ * of the number of users: a one-letter query over millions of users returns
+ * the best of the first candidates, not of all matches. Each posting remembers
+ * the best field its word occurs in, so a one-word query is ranked without
+ * touching the users; only the top ones are looked up.
+ * <p>
+ * A longer query is driven by its rarest word, the one whose prefix has the
+ * fewest postings. Its postings are checked against the other words on the
+ * user itself, and the cap counts only users that match them all, so a match
+ * is not lost behind {@value #MAX_CANDIDATES} users that only share one word.
+ * <p>
+ * Lookups never lock. Updates of one user must be serialized by the caller;
+ * updates of different users may run concurrently.
+ */
+final class UserSearchIndex {
+
+    static final int MAX_CANDIDATES = 256;
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int USERNAME_WEIGHT = 4;
+    private static final int EMAIL_WEIGHT = 2;
+    private static final int WEBSITE_WEIGHT = 1;
+
+    private final ConcurrentNavigableMap<String, Postings> words = new ConcurrentSkipListMap<>();
+
+    /**
+     * Indexes {@code user} in place of {@code previous}, either of which may be
+     * {@code null}.
+     */
+    void update(User previous, User user) {
+        Map<String, Integer> before = previous == null ? Map.of() : words(previous);
+        Map<String, Integer> after = user == null ? Map.of() : words(user);
+        after.forEach((word, field) -> {
+            if (!field.equals(before.get(word))) {
+                add(word, user.getId(), field);
+            }
+        });
+        for (String word : before.keySet()) {
+            if (!after.containsKey(word)) {
+                remove(word, previous.getId());
+            }
+        }
+    }
+
+    /**
+     * Users matching {@code query}, best first.
+     *
+     * @param users resolves an id to the current user, or {@code null} if it
+     *              has been deleted since it was indexed
+     */
+    List<User> search(String query, int limit, LongFunction<User> users) {
+        List<String> terms = split(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (terms.size() > 1) {
+            return searchAll(terms, limit, users);
+        }
+        String term = terms.get(0);
+
+        // Scores from the postings alone.
+        LongLongHashMap candidates = new LongLongHashMap(MAX_CANDIDATES);
+        Postings exact = words.get(term);
+        if (exact != null) {
+            collect(exact, true, candidates);
+        }
+        for (Map.Entry<String, Postings> entry : words.tailMap(term, false).entrySet()) {
+            if (candidates.size() >= MAX_CANDIDATES || !entry.getKey().startsWith(term)) {
+                break;
+            }
+            collect(entry.getValue(), false, candidates);
+        }
+
+        List<Scored> ranked = new ArrayList<>(candidates.size());
+        candidates.forEach((id, score) -> ranked.add(new Scored(id, (int) score, null)));
+        ranked.sort(Scored.BEST_FIRST);
+        List<User> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Scored scored : ranked) {
+            User user = users.apply(scored.id());
+            if (user != null && result.size() < limit) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A query of several words: the postings of the rarest one, checked
+     * against every word on the user, until {@value #MAX_CANDIDATES} match.
+     */
+    private List<User> searchAll(List<String> terms, int limit, LongFunction<User> users) {
+        String driver = rarest(terms);
+        LongLongHashMap seen = new LongLongHashMap(MAX_CANDIDATES);
+        List<Scored> ranked = new ArrayList<>(MAX_CANDIDATES);
+        Postings exact = words.get(driver);
+        if (exact != null) {
+            match(exact, terms, users, seen, ranked);
+        }
+        for (Map.Entry<String, Postings> entry : words.tailMap(driver, false).entrySet()) {
+            if (ranked.size() >= MAX_CANDIDATES || !entry.getKey().startsWith(driver)) {
+                break;
+            }
+            match(entry.getValue(), terms, users, seen, ranked);
+        }
+        return best(ranked, limit);
+    }
+
+    private static void match(Postings postings, List<String> terms, LongFunction<User> users,
+                              LongLongHashMap seen, List<Scored> ranked) {
+        for (Long id : postings.ids.keySet()) {
+            if (ranked.size() >= MAX_CANDIDATES) {
+                return;
+            }
+            if (seen.put(id, 0) != LongLongHashMap.NO_VALUE) {
+                continue;
+            }
+            User user = users.apply(id);
+            int score = user == null ? 0 : score(user, terms);
+            if (score > 0) {
+                ranked.add(new Scored(id, score, user));
+            }
+        }
+    }
+
+    /**
+     * The query word whose prefix has the fewest postings. Longer words are
+     * usually rarer, so they are counted first, and counting a word stops as
+     * soon as it is no rarer than the best so far.
+     */
+    private String rarest(List<String> terms) {
+        List<String> longestFirst = new ArrayList<>(terms);
+        longestFirst.sort(Comparator.comparingInt(String::length).reversed());
+        String rarest = null;
+        long fewest = Long.MAX_VALUE;
+        for (String term : longestFirst) {
+            long count = 0;
+            for (Map.Entry<String, Postings> entry : words.tailMap(term, true).entrySet()) {
+                if (count >= fewest || !entry.getKey().startsWith(term)) {
+                    break;
+                }
+                count += entry.getValue().ids.size();
+            }
+            if (count < fewest) {
+                rarest = term;
+                fewest = count;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Same ranking as {@link #search} by scanning every user instead of the
+     * index; for stores that keep no index.
+     */
+    static List<User> scan(Iterable<User> users, String query, int limit) {
+        List<String> terms = split(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Scored> ranked = new ArrayList<>();
+        for (User user : users) {
+            int score = score(user, terms);
+            if (score > 0) {
+                ranked.add(new Scored(user.getId(), score, user));
+            }
+        }
+        return best(ranked, limit);
+    }
+
+    private static List<User> best(List<Scored> ranked, int limit) {
+        ranked.sort(Scored.BEST_FIRST);
+        return ranked.stream().limit(limit).map(Scored::user).toList();
+    }
+
+    int size() {
+        return words.size();
+    }
+
+    private static void collect(Postings postings, boolean exact, LongLongHashMap candidates) {
+        for (Map.Entry<Long, Integer> posting : postings.ids.entrySet()) {
+            if (candidates.size() >= MAX_CANDIDATES) {
+                return;
+            }
+            long id = posting.getKey();
+            int score = score(posting.getValue(), exact);
+            if (candidates.get(id) < score) {
+                candidates.put(id, score);
+            }
+        }
+    }
+
+    private void add(String word, long id, int field) {
+        while (true) {
+            Postings postings = words.computeIfAbsent(word, key -> new Postings());
+            synchronized (postings) {
+                // A postings list is only dropped once empty, under its own lock.
+                if (!postings.dropped) {
+                    postings.ids.put(id, field);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void remove(String word, long id) {
+        Postings postings = words.get(word);
+        if (postings == null) {
+            return;
+        }
+        synchronized (postings) {
+            postings.ids.remove(id);
+            if (postings.ids.isEmpty() && !postings.dropped) {
+                postings.dropped = true;
+                words.remove(word, postings);
+            }
+        }
+    }
+
+    /**
+     * Sum over the query words of the best field each one starts a word of,
+     * weighted by the field, with a bonus for a whole-word match and for a
+     * match at the start of the field; {@code 0} if some query word matches
+     * nowhere.
+     */
+    static int score(User user, List<String> terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = Math.max(
+                    Math.max(score(user.getName(), term, NAME_WEIGHT), score(user.getUsername(), term, USERNAME_WEIGHT)),
+                    Math.max(score(user.getEmail(), term, EMAIL_WEIGHT), score(user.getWebsite(), term, WEBSITE_WEIGHT)));
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Where a word occurs in a user, as the weight of its best field and
+     * whether it starts that field; how a posting remembers it.
+     */
+    private static int field(int weight, boolean first) {
+        return weight << 1 | (first ? 1 : 0);
+    }
+
+    private static int score(int field, boolean whole) {
+        return (field >> 1) * (whole ? 3 : 2) + (field & 1);
+    }
+
+    private static int score(String field, String term, int weight) {
+        if (field == null) {
+            return 0;
+        }
+        int best = 0;
+        int last = field.length() - term.length();
+        for (int start = 0; start <= last; start++) {
+            if ((start > 0 && isWordChar(field.charAt(start - 1))) || !field.regionMatches(true, start, term, 0, term.length())) {
+                continue;
+            }
+            int end = start + term.length();
+            boolean whole = end == field.length() || !isWordChar(field.charAt(end));
+            best = Math.max(best, score(field(weight, start == 0), whole));
+        }
+        return best;
+    }
+
+    /**
+     * The user's words, each with the best field it occurs in. Fields rank
+     * the same for whole-word and prefix matches, so one is enough.
+     */
+    private static Map<String, Integer> words(User user) {
+        Map<String, Integer> words = new HashMap<>();
+        addWords(words, user.getName(), NAME_WEIGHT);
+        addWords(words, user.getUsername(), USERNAME_WEIGHT);
+        addWords(words, user.getEmail(), EMAIL_WEIGHT);
+        addWords(words, user.getWebsite(), WEBSITE_WEIGHT);
+        return words;
+    }
+
+    private static void addWords(Map<String, Integer> words, String text, int weight) {
+        List<String> split = split(text);
+        for (int i = 0; i < split.size(); i++) {
+            // Only the first word of a field can start it.
+            boolean first = i == 0 && isWordChar(text.charAt(0));
+            words.merge(split.get(i), field(weight, first), Math::max);
+        }
+    }
+
+    static List<String> split(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && isWordChar(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Ids of the users with a word, each with where the word occurs in it.
+     */
+    private static final class Postings {
+        final Map<Long, Integer> ids = new ConcurrentHashMap<>();
+        boolean dropped;
+    }
+
+    /**
+     * Ties go to the oldest user.
+     */
+    private record Scored(long id, int score, User user) {
+        static final Comparator<Scored> BEST_FIRST = Comparator.comparingInt(Scored::score).reversed()
+                .thenComparingLong(Scored::id);
+    }
+}
@@ -0,0 +1,136 @@
+package com.macode101.exam.repository;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Users a store starts with when it has nothing to recover: the built-in
+ * samples, the users of a JSON file, or none. A lazy seed is loaded in the
+ * background once the store is up, so a large file does not hold up startup;
+ * until it is loaded the store answers with the users it has so far. Users are
+ * read one at a time and saved in batches, so a seed file is never held in
+ * memory at once.
+ */
+public final class UserSeed {
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(UserSeed.class);
+
+    private final String source;
+    private final Loader loader;
+    private final boolean lazy;
+
+    private UserSeed(String source, Loader loader, boolean lazy) {
+        this.source = source;
+        this.loader = loader;
+        this.lazy = lazy;
+    }
+
+    public static UserSeed samples() {
+        return new UserSeed("samples", users -> SampleUsers.create().forEach(users), false);
+    }
+
+    public static UserSeed none() {
+        return new UserSeed("nothing", users -> { }, false);
+    }
+
+    /**
+     * Users in {@code file}, either as a JSON array or as one JSON object per
+     * line, in the shape of the user API. Ids in the file are not kept: users
+     * are numbered like any other new user.
+     */
+    public static UserSeed file(Path file, ObjectMapper objectMapper) {
+        return new UserSeed(file.toString(), users -> {
+            try (InputStream in = Files.newInputStream(file);
+                 MappingIterator<User> values = objectMapper.readerFor(User.class).readValues(in)) {
+                while (values.hasNextValue()) {
+                    users.accept(values.nextValue());
+                }
+            }
+        }, false);
+    }
+
+    public UserSeed lazy(boolean lazy) {
+        return new UserSeed(source, loader, lazy);
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Saves the seed users into {@code repository}, in the background if the
+     * seed is lazy. Ids in the seed are cleared, and users whose username or
+     * email is taken are skipped.
+     */
+    void seedInto(UserRepository repository) {
+        if (!lazy) {
+            load(repository);
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                load(repository);
+            } catch (RuntimeException ex) {
+                log.error("Seeding users from {} failed", source, ex);
+            }
+        }, "user-seed");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load(UserRepository repository) {
+        long start = System.nanoTime();
+        List<User> batch = new ArrayList<>(BATCH_SIZE);
+        long[] counts = new long[2];
+        try {
+            loader.read(user -> {
+                user.setId(null);
+                batch.add(user);
+                if (batch.size() == BATCH_SIZE) {
+                    saveBatch(repository, batch, counts);
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read seed users from " + source, ex);
+        }
+        saveBatch(repository, batch, counts);
+        log.info("Seeded {} users from {} in {} ms ({} skipped as duplicates)", counts[0], source,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), counts[1] - counts[0]);
+    }
+
+    /**
+     * Saves and clears {@code batch}, adding the users saved and read to
+     * {@code counts}.
+     */
+    private static void saveBatch(UserRepository repository, List<User> batch, long[] counts) {
+        counts[0] += repository.saveAll(batch).size();
+        counts[1] += batch.size();
+        batch.clear();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+
+        void read(Consumer<User> users) throws IOException;
+    }
+}
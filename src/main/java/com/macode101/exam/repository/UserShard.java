@@ -0,0 +1,83 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * What the nodes of a {@link ShardedUserRepository} ask of each other. A
+ * shard stores the users whose id hashes to it, and holds the claims on the
+ * usernames and emails that hash to it, which is what keeps those unique
+ * across the cluster. Other nodes reach it through {@link RemoteUserShard}
+ * over the endpoints under {@link #PATH}.
+ */
+public interface UserShard {
+
+    String PATH = "/internal/shard";
+
+    /**
+     * Header carrying the cluster's shared secret on every call under
+     * {@link #PATH}; requests without it are refused.
+     */
+    String SECRET_HEADER = "X-Cluster-Secret";
+
+    enum Key { USERNAME, EMAIL }
+
+    Optional<User> findById(long id);
+
+    /**
+     * This shard's users after {@code afterId}, in id order.
+     */
+    List<User> findPage(Long afterId, int limit);
+
+    long count();
+
+    /**
+     * Modification counter of this shard; only ever grows.
+     */
+    long version();
+
+    /**
+     * Stores {@code user}, whose id this shard owns, claiming its username and
+     * email on their shards first and releasing the ones it no longer uses
+     * afterwards. With an {@code expectedVersion} the user is only replaced
+     * if it exists and is still at that version.
+     *
+     * @return the stored user, or empty if {@code expectedVersion} was given
+     *         and there is no such user
+     * @throws com.macode101.exam.exception.DuplicateUserException if another
+     *         user has claimed the username or email
+     * @throws com.macode101.exam.exception.UserVersionMismatchException if the
+     *         user is at another version
+     */
+    Optional<User> save(User user, @Nullable Long expectedVersion);
+
+    /**
+     * Deletes the user and releases its claims.
+     *
+     * @return {@code false} if there is no such user
+     * @throws com.macode101.exam.exception.UserVersionMismatchException if an
+     *         {@code expectedVersion} was given and the user is at another one
+     */
+    boolean delete(long id, @Nullable Long expectedVersion);
+
+    /**
+     * Id holding the claim on {@code value}; emails are claimed lower-cased.
+     */
+    OptionalLong findClaim(Key key, String value);
+
+    /**
+     * Claims {@code value} for {@code id}.
+     *
+     * @return {@code false} if another id holds it
+     */
+    boolean claim(Key key, String value, long id);
+
+    /**
+     * Drops the claim on {@code value} if {@code id} holds it.
+     */
+    void release(Key key, String value, long id);
+}
@@ -0,0 +1,22 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+
+import java.util.List;
+
+/**
+ * A view of the users for reading many of them in several calls, e.g. a full
+ * export. Stores with multi-version reads freeze it at the moment it was
+ * opened; others read the live store. Close it once done, as an open snapshot
+ * keeps the versions it can see from being reclaimed.
+ */
+public interface UserSnapshot extends AutoCloseable {
+
+    /**
+     * Same as {@link UserRepository#findPage}, as of this snapshot.
+     */
+    List<User> findPage(Long afterId, int limit);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,501 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, group-committed log of repository mutations with periodic
+ * compacting snapshots.
+ * <p>
+ * Writers encode their record into an in-memory batch; a single flusher thread
+ * writes the batch through a {@link FileChannel} and forces it to disk every
+ * {@code flushInterval}. A crash can therefore lose at most one flush interval
+ * of acknowledged writes. Once {@code snapshotThreshold} records have been
+ * logged, the log is rolled to a new segment and the store is written to a
+ * snapshot, after which older segments are deleted.
+ * <p>
+ * If a flush fails, its batch is kept to be written again by the next flush,
+ * after cutting whatever part of it reached the segment (or, if the segment
+ * cannot be cut, in a new segment). Until a flush succeeds
+ * {@link #checkWritable()} fails, and the store refuses writes rather than
+ * acknowledge ones the log may lose.
+ * <p>
+ * Every record carries the full state of the user, so replaying a segment on
+ * top of a snapshot taken after that segment was opened is idempotent.
+ * <p>
+ * Each segment starts with a magic number and the version of its record
+ * format, and segments of an unknown format are refused rather than misread.
+ * Segments without a header were written by earlier builds, whose records may
+ * lack the user's version; they are still replayed, and their users without
+ * one get version {@code 0}, as do the users of a snapshot from before
+ * versions.
+ */
+public class UserWriteAheadLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWriteAheadLog.class);
+
+    private static final String SNAPSHOT_FILE = "users.snapshot";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("users-(\\d+)\\.log");
+    private static final int SNAPSHOT_MAGIC = 0x55534e51;
+    private static final int UNVERSIONED_SNAPSHOT_MAGIC = 0x55534e50;
+    private static final int SEGMENT_MAGIC = 0x55534c47;
+    private static final int SEGMENT_FORMAT = 2;
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+
+    private final Path directory;
+    private final Duration flushInterval;
+    private final long snapshotThreshold;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private long recordsSinceSnapshot;
+    private long highestLoggedId;
+
+    private FileChannel channel;
+    // Bytes of the segment known to be whole records; anything after them is a torn batch.
+    private long written;
+    private boolean torn;
+    private volatile IOException failure;
+    private long segment;
+    private ScheduledExecutorService flusher;
+    private Supplier<Iterable<User>> snapshotSource;
+    private LongSupplier nextIdSource;
+
+    public UserWriteAheadLog(Path directory, Duration flushInterval, long snapshotThreshold) {
+        this.directory = directory;
+        this.flushInterval = flushInterval;
+        this.snapshotThreshold = snapshotThreshold;
+    }
+
+    /**
+     * Loads the latest snapshot and replays every later log segment into
+     * {@code target}.
+     *
+     * @return the next free id, or empty if nothing has been persisted yet
+     */
+    public OptionalLong recover(Map<Long, User> target) {
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+            boolean found = false;
+            long nextId = 1;
+            long firstSegment = 0;
+
+            if (Files.exists(snapshotFile)) {
+                found = true;
+                try (DataInputStream in = open(snapshotFile)) {
+                    int magic = in.readInt();
+                    if (magic != SNAPSHOT_MAGIC && magic != UNVERSIONED_SNAPSHOT_MAGIC) {
+                        throw new IOException("Unrecognized snapshot file " + snapshotFile);
+                    }
+                    firstSegment = in.readLong();
+                    nextId = in.readLong();
+                    while (in.readBoolean()) {
+                        long id = in.readLong();
+                        User user = magic == SNAPSHOT_MAGIC
+                                ? UserRecordCodec.readUser(in, id)
+                                : UserRecordCodec.readUnversionedUser(in, id);
+                        target.put(id, user);
+                    }
+                }
+            }
+
+            long replayed = 0;
+            for (long seg : segments()) {
+                if (seg < firstSegment) {
+                    Files.deleteIfExists(segmentFile(seg));
+                    continue;
+                }
+                found = true;
+                replayed += replay(segmentFile(seg), target);
+                segment = seg + 1;
+            }
+            segment = Math.max(segment, firstSegment);
+
+            for (Long id : target.keySet()) {
+                nextId = Math.max(nextId, id + 1);
+            }
+            nextId = Math.max(nextId, highestLoggedId + 1);
+
+            log.info("Recovered {} users ({} log records) from {} in {} ms",
+                    target.size(), replayed, directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return found ? OptionalLong.of(nextId) : OptionalLong.empty();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to recover user store from " + directory, ex);
+        }
+    }
+
+    /**
+     * Opens a fresh log segment and starts the background flusher.
+     *
+     * @param snapshotSource live view of the store used when compacting
+     * @param nextIdSource   current id generator position
+     */
+    public void start(Supplier<Iterable<User>> snapshotSource, LongSupplier nextIdSource) {
+        this.snapshotSource = snapshotSource;
+        this.nextIdSource = nextIdSource;
+        try {
+            channel = openSegment(segment);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open log segment in " + directory, ex);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-wal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = flushInterval.toNanos();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void appendSave(User user) {
+        append(SAVE, user.getId(), user);
+    }
+
+    public void appendDelete(Long id) {
+        append(DELETE, id, null);
+    }
+
+    /**
+     * Fails while the last flush has failed, so that callers do not take on
+     * writes the log may not be able to keep.
+     *
+     * @throws UncheckedIOException with the failure of the last flush
+     */
+    public void checkWritable() {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("User write-ahead log cannot write to " + directory, failed);
+        }
+    }
+
+    /**
+     * Writes and forces everything appended so far, and compacts the log when
+     * the snapshot threshold has been reached.
+     */
+    public synchronized void flush() throws IOException {
+        ByteArrayOutputStream batch;
+        boolean compact;
+        appendLock.lock();
+        try {
+            if (pending.size() == 0) {
+                return;
+            }
+            batch = pending;
+            pending = new ByteArrayOutputStream(Math.max(64 * 1024, batch.size()));
+            compact = recordsSinceSnapshot >= snapshotThreshold;
+            if (compact) {
+                recordsSinceSnapshot = 0;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        // Writers keep appending to the fresh batch while this one is forced.
+        try {
+            write(batch);
+        } catch (IOException ex) {
+            failure = ex;
+            restore(batch, compact);
+            throw ex;
+        }
+        failure = null;
+        if (compact) {
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            writeSnapshot(segment);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void append(byte type, Long id, User user) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(type);
+            out.writeLong(id);
+            if (user != null) {
+                UserRecordCodec.writeUser(out, user);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        byte[] frame = ByteBuffer.allocate(8 + bytes.length)
+                .putInt(bytes.length)
+                .putInt((int) crc.getValue())
+                .put(bytes)
+                .array();
+
+        appendLock.lock();
+        try {
+            pending.write(frame, 0, frame.length);
+            recordsSinceSnapshot++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void write(ByteArrayOutputStream batch) throws IOException {
+        if (torn) {
+            cutTornBatch();
+        }
+        torn = true;
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        written += batch.size();
+        torn = false;
+    }
+
+    /**
+     * Puts a batch that could not be written back in front of the records
+     * appended since, so the next flush writes them all in order.
+     */
+    private void restore(ByteArrayOutputStream batch, boolean compact) {
+        appendLock.lock();
+        try {
+            pending.writeTo(batch);
+            pending = batch;
+            if (compact) {
+                recordsSinceSnapshot = Math.max(recordsSinceSnapshot, snapshotThreshold);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the part of a failed batch that reached the segment, so that
+     * replay does not stop at it before the records written after it. A
+     * segment that cannot be truncated is left to end there, and the log moves
+     * on to a new one.
+     */
+    private void cutTornBatch() throws IOException {
+        try {
+            channel.truncate(written);
+            channel.force(false);
+        } catch (IOException ex) {
+            log.warn("Cannot truncate {} after a failed flush, moving on to a new segment", segmentFile(segment), ex);
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                ex.addSuppressed(closeFailure);
+            }
+            segment++;
+            channel = openSegment(segment);
+        }
+        torn = false;
+    }
+
+    private void writeSnapshot(long firstSegment) throws IOException {
+        long started = System.nanoTime();
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        // Read after the roll-over, so it covers every id logged to older segments.
+        long nextId = nextIdSource.getAsLong();
+        long count = 0;
+
+        try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file), 64 * 1024));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(firstSegment);
+            out.writeLong(nextId);
+            for (User user : snapshotSource.get()) {
+                out.writeBoolean(true);
+                out.writeLong(user.getId());
+                UserRecordCodec.writeUser(out, user);
+                count++;
+            }
+            out.writeBoolean(false);
+            out.flush();
+            file.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long seg : segments()) {
+            if (seg < firstSegment) {
+                Files.deleteIfExists(segmentFile(seg));
+            }
+        }
+        log.info("Wrote snapshot of {} users in {} ms", count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private long replay(Path file, Map<Long, User> target) throws IOException {
+        long records = 0;
+        long size = Files.size(file);
+        long offset = 0;
+        try (DataInputStream in = open(file)) {
+            boolean headerless = false;
+            boolean first = true;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                    if (first && length == SEGMENT_MAGIC) {
+                        int format = in.readInt();
+                        if (format != SEGMENT_FORMAT) {
+                            throw new IOException("Unsupported record format " + format + " in " + file);
+                        }
+                        offset = 8;
+                        length = in.readInt();
+                    } else if (first) {
+                        headerless = true;
+                        log.info("Replaying {}, written before log segments had a header", file);
+                    }
+                    first = false;
+                } catch (EOFException ex) {
+                    break;
+                }
+                if (length < 0 || length > size - offset - 8) {
+                    log.warn("Ignoring torn or corrupt record at offset {} of {}, the last {} bytes of it",
+                            offset, file, size - offset);
+                    break;
+                }
+                int checksum;
+                byte[] bytes = new byte[length];
+                try {
+                    checksum = in.readInt();
+                    in.readFully(bytes);
+                } catch (EOFException ex) {
+                    log.warn("Ignoring torn record at the end of {}", file);
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Ignoring corrupt record at offset {} of {}, the last {} bytes of it",
+                            offset, file, size - offset);
+                    break;
+                }
+                offset += 8 + length;
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+                byte type = record.readByte();
+                long id = record.readLong();
+                highestLoggedId = Math.max(highestLoggedId, id);
+                if (type == SAVE) {
+                    target.put(id, headerless ? readHeaderlessUser(record, id) : UserRecordCodec.readUser(record, id));
+                } else {
+                    target.remove(id);
+                }
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads a user from a segment without a header, whose records carry the
+     * user's version only if they were written once users had one.
+     */
+    private static User readHeaderlessUser(DataInputStream record, long id) throws IOException {
+        User user = UserRecordCodec.readUnversionedUser(record, id);
+        if (record.available() >= Long.BYTES) {
+            user.setVersion(record.readLong());
+        }
+        return user;
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    found.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        found.sort(null);
+        return found;
+    }
+
+    private FileChannel openSegment(long seg) throws IOException {
+        FileChannel segmentChannel = openChannel(segmentFile(seg));
+        if (segmentChannel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(SEGMENT_MAGIC).putInt(SEGMENT_FORMAT).flip();
+            while (header.hasRemaining()) {
+                segmentChannel.write(header);
+            }
+        }
+        written = segmentChannel.size();
+        return segmentChannel;
+    }
+
+    FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentFile(long seg) {
+        return directory.resolve("users-" + seg + ".log");
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to flush user write-ahead log", ex);
+        }
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+    }
+}
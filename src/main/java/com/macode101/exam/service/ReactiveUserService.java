@@ -0,0 +1,24 @@
+package com.macode101.exam.service;
+
+import com.macode101.exam.model.UserDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserService {
+
+    Flux<UserDto> getAllUsers();
+
+    Flux<UserDto> getUsers(Long afterId, int limit);
+
+    Mono<UserDto> getUserById(Long id);
+
+    Mono<UserDto> findUserByUsername(String username);
+
+    Mono<UserDto> findUserByEmail(String email);
+
+    Mono<UserDto> createUser(UserDto userDto);
+
+    Mono<UserDto> updateUser(Long id, UserDto userDto);
+
+    Mono<Void> deleteUser(Long id);
+}
@@ -0,0 +1,74 @@
+package com.macode101.exam.service;
+
+import com.macode101.exam.exception.UserNotFoundException;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+    private final UserMapper userMapper;
+
+    @Override
+    public Flux<UserDto> getAllUsers() {
+        return userRepository.findAll().map(userMapper::toDto);
+    }
+
+    @Override
+    public Flux<UserDto> getUsers(Long afterId, int limit) {
+        return userRepository.findPage(afterId, limit).map(userMapper::toDto);
+    }
+
+    @Override
+    public Mono<UserDto> getUserById(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(id)))
+                .map(userMapper::toDto);
+    }
+
+    @Override
+    public Mono<UserDto> findUserByUsername(String username) {
+        return userRepository.findByUsername(username).map(userMapper::toDto);
+    }
+
+    @Override
+    public Mono<UserDto> findUserByEmail(String email) {
+        return userRepository.findByEmail(email).map(userMapper::toDto);
+    }
+
+    @Override
+    public Mono<UserDto> createUser(UserDto userDto) {
+        User user = userMapper.toEntity(userDto);
+        user.setId(null);
+        return userRepository.save(user).map(userMapper::toDto);
+    }
+
+    @Override
+    public Mono<UserDto> updateUser(Long id, UserDto userDto) {
+        return userRepository.existsById(id)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(id)))
+                .flatMap(exists -> {
+                    User user = userMapper.toEntity(userDto);
+                    user.setId(id);
+                    return userRepository.save(user);
+                })
+                .map(userMapper::toDto);
+    }
+
+    @Override
+    public Mono<Void> deleteUser(Long id) {
+        return userRepository.existsById(id)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(id)))
+                .then(userRepository.deleteById(id));
+    }
+}
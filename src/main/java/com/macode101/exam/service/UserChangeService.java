@@ -0,0 +1,24 @@
+package com.macode101.exam.service;
+
+import java.util.concurrent.Future;
+
+public interface UserChangeService {
+
+    /**
+     * Sequence of the latest change; subscribing after it delivers only new
+     * changes.
+     */
+    long getLatestSequence();
+
+    /**
+     * Delivers every change after {@code afterSequence} to {@code subscriber}
+     * on a thread of its own, so a slow subscriber only ever holds up itself,
+     * until the returned future is cancelled or the subscriber gives up.
+     *
+     * @throws com.macode101.exam.exception.ChangesExpiredException if the
+     *         changes after {@code afterSequence} are no longer buffered
+     * @throws java.util.concurrent.RejectedExecutionException if the maximum
+     *         number of subscribers has been reached
+     */
+    Future<?> subscribe(long afterSequence, UserChangeSubscriber subscriber);
+}
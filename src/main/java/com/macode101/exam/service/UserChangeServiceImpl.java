@@ -0,0 +1,103 @@
+package com.macode101.exam.service;
+
+import com.macode101.exam.config.ChangeFeedProperties;
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.UserChangeEvent;
+import com.macode101.exam.repository.UserChangeLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves each subscriber from a thread of a bounded pool that reads the
+ * {@link UserChangeLog} at the subscriber's own pace. Writers only ever append
+ * to the log, so however slow a subscriber is, it cannot hold them up; it
+ * just risks being lapped and told to resynchronize.
+ */
+@Service
+public class UserChangeServiceImpl implements UserChangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeServiceImpl.class);
+    private static final int BATCH_SIZE = 256;
+
+    private final UserChangeLog changeLog;
+    private final UserMapper userMapper;
+    private final long heartbeatMillis;
+    private final ThreadPoolExecutor executor;
+
+    public UserChangeServiceImpl(UserChangeLog changeLog, UserMapper userMapper, ChangeFeedProperties properties) {
+        this.changeLog = changeLog;
+        this.userMapper = userMapper;
+        this.heartbeatMillis = properties.getHeartbeatInterval().toMillis();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, properties.getMaxSubscribers(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> {
+                    Thread thread = new Thread(task, "user-changes-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public long getLatestSequence() {
+        return changeLog.lastSequence();
+    }
+
+    @Override
+    public Future<?> subscribe(long afterSequence, UserChangeSubscriber subscriber) {
+        // Fail before handing off, while the caller can still answer with an error status.
+        changeLog.readAfter(afterSequence, 0);
+        return executor.submit(() -> deliver(afterSequence, subscriber));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void deliver(long afterSequence, UserChangeSubscriber subscriber) {
+        long cursor = afterSequence;
+        try {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<UserChangeLog.Change> changes = changeLog.readAfter(cursor, BATCH_SIZE);
+                    if (changes.isEmpty()) {
+                        if (!changeLog.awaitAfter(cursor, heartbeatMillis)) {
+                            subscriber.onIdle();
+                        }
+                        continue;
+                    }
+                    for (UserChangeLog.Change change : changes) {
+                        subscriber.onChange(toEvent(change));
+                        cursor = change.sequence();
+                    }
+                }
+            } catch (ChangesExpiredException ex) {
+                log.warn("Change subscriber fell behind at sequence {}", cursor);
+                subscriber.onExpired(ex);
+            }
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Change subscriber went away at sequence {}: {}", cursor, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private UserChangeEvent toEvent(UserChangeLog.Change change) {
+        if (change.user() == null) {
+            return new UserChangeEvent(change.sequence(), change.type(), change.userId(), null, null);
+        }
+        return new UserChangeEvent(change.sequence(), change.type(), change.userId(),
+                change.user().getVersion(), userMapper.toDto(change.user()));
+    }
+}
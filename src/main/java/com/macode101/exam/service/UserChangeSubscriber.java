@@ -0,0 +1,26 @@
+package com.macode101.exam.service;
+
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.model.UserChangeEvent;
+
+import java.io.IOException;
+
+/**
+ * Receives the user change stream on the subscription's own thread. Throwing
+ * {@link IOException} ends the subscription.
+ */
+public interface UserChangeSubscriber {
+
+    void onChange(UserChangeEvent change) throws IOException;
+
+    /**
+     * Nothing changed for the configured heartbeat interval.
+     */
+    void onIdle() throws IOException;
+
+    /**
+     * The subscriber fell so far behind that changes it has not seen were
+     * dropped; this is the last call it receives.
+     */
+    void onExpired(ChangesExpiredException ex) throws IOException;
+}
@@ -0,0 +1,73 @@
+package com.macode101.exam.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Compact JSON encoding of each user, cached by id and bounded by total size.
+ * <p>
+ * An entry is only served for the exact version it was encoded from, and
+ * every write bumps the user's version, so writes invalidate entries without
+ * having to reach the cache; stale and deleted entries are simply never hit
+ * again and age out. Output never depends on {@code indent-output}, as the
+ * bytes are also used as NDJSON lines.
+ */
+public class UserJsonCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "users-json";
+
+    private final Cache<Long, Encoded> cache;
+    private final ObjectWriter writer;
+    private final UserMapper userMapper;
+
+    public UserJsonCache(ObjectMapper objectMapper, UserMapper userMapper, long maxBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Encoded encoded) -> encoded.json().length)
+                .recordStats()
+                .build();
+        this.writer = objectMapper.writerFor(UserDto.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.userMapper = userMapper;
+    }
+
+    /**
+     * The user as a JSON object, encoded now unless this version of it
+     * already was.
+     */
+    public byte[] get(User user) {
+        Encoded encoded = cache.getIfPresent(user.getId());
+        if (encoded != null && encoded.version() == user.getVersion()) {
+            return encoded.json();
+        }
+        byte[] json = encode(user);
+        cache.put(user.getId(), new Encoded(user.getVersion(), json));
+        return json;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private byte[] encode(User user) {
+        try {
+            return writer.writeValueAsBytes(userMapper.toDto(user));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record Encoded(long version, byte[] json) {}
+}
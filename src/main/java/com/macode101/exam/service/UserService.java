@@ -1,17 +1,81 @@
 package com.macode101.exam.service;
 
+import com.macode101.exam.model.BatchItemResult;
+import com.macode101.exam.model.EncodedUsers;
 import com.macode101.exam.model.UserDto;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 public interface UserService {
 
     List<UserDto> getAllUsers();
 
-    UserDto getUserById(Long id);
+    List<UserDto> getUsers(Long afterId, int limit);
+
+    /**
+     * All users as compact JSON, reusing each user's encoding until it changes.
+     */
+    EncodedUsers getAllUsersEncoded();
+
+    /**
+     * Page of {@link #getUsers} as compact JSON, reusing each user's encoding
+     * until it changes.
+     */
+    EncodedUsers getUsersEncoded(Long afterId, int limit);
+
+    UserDto getUserById(long id);
+
+    /**
+     * Current version of the user, looked up without mapping it.
+     */
+    OptionalLong getUserVersion(long id);
+
+    /**
+     * Version of the user collection as a whole, if the store tracks one.
+     */
+    OptionalLong getUsersVersion();
+
+    Optional<UserDto> findUserByUsername(String username);
+
+    Optional<UserDto> findUserByEmail(String email);
+
+    /**
+     * Users whose name, username, email or website has words starting with
+     * the words of {@code query}, best matches first.
+     */
+    List<UserDto> searchUsers(String query, int limit);
 
     UserDto createUser(UserDto userDto);
 
-    UserDto updateUser(Long id, UserDto userDto);
+    UserDto updateUser(long id, UserDto userDto);
+
+    /**
+     * Replaces the user only if it is still at {@code expectedVersion}.
+     *
+     * @throws com.macode101.exam.exception.UserVersionMismatchException otherwise
+     */
+    UserDto updateUser(long id, UserDto userDto, long expectedVersion);
+
+    /**
+     * Applies the non-null fields of {@code changes} to the user. With
+     * {@code changedFieldsOnly} the result carries just the id and the fields
+     * whose value actually changed; otherwise it is the full updated user.
+     */
+    UserDto patchUser(long id, UserDto changes, boolean changedFieldsOnly);
+
+    void deleteUser(long id);
+
+    /**
+     * Deletes the user only if it is still at {@code expectedVersion}.
+     *
+     * @throws com.macode101.exam.exception.UserVersionMismatchException otherwise
+     */
+    void deleteUser(long id, long expectedVersion);
+
+    List<BatchItemResult> createUsers(List<UserDto> userDtos);
+
+    List<BatchItemResult> updateUsers(List<UserDto> userDtos);
 
-    void deleteUser(Long id);
+    List<BatchItemResult> deleteUsers(List<Long> ids);
 }
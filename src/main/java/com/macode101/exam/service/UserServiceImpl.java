@@ -1,21 +1,44 @@
 package com.macode101.exam.service;
 
+import com.macode101.exam.config.CachingConfig;
+import com.macode101.exam.config.MetricsConfig;
+import com.macode101.exam.exception.InvalidUserException;
 import com.macode101.exam.exception.UserNotFoundException;
+import com.macode101.exam.exception.UserVersionMismatchException;
 import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.BatchItemResult;
+import com.macode101.exam.model.EncodedUsers;
 import com.macode101.exam.model.User;
 import com.macode101.exam.model.UserDto;
 import com.macode101.exam.repository.UserRepository;
+import com.macode101.exam.validation.UserDtoValidator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UserJsonCache userJsonCache;
+    private final UserDtoValidator userDtoValidator = new UserDtoValidator();
+    private final UserDtoValidator patchValidator = UserDtoValidator.forPatches();
 
 
     @Override
@@ -23,38 +46,248 @@ public class UserServiceImpl implements UserService {
         List<User> users = userRepository.findAll();
         return userMapper.toDto(users);
     }
+
+    @Override
+    public List<UserDto> getUsers(Long afterId, int limit) {
+        List<User> users = userRepository.findPage(afterId, limit);
+        return userMapper.toDto(users);
+    }
+
+    @Override
+    public EncodedUsers getAllUsersEncoded() {
+        return encode(userRepository.findAll());
+    }
+
+    @Override
+    public EncodedUsers getUsersEncoded(Long afterId, int limit) {
+        return encode(userRepository.findPage(afterId, limit));
+    }
     
+    /**
+     * Synchronized on the key: concurrent misses for one id wait for a single
+     * load instead of each reading the repository.
+     */
     @Override
-    public UserDto getUserById(Long id) {
+    @Cacheable(cacheNames = CachingConfig.USERS_CACHE, key = "#id", sync = true)
+    public UserDto getUserById(long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
         return userMapper.toDto(user);
     }
     
     @Override
+    public OptionalLong getUserVersion(long id) {
+        return userRepository.findVersionById(id);
+    }
+
+    @Override
+    public OptionalLong getUsersVersion() {
+        return userRepository.version();
+    }
+
+    @Override
+    public Optional<UserDto> findUserByUsername(String username) {
+        return userRepository.findByUsername(username).map(userMapper::toDto);
+    }
+
+    @Override
+    public Optional<UserDto> findUserByEmail(String email) {
+        return userRepository.findByEmail(email).map(userMapper::toDto);
+    }
+
+    @Override
+    public List<UserDto> searchUsers(String query, int limit) {
+        return userMapper.toDto(userRepository.search(query, limit));
+    }
+    
+    @Override
+    @CachePut(cacheNames = CachingConfig.USERS_CACHE, key = "#result.id")
     public UserDto createUser(UserDto userDto) {
         User user = userMapper.toEntity(userDto);
         user.setId(null);
         User savedUser = userRepository.save(user);
-        return userMapper.toDto(savedUser);
+        return userMapper.toSavedDto(userDto, savedUser);
     }
     
     @Override
-    public UserDto updateUser(Long id, UserDto userDto) {
+    @CachePut(cacheNames = CachingConfig.USERS_CACHE, key = "#id")
+    public UserDto updateUser(long id, UserDto userDto) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException(id);
         }
         User user = userMapper.toEntity(userDto);
         user.setId(id);
         User updatedUser = userRepository.save(user);
-        return userMapper.toDto(updatedUser);
+        return userMapper.toSavedDto(userDto, updatedUser);
     }
     
     @Override
-    public void deleteUser(Long id) {
+    @CachePut(cacheNames = CachingConfig.USERS_CACHE, key = "#id")
+    public UserDto updateUser(long id, UserDto userDto, long expectedVersion) {
+        User updatedUser = userRepository.update(id, user -> {
+            if (user.getVersion() != expectedVersion) {
+                throw new UserVersionMismatchException(id, expectedVersion, user.getVersion());
+            }
+            userMapper.update(user, userDto);
+        }).orElseThrow(() -> new UserNotFoundException(id));
+        return userMapper.toSavedDto(userDto, updatedUser);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CachingConfig.USERS_CACHE, key = "#id")
+    public UserDto patchUser(long id, UserDto changes, boolean changedFieldsOnly) {
+        List<String> errors = patchValidator.violations(changes);
+        if (!errors.isEmpty()) {
+            throw new InvalidUserException(errors);
+        }
+        UserDto changed = changedFieldsOnly ? new UserDto() : null;
+        User updatedUser = userRepository.update(id, user -> {
+            if (changed != null) {
+                collectChanges(user, changes, changed);
+            }
+            userMapper.partialUpdate(user, changes);
+        }).orElseThrow(() -> new UserNotFoundException(id));
+
+        if (changed != null) {
+            changed.setId(updatedUser.getId());
+            return changed;
+        }
+        return userMapper.toDto(updatedUser);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CachingConfig.USERS_CACHE, key = "#id")
+    public void deleteUser(long id) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException(id);
         }
         userRepository.deleteById(id);
     }
+
+    @Override
+    @CacheEvict(cacheNames = CachingConfig.USERS_CACHE, key = "#id")
+    public void deleteUser(long id, long expectedVersion) {
+        if (!userRepository.deleteById(id, expectedVersion)) {
+            throw new UserNotFoundException(id);
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> createUsers(List<UserDto> userDtos) {
+        BatchItemResult[] results = new BatchItemResult[userDtos.size()];
+        List<User> pending = new ArrayList<>(userDtos.size());
+        List<Integer> positions = new ArrayList<>(userDtos.size());
+
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserDto userDto = userDtos.get(i);
+            List<String> errors = userDtoValidator.violations(userDto);
+            if (!errors.isEmpty()) {
+                results[i] = new BatchItemResult(i, HttpStatus.BAD_REQUEST.value(), null, errors);
+                continue;
+            }
+            User user = userMapper.toEntity(userDto);
+            user.setId(null);
+            pending.add(user);
+            positions.add(i);
+        }
+
+        saveBatch(userDtos, pending, positions, HttpStatus.CREATED, results);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CachingConfig.USERS_CACHE, allEntries = true)
+    public List<BatchItemResult> updateUsers(List<UserDto> userDtos) {
+        BatchItemResult[] results = new BatchItemResult[userDtos.size()];
+        List<User> pending = new ArrayList<>(userDtos.size());
+        List<Integer> positions = new ArrayList<>(userDtos.size());
+
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserDto userDto = userDtos.get(i);
+            Long id = userDto.getId();
+            List<String> errors = userDtoValidator.violations(userDto);
+            if (id == null) {
+                errors = new ArrayList<>(errors);
+                errors.add(0, "id: Id is required for batch update");
+            }
+            if (!errors.isEmpty()) {
+                results[i] = new BatchItemResult(i, HttpStatus.BAD_REQUEST.value(), id, errors);
+                continue;
+            }
+            if (!userRepository.existsById(id.longValue())) {
+                results[i] = new BatchItemResult(i, HttpStatus.NOT_FOUND.value(), id,
+                        List.of(new UserNotFoundException(id).getMessage()));
+                continue;
+            }
+            pending.add(userMapper.toEntity(userDto));
+            positions.add(i);
+        }
+
+        saveBatch(userDtos, pending, positions, HttpStatus.OK, results);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CachingConfig.USERS_CACHE, allEntries = true)
+    public List<BatchItemResult> deleteUsers(List<Long> ids) {
+        Set<Long> deleted = Set.copyOf(userRepository.deleteAllById(ids));
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            results.add(deleted.contains(id)
+                    ? new BatchItemResult(i, HttpStatus.NO_CONTENT.value(), id, null)
+                    : new BatchItemResult(i, HttpStatus.NOT_FOUND.value(), id,
+                            List.of(new UserNotFoundException(id).getMessage())));
+        }
+        return results;
+    }
+
+    private void saveBatch(List<UserDto> userDtos, List<User> pending, List<Integer> positions, HttpStatus success,
+                           BatchItemResult[] results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Long[] requestedIds = pending.stream().map(User::getId).toArray(Long[]::new);
+        Set<User> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        saved.addAll(userRepository.saveAll(pending));
+
+        for (int j = 0; j < pending.size(); j++) {
+            User user = pending.get(j);
+            int index = positions.get(j);
+            results[index] = saved.contains(user)
+                    ? new BatchItemResult(index, success.value(), userMapper.toSavedDto(userDtos.get(index), user))
+                    : new BatchItemResult(index, HttpStatus.CONFLICT.value(), requestedIds[j],
+                            List.of("Username or email is already in use"));
+        }
+    }
+
+    private EncodedUsers encode(List<User> users) {
+        List<byte[]> json = new ArrayList<>(users.size());
+        for (User user : users) {
+            json.add(userJsonCache.get(user));
+        }
+        return new EncodedUsers(json, users.isEmpty() ? null : users.get(users.size() - 1).getId());
+    }
+
+    private static void collectChanges(User current, UserDto changes, UserDto changed) {
+        if (isChange(changes.getName(), current.getName())) {
+            changed.setName(changes.getName());
+        }
+        if (isChange(changes.getUsername(), current.getUsername())) {
+            changed.setUsername(changes.getUsername());
+        }
+        if (isChange(changes.getEmail(), current.getEmail())) {
+            changed.setEmail(changes.getEmail());
+        }
+        if (isChange(changes.getPhone(), current.getPhone())) {
+            changed.setPhone(changes.getPhone());
+        }
+        if (isChange(changes.getWebsite(), current.getWebsite())) {
+            changed.setWebsite(changes.getWebsite());
+        }
+    }
+
+    private static boolean isChange(String requested, String current) {
+        return requested != null && !requested.equals(current);
+    }
 }
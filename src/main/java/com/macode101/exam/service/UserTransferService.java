@@ -0,0 +1,44 @@
+package com.macode101.exam.service;
+
+import com.macode101.exam.model.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Moves the whole user store in and out in bulk, e.g. to migrate or warm an
+ * instance.
+ */
+public interface UserTransferService {
+
+    enum Format {
+        /** One user JSON object per line, as served by the user API. */
+        NDJSON,
+        /**
+         * A 4-byte magic number, then one record per user: its length as a
+         * 4-byte int, the id as an 8-byte long and the fields as the
+         * write-ahead log encodes them.
+         */
+        BINARY
+    }
+
+    /**
+     * Writes every user, in id order, page by page from one
+     * {@link com.macode101.exam.repository.UserRepository#snapshot()}; the
+     * store is never held in memory at once.
+     */
+    void exportUsers(Format format, OutputStream out) throws IOException;
+
+    /**
+     * Stores the users read from {@code in} in batches, straight into the
+     * repository. Users keep their ids, which new users will not be given;
+     * users without one get the next free id. Versions are assigned by the
+     * repository as for any save, so a user re-creating a deleted id never
+     * takes over the deleted user's version.
+     *
+     * @throws com.macode101.exam.exception.MalformedImportException if the
+     *         input cannot be read; the batches before the error are kept
+     */
+    ImportResult importUsers(Format format, InputStream in) throws IOException;
+}
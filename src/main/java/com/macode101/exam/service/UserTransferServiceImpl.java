@@ -0,0 +1,222 @@
+package com.macode101.exam.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.macode101.exam.config.CachingConfig;
+import com.macode101.exam.exception.MalformedImportException;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.ImportResult;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.repository.UserRecordCodec;
+import com.macode101.exam.repository.UserRepository;
+import com.macode101.exam.repository.UserSnapshot;
+import com.macode101.exam.validation.UserDtoValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports page by page from one {@link UserSnapshot}, so that an export is
+ * the store at one point in time even while it is written to, and imports in
+ * batches through {@link UserRepository#saveAll}, which stores a batch in one
+ * pass. NDJSON is
+ * written from the cached per-user encodings, so an export after a
+ * {@code GET /users} serializes nothing.
+ */
+@Service
+public class UserTransferServiceImpl implements UserTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTransferServiceImpl.class);
+    static final int BINARY_MAGIC = 0x55535258;
+    static final int MAX_RECORD_BYTES = 1 << 20;
+    static final int PAGE_SIZE = 1000;
+    static final int BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final UserJsonCache userJsonCache;
+    private final Cache usersCache;
+    private final ObjectReader userReader;
+    private final UserDtoValidator userDtoValidator = new UserDtoValidator();
+
+    public UserTransferServiceImpl(UserRepository userRepository, UserMapper userMapper, UserJsonCache userJsonCache,
+                                   CacheManager cacheManager, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.userJsonCache = userJsonCache;
+        this.usersCache = cacheManager.getCache(CachingConfig.USERS_CACHE);
+        this.userReader = objectMapper.readerFor(UserDto.class);
+    }
+
+    @Override
+    public void exportUsers(Format format, OutputStream out) throws IOException {
+        try (UserSnapshot snapshot = userRepository.snapshot()) {
+            if (format == Format.NDJSON) {
+                exportNdjson(snapshot, out);
+            } else {
+                exportBinary(snapshot, out);
+            }
+        }
+    }
+
+    /**
+     * Clears the {@code users} cache however the import ends: a failed one
+     * keeps the batches stored before the failure.
+     */
+    @Override
+    public ImportResult importUsers(Format format, InputStream in) throws IOException {
+        Importer importer = new Importer();
+        try {
+            if (format == Format.NDJSON) {
+                importNdjson(in, importer);
+            } else {
+                importBinary(in, importer);
+            }
+            importer.flush();
+        } finally {
+            if (usersCache != null) {
+                usersCache.clear();
+            }
+        }
+        log.info("Imported {} users, skipped {} invalid or duplicate ones", importer.imported, importer.skipped);
+        return new ImportResult(importer.imported, importer.skipped);
+    }
+
+    private void exportNdjson(UserSnapshot snapshot, OutputStream out) throws IOException {
+        Long after = null;
+        List<User> page;
+        do {
+            page = snapshot.findPage(after, PAGE_SIZE);
+            for (User user : page) {
+                out.write(userJsonCache.get(user));
+                out.write('\n');
+            }
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == PAGE_SIZE);
+    }
+
+    private void exportBinary(UserSnapshot snapshot, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream record = new DataOutputStream(buffer);
+        data.writeInt(BINARY_MAGIC);
+        Long after = null;
+        List<User> page;
+        do {
+            page = snapshot.findPage(after, PAGE_SIZE);
+            for (User user : page) {
+                buffer.reset();
+                record.writeLong(user.getId());
+                UserRecordCodec.writeUser(record, user);
+                data.writeInt(buffer.size());
+                buffer.writeTo(data);
+            }
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == PAGE_SIZE);
+        data.flush();
+    }
+
+    private void importNdjson(InputStream in, Importer importer) throws IOException {
+        try (MappingIterator<UserDto> users = userReader.readValues(in)) {
+            while (users.hasNextValue()) {
+                importer.add(users.nextValue());
+            }
+        } catch (JsonProcessingException ex) {
+            throw importer.malformed("Invalid JSON at line " + ex.getLocation().getLineNr(), ex);
+        }
+    }
+
+    private void importBinary(InputStream in, Importer importer) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        try {
+            if (data.readInt() != BINARY_MAGIC) {
+                throw importer.malformed("Not a binary user export", null);
+            }
+        } catch (EOFException ex) {
+            throw importer.malformed("Not a binary user export", ex);
+        }
+        byte[] bytes = new byte[256];
+        while (true) {
+            int length;
+            try {
+                length = data.readInt();
+            } catch (EOFException ex) {
+                return;
+            }
+            if (length < Long.BYTES || length > MAX_RECORD_BYTES) {
+                throw importer.malformed("Invalid record length " + length, null);
+            }
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            User user;
+            try {
+                data.readFully(bytes, 0, length);
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+                user = UserRecordCodec.readUser(record, record.readLong(), length - Long.BYTES);
+            } catch (EOFException ex) {
+                throw importer.malformed("Truncated record", ex);
+            } catch (IOException ex) {
+                throw importer.malformed("Invalid record: " + ex.getMessage(), ex);
+            }
+            importer.add(userMapper.toDto(user));
+        }
+    }
+
+    private final class Importer {
+
+        private final List<User> batch = new ArrayList<>(BATCH_SIZE);
+        private final long maxId = userRepository.maxId();
+        private long imported;
+        private long skipped;
+
+        /**
+         * Queues a user for the next batch, or skips it if it lacks a required
+         * field or brings an id the store cannot hold.
+         */
+        void add(UserDto userDto) {
+            Long id = userDto.getId();
+            if (!userDtoValidator.isValid(userDto) || id != null && (id <= 0 || id > maxId)) {
+                skipped++;
+                return;
+            }
+            batch.add(userMapper.toEntity(userDto));
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int saved = userRepository.saveAll(batch).size();
+            imported += saved;
+            skipped += batch.size() - saved;
+            batch.clear();
+        }
+
+        MalformedImportException malformed(String problem, Throwable cause) {
+            flush();
+            return new MalformedImportException(problem + "; " + imported + " users were imported before it", cause);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.macode101.exam.validation;
+
+import com.macode101.exam.model.UserDto;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code @NotBlank} constraints of {@link UserDto}, checked in plain code
+ * with the same messages. Bean Validation walks the DTO's constraint metadata
+ * and builds a violation set even when there is nothing to report; this
+ * scans the three required strings and allocates nothing for a valid DTO.
+ * The annotations stay for the paths that still go through Bean Validation.
+ * <p>
+ * {@link #forPatches()} checks partial updates instead: a field left out
+ * ({@code null}) is kept as it is, so only a blank one is rejected.
+ */
+public class UserDtoValidator implements Validator {
+
+    private final boolean patch;
+
+    public UserDtoValidator() {
+        this(false);
+    }
+
+    private UserDtoValidator(boolean patch) {
+        this.patch = patch;
+    }
+
+    public static UserDtoValidator forPatches() {
+        return new UserDtoValidator(true);
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return UserDto.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        UserDto userDto = (UserDto) target;
+        if (isRejected(userDto.getName())) {
+            errors.rejectValue("name", "NotBlank", UserDto.NAME_REQUIRED);
+        }
+        if (isRejected(userDto.getUsername())) {
+            errors.rejectValue("username", "NotBlank", UserDto.USERNAME_REQUIRED);
+        }
+        if (isRejected(userDto.getEmail())) {
+            errors.rejectValue("email", "NotBlank", UserDto.EMAIL_REQUIRED);
+        }
+    }
+
+    public boolean isValid(UserDto userDto) {
+        return !isRejected(userDto.getName()) && !isRejected(userDto.getUsername()) && !isRejected(userDto.getEmail());
+    }
+
+    /**
+     * Violations as {@code field: message}, sorted; an empty, immutable list
+     * for a valid DTO.
+     */
+    public List<String> violations(UserDto userDto) {
+        if (isValid(userDto)) {
+            return List.of();
+        }
+        List<String> violations = new ArrayList<>(3);
+        if (isRejected(userDto.getEmail())) {
+            violations.add("email: " + UserDto.EMAIL_REQUIRED);
+        }
+        if (isRejected(userDto.getName())) {
+            violations.add("name: " + UserDto.NAME_REQUIRED);
+        }
+        if (isRejected(userDto.getUsername())) {
+            violations.add("username: " + UserDto.USERNAME_REQUIRED);
+        }
+        return violations;
+    }
+
+    private boolean isRejected(String value) {
+        return patch ? value != null && isBlank(value) : isBlank(value);
+    }
+
+    /**
+     * Same as Hibernate Validator's {@code NotBlankValidator}, which trims
+     * with {@link String#trim()}, without the trimmed copy.
+     */
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
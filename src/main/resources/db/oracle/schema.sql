@@ -0,0 +1,19 @@
+-- Schema for the jpa/oracle profiles. The sequence increment must match
+-- User.ID_ALLOCATION_SIZE for Hibernate's pooled optimizer.
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id       NUMBER(19)    NOT NULL,
+    name     VARCHAR2(255) NOT NULL,
+    username VARCHAR2(255) NOT NULL,
+    email    VARCHAR2(255) NOT NULL,
+    phone    VARCHAR2(255),
+    website  VARCHAR2(255),
+    version  NUMBER(19)    DEFAULT 0 NOT NULL,
+    CONSTRAINT users_pk PRIMARY KEY (id),
+    CONSTRAINT users_username_uk UNIQUE (username),
+    CONSTRAINT users_email_uk UNIQUE (email)
+);
+
+-- Email lookups and uniqueness are case-insensitive.
+CREATE UNIQUE INDEX users_email_lower_uk ON users (LOWER(email));
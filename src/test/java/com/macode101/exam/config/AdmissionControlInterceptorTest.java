@@ -0,0 +1,86 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.controller.UserController;
+import com.macode101.exam.exception.GlobalExceptionHandler;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdmissionControlInterceptorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ConcurrencyLimiter reads = new ConcurrencyLimiter(2);
+    private final ConcurrencyLimiter writes = new ConcurrencyLimiter(1);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UserService userService = mock(UserService.class);
+        when(userService.getUserById(1L)).thenReturn(new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null));
+        AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(
+                new TokenBucketLimiter(2, 3, 100), reads, writes, "X-API-Key", Set.of("bulk-sync", "interactive"), clock::get);
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserController(userService))
+                .addInterceptors(interceptor)
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+    }
+
+    @Test
+    void clientOverItsRateShouldGet429WithRetryAfter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/users/1").header("X-API-Key", "bulk-sync")).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/users/1").header("X-API-Key", "bulk-sync"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value("Request rate limit exceeded"));
+        mockMvc.perform(get("/users/1").header("X-API-Key", "interactive")).andExpect(status().isOk());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        mockMvc.perform(get("/users/1").header("X-API-Key", "bulk-sync")).andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownApiKeysShouldShareTheRemoteAddressBucket() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/users/1").header("X-API-Key", "made-up-" + i)).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/users/1").header("X-API-Key", "made-up-3")).andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/users/1")).andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/users/1").header("X-API-Key", "interactive")).andExpect(status().isOk());
+    }
+
+    @Test
+    void writesOverTheirLimitShouldNotHoldUpReads() throws Exception {
+        assertThat(writes.tryAcquire()).isTrue();
+
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.message").value("Too many writes in progress"));
+        mockMvc.perform(get("/users/1")).andExpect(status().isOk());
+
+        assertThat(reads.inFlight()).isZero();
+        assertThat(writes.inFlight()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.macode101.exam.config;
+
+import com.macode101.exam.controller.ShardController;
+import com.macode101.exam.exception.GlobalExceptionHandler;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.ShardedUserRepository;
+import com.macode101.exam.repository.UserShard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ClusterSecretInterceptorTest {
+
+    private ShardedUserRepository repository;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ShardedUserRepository(0, Arrays.asList(new UserShard[1]), 64, new InMemoryUserRepository());
+        mockMvc = MockMvcBuilders.standaloneSetup(new ShardController(repository))
+                .addMappedInterceptors(new String[]{UserShard.PATH + "/**"}, new ClusterSecretInterceptor("s3cret"))
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.shutdown();
+    }
+
+    @Test
+    void shardEndpointsShouldRequireTheClusterSecret() throws Exception {
+        mockMvc.perform(get(UserShard.PATH + "/count"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Missing or wrong cluster secret"));
+        mockMvc.perform(put(UserShard.PATH + "/claims/USERNAME").param("value", "admin").param("id", "1")
+                        .header(UserShard.SECRET_HEADER, "guess"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get(UserShard.PATH + "/count").header(UserShard.SECRET_HEADER, "s3cret"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0"));
+    }
+}
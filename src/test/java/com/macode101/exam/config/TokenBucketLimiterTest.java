@@ -0,0 +1,58 @@
+package com.macode101.exam.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquireShouldAllowTheBurstThenTheSustainedRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5, 100);
+        long now = 42 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client", now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("client", now)).isEqualTo(SECOND / 10);
+
+        now += SECOND / 10;
+        assertThat(limiter.tryAcquire("client", now)).isZero();
+        assertThat(limiter.tryAcquire("client", now)).isPositive();
+
+        now += 10 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client", now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("client", now)).isPositive();
+    }
+
+    @Test
+    void tryAcquireShouldKeepClientsApart() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 100);
+
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+        assertThat(limiter.tryAcquire("a", 0)).isPositive();
+        assertThat(limiter.tryAcquire("b", 0)).isZero();
+    }
+
+    @Test
+    void newClientsShouldShareABucketOnlyWhileNoneIsIdle() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 2);
+        // Idle buckets are swept on the real clock's schedule.
+        long now = System.nanoTime();
+
+        assertThat(limiter.tryAcquire("a", now)).isZero();
+        assertThat(limiter.tryAcquire("b", now)).isZero();
+        assertThat(limiter.tryAcquire("c", now)).isZero();
+        assertThat(limiter.tryAcquire("d", now)).isPositive();
+
+        now += 2 * SECOND;
+        assertThat(limiter.tryAcquire("e", now)).isZero();
+        assertThat(limiter.clients()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.macode101.exam.controller;
+
+import com.macode101.exam.config.ChangeFeedConfig;
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.model.UserChangeEvent;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.service.UserChangeService;
+import com.macode101.exam.service.UserChangeSubscriber;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserChangeController.class)
+@AutoConfigureObservability(tracing = false)
+@Import(ChangeFeedConfig.class)
+class UserChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserChangeService userChangeService;
+
+    @Test
+    void streamChangesShouldSendEachChangeAsEventWithSequenceId() throws Exception {
+        when(userChangeService.subscribe(eq(41L), any())).thenAnswer(invocation -> {
+            UserChangeSubscriber subscriber = invocation.getArgument(1);
+            subscriber.onChange(new UserChangeEvent(42L, UserChangeEvent.Type.UPDATED, 1L, 3L,
+                    new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null)));
+            subscriber.onIdle();
+            subscriber.onChange(new UserChangeEvent(43L, UserChangeEvent.Type.DELETED, 2L, null, null));
+            subscriber.onExpired(new ChangesExpiredException(43L));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        MvcResult result = mockMvc.perform(get("/users/changes")
+                        .param("after", "41")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains(
+                "id:42\ndata:{\"sequence\":42,\"type\":\"UPDATED\",\"id\":1,\"version\":3,\"user\":{\"id\":1,"
+                        + "\"name\":\"John Doe\",\"username\":\"johndoe\",\"email\":\"john@example.com\"}}\n\n",
+                ":keep-alive\n\n",
+                "id:43\ndata:{\"sequence\":43,\"type\":\"DELETED\",\"id\":2}\n\n",
+                "event:reset\ndata:Changes after sequence 43 are no longer available");
+    }
+
+    @Test
+    void streamChangesShouldResumeFromLastEventIdBeforeAfterParameter() throws Exception {
+        when(userChangeService.subscribe(eq(7L), any())).thenReturn(new CompletableFuture<>());
+
+        mockMvc.perform(get("/users/changes")
+                        .param("after", "3")
+                        .header("Last-Event-ID", "7")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(userChangeService).subscribe(eq(7L), any());
+    }
+
+    @Test
+    void streamChangesShouldSendOnlyResetEvent_WhenCursorHasExpired() throws Exception {
+        when(userChangeService.subscribe(eq(5L), any())).thenThrow(new ChangesExpiredException(5L));
+
+        MvcResult result = mockMvc.perform(get("/users/changes")
+                        .param("after", "5")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith(
+                        "event:reset\ndata:Changes after sequence 5 are no longer available")));
+    }
+
+    @Test
+    void streamChangesShouldReturn503_WhenSubscribersAreAtCapacity() throws Exception {
+        when(userChangeService.subscribe(eq(5L), any())).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(get("/users/changes")
+                        .param("after", "5")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
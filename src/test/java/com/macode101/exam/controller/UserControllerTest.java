@@ -1,24 +1,52 @@
 package com.macode101.exam.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.InvalidUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.BatchItemResult;
+import com.macode101.exam.model.EncodedUsers;
 import com.macode101.exam.model.UserDto;
 import com.macode101.exam.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@AutoConfigureObservability(tracing = false)
 class UserControllerTest {
 
     @Autowired
@@ -30,13 +58,16 @@ class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void getAllUsersShouldReturnAllUsers_WhenUsersExist() throws Exception {
         List<UserDto> users = Arrays.asList(
             new UserDto(1L, "John Doe", "johndoe", "john@example.com", "123-456-7890", "www.johndoe.com"),
             new UserDto(2L, "Jane Smith", "janesmith", "jane@example.com", "098-765-4321", "www.janesmith.com")
         );
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getAllUsersEncoded()).thenReturn(encoded(users));
 
         mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
@@ -50,6 +81,143 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[1].name").value("Jane Smith"));
     }
 
+    @Test
+    void getAllUsersShouldWriteEncodedUsersAsCompactArray() throws Exception {
+        when(userService.getAllUsersEncoded()).thenReturn(new EncodedUsers(List.of(
+                "{\"id\":1}".getBytes(StandardCharsets.UTF_8),
+                "{\"id\":2}".getBytes(StandardCharsets.UTF_8)
+        ), 2L));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().longValue("Content-Length", 19))
+                .andExpect(content().string("[{\"id\":1},{\"id\":2}]"));
+    }
+
+    @Test
+    void getAllUsersShouldWriteEmptyArray_WhenNoUsersExist() throws Exception {
+        when(userService.getAllUsersEncoded()).thenReturn(encoded(List.of()));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+    }
+
+    @Test
+    void getAllUsersShouldReturnPageWithNextLink_WhenLimitIsReached() throws Exception {
+        List<UserDto> page = Arrays.asList(
+            new UserDto(3L, "John Doe", "johndoe", "john@example.com", null, null),
+            new UserDto(4L, "Jane Smith", "janesmith", "jane@example.com", null, null)
+        );
+        when(userService.getUsersEncoded(2L, 2)).thenReturn(encoded(page));
+
+        mockMvc.perform(get("/users").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "</users?after=4&limit=2>; rel=\"next\""))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(4));
+    }
+
+    @Test
+    void getAllUsersShouldOmitNextLink_WhenLastPage() throws Exception {
+        when(userService.getUsersEncoded(isNull(), eq(100)))
+                .thenReturn(encoded(List.of(new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null))));
+
+        mockMvc.perform(get("/users").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void getAllUsersShouldReturn400WhenLimitIsOutOfRange() throws Exception {
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllUsersShouldFilterByUsername() throws Exception {
+        when(userService.findUserByUsername("johndoe"))
+                .thenReturn(Optional.of(new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null)));
+
+        mockMvc.perform(get("/users").param("username", "johndoe"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].username").value("johndoe"));
+    }
+
+    @Test
+    void searchUsersShouldReturnRankedMatches() throws Exception {
+        when(userService.searchUsers("Cle", UserController.DEFAULT_SEARCH_LIMIT)).thenReturn(List.of(
+            new UserDto(3L, "Clementine Bauch", "Samantha", "Nathan@yesenia.net", null, null)
+        ));
+
+        mockMvc.perform(get("/users/search").param("q", "Cle"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Clementine Bauch"));
+    }
+
+    @Test
+    void searchUsersShouldReturn400_WhenQueryIsBlankOrLimitTooLarge() throws Exception {
+        mockMvc.perform(get("/users/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users/search").param("q", "Cle").param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).searchUsers(any(), anyInt());
+    }
+
+    @Test
+    void getAllUsersShouldReturnEmptyList_WhenEmailIsUnknown() throws Exception {
+        when(userService.findUserByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/users").param("email", "nobody@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void createUserShouldReturn409WhenUsernameIsTaken() throws Exception {
+        UserDto inputUser = new UserDto(null, "John Doe", "johndoe", "john@example.com", null, null);
+        when(userService.createUser(any(UserDto.class))).thenThrow(new DuplicateUserException("username", "johndoe"));
+
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(inputUser)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value("User already exists with username: johndoe"));
+
+        assertThat(meterRegistry.get("users.errors")
+                .tag("exception", "DuplicateUserException")
+                .tag("status", "409")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void streamAllUsersShouldWriteOneJsonObjectPerLine() throws Exception {
+        when(userService.getUsersEncoded(isNull(), eq(UserController.STREAM_PAGE_SIZE))).thenReturn(encoded(Arrays.asList(
+            new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null),
+            new UserDto(2L, "Jane Smith", "janesmith", "jane@example.com", null, null)
+        )));
+
+        MvcResult result = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"John Doe\",\"username\":\"johndoe\",\"email\":\"john@example.com\"}\n"
+                        + "{\"id\":2,\"name\":\"Jane Smith\",\"username\":\"janesmith\",\"email\":\"jane@example.com\"}\n"));
+
+        verify(userService).getUsersEncoded(null, UserController.STREAM_PAGE_SIZE);
+    }
+
     @Test
     void createUserShouldReturnCreatedUserWhenValidData() throws Exception {
         UserDto inputUser = new UserDto(null, "John Doe", "johndoe", "john@example.com", "123-456-7890", "www.johndoe.com");
@@ -87,6 +255,19 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void createUserShouldReportEveryBlankFieldWithItsMessage() throws Exception {
+        UserDto invalidUser = new UserDto(null, " \t", "johndoe", null, null, null);
+
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(invalidUser)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", containsInAnyOrder(
+                        "name: " + UserDto.NAME_REQUIRED, "email: " + UserDto.EMAIL_REQUIRED)));
+        verifyNoInteractions(userService);
+    }
+
     @Test
     void createUserShouldReturn400WhenEmailIsMissing() throws Exception {
         UserDto invalidUser = new UserDto(null, "John Doe", "johndoe", "", "123-456-7890", "www.johndoe.com");
@@ -96,4 +277,218 @@ class UserControllerTest {
                 .content(objectMapper.writeValueAsString(invalidUser)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void createUsersShouldReturnPerItemResults() throws Exception {
+        List<UserDto> batch = Arrays.asList(
+            new UserDto(null, "John Doe", "johndoe", "john@example.com", null, null),
+            new UserDto(null, "", "blank", "blank@example.com", null, null)
+        );
+        when(userService.createUsers(anyList())).thenReturn(Arrays.asList(
+            new BatchItemResult(0, 201, new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null)),
+            new BatchItemResult(1, 400, null, List.of("name: Name is required and cannot be blank"))
+        ));
+
+        mockMvc.perform(post("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].user.username").value("johndoe"))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].errors[0]").value("name: Name is required and cannot be blank"));
+    }
+
+    @Test
+    void deleteUsersShouldReturnPerItemResults() throws Exception {
+        when(userService.deleteUsers(List.of(1L, 999L))).thenReturn(Arrays.asList(
+            new BatchItemResult(0, 204, 1L, null),
+            new BatchItemResult(1, 404, 999L, List.of("User not found with id: 999"))
+        ));
+
+        mockMvc.perform(delete("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 999]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(204))
+                .andExpect(jsonPath("$[1].status").value(404));
+    }
+
+    @Test
+    void createUsersShouldReturn400WhenBatchIsEmpty() throws Exception {
+        mockMvc.perform(post("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).createUsers(anyList());
+    }
+
+    @Test
+    void batchWritesShouldReturn400ForNullUsers() throws Exception {
+        String batch = "[{\"name\":\"John Doe\",\"username\":\"johndoe\",\"email\":\"john@example.com\"},null]";
+
+        mockMvc.perform(post("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").value(containsString("[1]")));
+        mockMvc.perform(put("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).createUsers(anyList());
+        verify(userService, never()).updateUsers(anyList());
+    }
+
+    @Test
+    void patchUserShouldReturnFullUserByDefault() throws Exception {
+        UserDto patched = new UserDto(1L, "Johnny", "johndoe", "john@example.com", null, null);
+        when(userService.patchUser(eq(1L), any(UserDto.class), eq(false))).thenReturn(patched);
+
+        mockMvc.perform(patch("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Johnny\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Preference-Applied"))
+                .andExpect(jsonPath("$.name").value("Johnny"))
+                .andExpect(jsonPath("$.username").value("johndoe"));
+    }
+
+    @Test
+    void patchUserShouldReportBlankFieldsLikeTheBatchEndpoints() throws Exception {
+        when(userService.patchUser(eq(1L), any(UserDto.class), eq(false)))
+                .thenThrow(new InvalidUserException(List.of("username: " + UserDto.USERNAME_REQUIRED)));
+
+        mockMvc.perform(patch("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \" \"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(InvalidUserException.MESSAGE))
+                .andExpect(jsonPath("$.errors", contains("username: " + UserDto.USERNAME_REQUIRED)));
+    }
+
+    @Test
+    void patchUserShouldReturnOnlyChangedFields_WhenMinimalReturnIsPreferred() throws Exception {
+        when(userService.patchUser(eq(1L), any(UserDto.class), eq(true)))
+                .thenReturn(new UserDto(1L, "Johnny", null, null, null, null));
+
+        mockMvc.perform(patch("/users/1")
+                .header("Prefer", "return=minimal")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Johnny\", \"username\": \"johndoe\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Preference-Applied", "return=minimal"))
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.name").value("Johnny"))
+                .andExpect(jsonPath("$.username").doesNotExist());
+    }
+
+    @Test
+    void getUserByIdShouldReturnVersionAsETag() throws Exception {
+        UserDto user = new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null, 3L);
+        when(userService.getUserById(1L)).thenReturn(user);
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void getUserByIdShouldReturn304WithoutLoadingUser_WhenETagMatches() throws Exception {
+        when(userService.getUserVersion(1L)).thenReturn(OptionalLong.of(3L));
+
+        mockMvc.perform(get("/users/1").header("If-None-Match", "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(userService, never()).getUserById(anyLong());
+    }
+
+    @Test
+    void getUserByIdShouldReturnUser_WhenETagIsStale() throws Exception {
+        when(userService.getUserVersion(1L)).thenReturn(OptionalLong.of(4L));
+        when(userService.getUserById(1L))
+                .thenReturn(new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null, 4L));
+
+        mockMvc.perform(get("/users/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.username").value("johndoe"));
+    }
+
+    @Test
+    void getAllUsersShouldReturn304_WhenCollectionIsUnchanged() throws Exception {
+        when(userService.getUsersVersion()).thenReturn(OptionalLong.of(42L));
+
+        mockMvc.perform(get("/users").header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified());
+
+        verify(userService, never()).getAllUsersEncoded();
+    }
+
+    @Test
+    void getAllUsersShouldTagResponseWithCollectionVersion() throws Exception {
+        when(userService.getUsersVersion()).thenReturn(OptionalLong.of(42L));
+        when(userService.getAllUsersEncoded()).thenReturn(encoded(List.of()));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"42\""));
+    }
+
+    @Test
+    void updateUserShouldRequireExpectedVersion_WhenIfMatchIsSent() throws Exception {
+        UserDto request = new UserDto(null, "John Doe", "johndoe", "john@example.com", null, null);
+        when(userService.updateUser(eq(1L), any(UserDto.class), eq(3L)))
+                .thenReturn(new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null, 4L));
+
+        mockMvc.perform(put("/users/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(userService, never()).updateUser(anyLong(), any(UserDto.class));
+    }
+
+    @Test
+    void updateUserShouldReturn412_WhenIfMatchIsWeak() throws Exception {
+        UserDto request = new UserDto(null, "John Doe", "johndoe", "john@example.com", null, null);
+
+        mockMvc.perform(put("/users/1")
+                .header("If-Match", "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(userService, never()).updateUser(anyLong(), any(UserDto.class), anyLong());
+    }
+
+    @Test
+    void deleteUserShouldReturn412_WhenVersionDoesNotMatch() throws Exception {
+        doThrow(new UserVersionMismatchException(1L, 3L, 4L)).when(userService).deleteUser(1L, 3L);
+
+        mockMvc.perform(delete("/users/1").header("If-Match", "\"3\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412))
+                .andExpect(jsonPath("$.message").value("User with id 1 is at version 4, not 3"));
+
+        verify(userService, never()).deleteUser(1L);
+    }
+
+    private EncodedUsers encoded(List<UserDto> users) throws Exception {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        List<byte[]> json = new ArrayList<>();
+        for (UserDto user : users) {
+            json.add(writer.writeValueAsBytes(user));
+        }
+        return new EncodedUsers(json, users.isEmpty() ? null : users.get(users.size() - 1).getId());
+    }
 }
@@ -0,0 +1,158 @@
+package com.macode101.exam.controller;
+
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.ReactiveExceptionHandler;
+import com.macode101.exam.exception.UserNotFoundException;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.service.ReactiveUserService;
+import jakarta.validation.Validation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserRoutesTest {
+
+    private ReactiveUserService userService;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(ReactiveUserService.class);
+        UserHandler handler = new UserHandler(userService, Validation.buildDefaultValidatorFactory().getValidator());
+        client = WebTestClient.bindToRouterFunction(UserRoutes.userRoutes(handler, new ReactiveExceptionHandler(new SimpleMeterRegistry()))).build();
+    }
+
+    @Test
+    void getAllUsersShouldStreamAllUsers() {
+        when(userService.getAllUsers()).thenReturn(Flux.just(
+            new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null),
+            new UserDto(2L, "Jane Smith", "janesmith", "jane@example.com", null, null)
+        ));
+
+        client.get().uri("/users")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].username").isEqualTo("johndoe")
+                .jsonPath("$[1].username").isEqualTo("janesmith");
+    }
+
+    @Test
+    void getAllUsersShouldStreamNdjson() {
+        when(userService.getAllUsers()).thenReturn(Flux.just(
+            new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null)
+        ));
+
+        client.get().uri("/users").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(UserDto.class).hasSize(1);
+    }
+
+    @Test
+    void getAllUsersShouldReturn400WhenLimitIsOutOfRange() {
+        client.get().uri("/users?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid parameter provided")
+                .jsonPath("$.status").isEqualTo(400);
+    }
+
+    @Test
+    void getUserByIdShouldReturn404WithErrorResponse() {
+        when(userService.getUserById(999L)).thenReturn(Mono.error(new UserNotFoundException(999L)));
+
+        client.get().uri("/users/999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("User not found with id: 999")
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.timestamp").exists();
+    }
+
+    @Test
+    void getUserByIdShouldReturn400WhenIdIsNotANumber() {
+        client.get().uri("/users/abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid parameter type provided")
+                .jsonPath("$.errors[0]").isEqualTo("Invalid value 'abc' for parameter 'id'. Expected type: Long");
+    }
+
+    @Test
+    void createUserShouldReturnCreatedUser() {
+        UserDto created = new UserDto(1L, "John Doe", "johndoe", "john@example.com", null, null);
+        when(userService.createUser(any(UserDto.class))).thenReturn(Mono.just(created));
+
+        client.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserDto(null, "John Doe", "johndoe", "john@example.com", null, null))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1);
+    }
+
+    @Test
+    void createUserShouldReturn400WhenNameIsMissing() {
+        client.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserDto(null, "", "johndoe", "john@example.com", null, null))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation failed for the provided data")
+                .jsonPath("$.errors[0]").isEqualTo("name: Name is required and cannot be blank");
+
+        verify(userService, never()).createUser(any());
+    }
+
+    @Test
+    void createUserShouldReturn400WhenJsonIsMalformed() {
+        client.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{not json")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid JSON format in request body");
+    }
+
+    @Test
+    void updateUserShouldReturn409WhenUsernameIsTaken() {
+        when(userService.updateUser(any(), any(UserDto.class)))
+                .thenReturn(Mono.error(new DuplicateUserException("username", "johndoe")));
+
+        client.put().uri("/users/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserDto(null, "John Doe", "johndoe", "john@example.com", null, null))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("User already exists with username: johndoe");
+    }
+
+    @Test
+    void deleteUserShouldReturnNoContent() {
+        when(userService.deleteUser(1L)).thenReturn(Mono.empty());
+
+        client.delete().uri("/users/1")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+}
@@ -0,0 +1,44 @@
+package com.macode101.exam.exception;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.model.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorResponseTemplateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Test
+    void renderShouldMatchJacksonForTheSameResponse() throws Exception {
+        ErrorResponseTemplate template = new ErrorResponseTemplate(UserNotFoundException.ID_MESSAGE, HttpStatus.NOT_FOUND);
+
+        for (long id : new long[] {0, 7, 10, 999, -1, -42, 1835337800028160000L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            String expected = objectMapper.writeValueAsString(
+                    new ErrorResponse(new UserNotFoundException(id).getMessage(), 404, 1700000000123L));
+
+            assertThat(new String(template.render(id, 1700000000123L), StandardCharsets.UTF_8)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void renderShouldEscapeThePrefix() throws Exception {
+        ErrorResponseTemplate template = new ErrorResponseTemplate("Say \"é\" ", HttpStatus.BAD_REQUEST);
+
+        assertThat(new String(template.render(5, 0), StandardCharsets.UTF_8))
+                .isEqualTo(objectMapper.writeValueAsString(new ErrorResponse("Say \"é\" 5", 400, 0)));
+    }
+
+    @Test
+    void domainExceptionsShouldNotCaptureStackTraces() {
+        assertThat(new UserNotFoundException(1L).getStackTrace()).isEmpty();
+        assertThat(new DuplicateUserException("username", "johndoe").getStackTrace()).isEmpty();
+        assertThat(new UserVersionMismatchException(1L).getStackTrace()).isEmpty();
+    }
+}
@@ -0,0 +1,45 @@
+package com.macode101.exam.exception;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class LogSamplerTest {
+
+    @Test
+    void allowShouldLetThroughAtMostThePermitsOfAWindow() {
+        LogSampler sampler = new LogSampler(mock(Logger.class), 3);
+
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.allow()) {
+                allowed++;
+            }
+        }
+
+        // The loop may straddle a window boundary on a very slow machine.
+        assertThat(allowed).isBetween(3, 6);
+    }
+
+    @Test
+    void allowShouldReportDroppedLinesInTheNextWindow() throws InterruptedException {
+        Logger logger = mock(Logger.class);
+        LogSampler sampler = new LogSampler(logger, 1);
+
+        assertThat(sampler.allow()).isTrue();
+        assertThat(sampler.allow()).isFalse();
+        assertThat(sampler.allow()).isFalse();
+        verify(logger, never()).warn(anyString(), eq(2L), eq(1));
+
+        Thread.sleep(1100);
+
+        assertThat(sampler.allow()).isTrue();
+        verify(logger).warn(anyString(), eq(2L), eq(1));
+    }
+}
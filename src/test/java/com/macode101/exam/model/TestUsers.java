@@ -0,0 +1,18 @@
+package com.macode101.exam.model;
+
+/**
+ * Users for tests. Public because tests of several packages share it.
+ */
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    /**
+     * A new user, without an id, whose email is derived from
+     * {@code username}.
+     */
+    public static User newUser(String username) {
+        return new User(null, "Test User", username, username + "@example.com", null, null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.macode101.exam.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void nodeForShouldSpreadSequentialIdsEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+        for (long id = 1; id <= KEYS; id++) {
+            counts[ring.nodeFor(ConsistentHashRing.hash(id))]++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween(KEYS / 4 * 8 / 10, KEYS / 4 * 12 / 10);
+        }
+    }
+
+    @Test
+    void addingNodeShouldOnlyMoveKeysToTheNewNode() {
+        ConsistentHashRing before = new ConsistentHashRing(4, 128);
+        ConsistentHashRing after = new ConsistentHashRing(5, 128);
+        int moved = 0;
+        for (long id = 1; id <= KEYS; id++) {
+            long hash = ConsistentHashRing.hash(id);
+            int owner = after.nodeFor(hash);
+            if (owner != before.nodeFor(hash)) {
+                assertThat(owner).isEqualTo(4);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(KEYS / 5 * 8 / 10, KEYS / 5 * 12 / 10);
+    }
+
+    @Test
+    void stringHashShouldBeStable() {
+        assertThat(ConsistentHashRing.hash("johndoe")).isEqualTo(ConsistentHashRing.hash(new String("johndoe")));
+        assertThat(ConsistentHashRing.hash("johndoe")).isNotEqualTo(ConsistentHashRing.hash("janedoe"));
+    }
+}
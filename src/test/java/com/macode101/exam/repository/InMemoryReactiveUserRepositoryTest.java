@@ -0,0 +1,72 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class InMemoryReactiveUserRepositoryTest {
+
+    private InMemoryUserRepository store;
+    private InMemoryReactiveUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        store = spy(new InMemoryUserRepository());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < InMemoryReactiveUserRepository.PAGE_SIZE * 2 + 10; i++) {
+            users.add(new User(null, "User " + i, "user" + i, "user" + i + "@example.com", null, null));
+        }
+        store.saveAll(users);
+        repository = new InMemoryReactiveUserRepository(store);
+    }
+
+    @Test
+    void findAllShouldOnlyFetchPagesOnDemand() {
+        StepVerifier.create(repository.findAll(), 10)
+                .expectNextCount(10)
+                .thenCancel()
+                .verify();
+
+        verify(store, times(1)).findPage(any(), anyInt());
+    }
+
+    @Test
+    void findAllShouldEmitEveryUserInIdOrder() {
+        StepVerifier.create(repository.findAll().map(User::getId).buffer(Integer.MAX_VALUE))
+                .expectNextMatches(ids -> ids.size() == InMemoryReactiveUserRepository.PAGE_SIZE * 2 + 10
+                        && ids.get(0) == 1L
+                        && ids.get(ids.size() - 1) == InMemoryReactiveUserRepository.PAGE_SIZE * 2 + 10L)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByIdShouldCompleteEmptyWhenMissing() {
+        StepVerifier.create(repository.findById(999_999L)).verifyComplete();
+    }
+
+    @Test
+    void storeCallsShouldNotRunOnTheSubscribingThread() {
+        AtomicReference<String> thread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(store).findById(1L);
+
+        StepVerifier.create(repository.findById(1L)).expectNextCount(1).verifyComplete();
+
+        assertThat(thread.get()).startsWith("boundedElastic");
+    }
+}
@@ -0,0 +1,481 @@
+package com.macode101.exam.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.macode101.exam.model.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InMemoryUserRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+
+    private InMemoryUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryUserRepository();
+        repository.initializeData();
+    }
+
+    @Test
+    void findAllShouldReuseSnapshotUntilStoreIsModified() {
+        List<User> first = repository.findAll();
+        List<User> second = repository.findAll();
+
+        assertThat(first).hasSize(5);
+        assertThat(second).isSameAs(first);
+
+        repository.save(newUser("snapshot"));
+        List<User> third = repository.findAll();
+
+        assertThat(third).isNotSameAs(first).hasSize(6);
+        assertThat(first).hasSize(5);
+    }
+
+    @Test
+    void findAllShouldNotBeRebuiltWhenDeletingMissingId() {
+        List<User> before = repository.findAll();
+
+        repository.deleteById(999L);
+
+        assertThat(repository.findAll()).isSameAs(before);
+    }
+
+    @Test
+    void findPageShouldWalkUsersInIdOrderAfterCursor() {
+        assertThat(repository.findPage(null, 2)).extracting(User::getId).containsExactly(1L, 2L);
+        assertThat(repository.findPage(2L, 2)).extracting(User::getId).containsExactly(3L, 4L);
+        assertThat(repository.findPage(4L, 2)).extracting(User::getId).containsExactly(5L);
+        assertThat(repository.findPage(5L, 2)).isEmpty();
+    }
+
+    @Test
+    void saveAllShouldReserveContiguousIdsAndSkipDuplicates() {
+        User first = newUser("first");
+        User duplicate = newUser("Bret");
+        User second = newUser("second");
+
+        List<User> saved = repository.saveAll(List.of(first, duplicate, second));
+
+        assertThat(saved).containsExactly(first, second);
+        assertThat(first.getId()).isEqualTo(6L);
+        assertThat(second.getId()).isEqualTo(8L);
+        assertThat(repository.existsById(7L)).isFalse();
+        assertThat(repository.findByUsername("Bret")).get().extracting(User::getId).isEqualTo(1L);
+        assertThat(repository.save(newUser("third")).getId()).isEqualTo(9L);
+    }
+
+    @Test
+    void savingExplicitIdsShouldKeepGeneratedIdsPastThem() {
+        User explicit = newUser("explicit");
+        explicit.setId(20L);
+        repository.save(explicit);
+        User batched = newUser("batched");
+        batched.setId(30L);
+
+        repository.saveAll(List.of(newUser("generated"), batched));
+
+        assertThat(repository.findByUsername("generated")).get().extracting(User::getId).isEqualTo(31L);
+        assertThat(repository.save(newUser("next")).getId()).isEqualTo(32L);
+    }
+
+    @Test
+    void deleteAllByIdShouldReturnOnlyExistingIds() {
+        List<Long> deleted = repository.deleteAllById(List.of(1L, 3L, 999L));
+
+        assertThat(deleted).containsExactly(1L, 3L);
+        assertThat(repository.findAll()).extracting(User::getId).containsExactly(2L, 4L, 5L);
+        assertThat(repository.findByUsername("Bret")).isEmpty();
+    }
+
+    @Test
+    void concurrentSavesShouldAssignUniqueIdsWithoutLosingWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    User saved = repository.save(newUser("user-" + thread + "-" + i));
+                    ids.add(saved.getId());
+                    assertThat(repository.findById(saved.getId())).containsSame(saved);
+                    if (i % 100 == 0) {
+                        repository.findAll();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(ids).hasSize(THREADS * OPERATIONS_PER_THREAD);
+        assertThat(repository.findAll()).hasSize(5 + THREADS * OPERATIONS_PER_THREAD);
+    }
+
+    @Test
+    void snapshotShouldKeepSeeingTheStoreAsOfWhenItOpened() {
+        List<User> before = repository.findAll();
+
+        try (UserSnapshot snapshot = repository.snapshot()) {
+            repository.update(1L, user -> user.setName("renamed"));
+            repository.deleteById(2L);
+            repository.save(newUser("later"));
+
+            assertThat(snapshot.findPage(null, 100)).containsExactlyElementsOf(before);
+            assertThat(snapshot.findPage(1L, 1)).extracting(User::getId).containsExactly(2L);
+        }
+        assertThat(repository.findAll()).extracting(User::getId).containsExactly(1L, 3L, 4L, 5L, 6L);
+        assertThat(repository.findById(1L)).get().extracting(User::getName).isEqualTo("renamed");
+    }
+
+    @Test
+    void reclaimShouldKeepVersionsUntilNoSnapshotCanSeeThem() throws Exception {
+        UserSnapshot snapshot = repository.snapshot();
+        repository.update(1L, user -> user.setName("first"));
+        repository.update(1L, user -> user.setName("second"));
+        repository.deleteById(2L);
+
+        repository.reclaimVersions();
+        // Both old versions of user 1, and user 2 with its delete.
+        assertThat(repository.retainedVersions()).isEqualTo(4);
+        assertThat(snapshot.findPage(null, 2)).extracting(User::getName)
+                .containsExactly("Leanne Graham", "Ervin Howell");
+
+        snapshot.close();
+        // The background reclaimer may be part-way through the same chains.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (repository.retainedVersions() > 0 && System.nanoTime() < deadline) {
+            repository.reclaimVersions();
+            Thread.sleep(1);
+        }
+        assertThat(repository.retainedVersions()).isZero();
+        assertThat(repository.findPage(null, 2)).extracting(User::getName).containsExactly("second", "Clementine Bauch");
+    }
+
+    @Test
+    void findAllShouldNeverSeeALaterWriteWithoutAnEarlierOne() throws Exception {
+        List<User> filler = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            filler.add(newUser("filler-" + i));
+        }
+        repository.saveAll(filler);
+        long last = repository.save(newUser("last")).getId();
+
+        // Writes alternate between the first and the last user, so a consistent
+        // view has both at the same step or the first one step ahead.
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int step = 1; running.get(); step++) {
+                String name = String.valueOf(step);
+                repository.update(1L, user -> user.setName(name));
+                repository.update(last, user -> user.setName(name));
+            }
+        });
+        repository.update(1L, user -> user.setName("0"));
+        repository.update(last, user -> user.setName("0"));
+        writer.start();
+        try {
+            for (int read = 0; read < 200; read++) {
+                List<User> all = repository.findAll();
+                long first = Long.parseLong(all.get(0).getName());
+                long lastStep = Long.parseLong(all.get(all.size() - 1).getName());
+                assertThat(first - lastStep).isBetween(0L, 1L);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void concurrentUpdatesAndDeletesShouldLeaveStoreConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            long id = t % 5 + 1;
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    User user = newUser("updated-" + thread + "-" + i);
+                    user.setId(id);
+                    repository.save(user);
+                    if (i % 10 == 0) {
+                        repository.deleteById(id);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<User> snapshot = repository.findAll();
+        assertThat(snapshot).doesNotContainNull();
+        assertThat(snapshot).allSatisfy(user -> {
+            assertThat(repository.existsById(user.getId())).isTrue();
+            assertThat(repository.findByUsername(user.getUsername())).containsSame(user);
+            assertThat(repository.findByEmail(user.getEmail())).containsSame(user);
+        });
+    }
+
+    @Test
+    void findByUsernameAndEmailShouldUseIndexes() {
+        assertThat(repository.findByUsername("Bret")).get().extracting(User::getId).isEqualTo(1L);
+        assertThat(repository.findByEmail("shanna@MELISSA.tv")).get().extracting(User::getId).isEqualTo(2L);
+        assertThat(repository.findByUsername("bret")).isEmpty();
+        assertThat(repository.findByEmail("nobody@example.com")).isEmpty();
+    }
+
+    @Test
+    void saveShouldRejectDuplicateUsernameOrEmail() {
+        User duplicateUsername = newUser("Bret");
+        User duplicateEmail = newUser("fresh");
+        duplicateEmail.setEmail("SINCERE@april.biz");
+
+        assertThatThrownBy(() -> repository.save(duplicateUsername))
+                .isInstanceOf(DuplicateUserException.class)
+                .hasMessage("User already exists with username: Bret");
+        assertThatThrownBy(() -> repository.save(duplicateEmail))
+                .isInstanceOf(DuplicateUserException.class)
+                .hasMessage("User already exists with email: SINCERE@april.biz");
+
+        assertThat(repository.findByUsername("fresh")).isEmpty();
+        assertThat(repository.findAll()).hasSize(5);
+    }
+
+    @Test
+    void updateAndDeleteShouldReleaseIndexedKeys() {
+        User renamed = newUser("renamed");
+        renamed.setId(1L);
+        repository.save(renamed);
+
+        assertThat(repository.findByUsername("Bret")).isEmpty();
+        assertThat(repository.findByEmail("Sincere@april.biz")).isEmpty();
+        assertThat(repository.findByUsername("renamed")).containsSame(renamed);
+
+        repository.deleteById(1L);
+
+        assertThat(repository.findByUsername("renamed")).isEmpty();
+        assertThat(repository.save(newUser("renamed")).getId()).isEqualTo(6L);
+    }
+
+    @Test
+    void updateShouldReplaceStoredUserWithoutMutatingIt() {
+        User original = repository.findById(1L).orElseThrow();
+
+        Optional<User> updated = repository.update(1L, user -> {
+            user.setUsername("renamed");
+            user.setId(99L);
+        });
+
+        assertThat(updated).get().extracting(User::getId, User::getUsername).containsExactly(1L, "renamed");
+        assertThat(original.getUsername()).isEqualTo("Bret");
+        assertThat(repository.findById(1L)).containsSame(updated.get());
+        assertThat(repository.findByUsername("Bret")).isEmpty();
+        assertThat(repository.findByUsername("renamed")).containsSame(updated.get());
+        assertThat(repository.update(999L, user -> user.setName("ghost"))).isEmpty();
+    }
+
+    @Test
+    void savesShouldBumpUserAndStoreVersions() {
+        long storeVersion = repository.version().orElseThrow();
+        long version = repository.findVersionById(1L).orElseThrow();
+
+        repository.update(1L, user -> user.setName("renamed"));
+        repository.save(new User(1L, "again", "Bret", "Sincere@april.biz", null, null));
+
+        assertThat(repository.findVersionById(1L)).hasValue(version + 2);
+        assertThat(repository.findById(1L)).get().extracting(User::getVersion).isEqualTo(version + 2);
+        assertThat(repository.findVersionById(999L)).isEmpty();
+        assertThat(repository.version()).hasValue(storeVersion + 2);
+    }
+
+    @Test
+    void newUsersShouldStartAboveEveryVersionIssuedEvenByAnEarlierRun() {
+        long storeVersion = repository.version().orElseThrow();
+        User created = repository.save(newUser("created"));
+        // Store versions are seeded from the clock, which a restart finds past every earlier write.
+        while (System.currentTimeMillis() <= created.getVersion()) {
+            Thread.onSpinWait();
+        }
+
+        InMemoryUserRepository restarted = new InMemoryUserRepository();
+        restarted.initializeData();
+        User sameId = restarted.save(newUser("other"));
+
+        assertThat(created.getVersion()).isGreaterThan(storeVersion);
+        assertThat(sameId.getId()).isEqualTo(created.getId());
+        assertThat(sameId.getVersion()).isGreaterThan(created.getVersion());
+    }
+
+    @Test
+    void deleteByIdWithVersionShouldOnlyDeleteThatVersion() {
+        long version = repository.findVersionById(1L).orElseThrow();
+        repository.update(1L, user -> user.setName("renamed"));
+
+        assertThatThrownBy(() -> repository.deleteById(1L, version))
+                .isInstanceOf(UserVersionMismatchException.class);
+        assertThat(repository.existsById(1L)).isTrue();
+
+        assertThat(repository.deleteById(1L, version + 1)).isTrue();
+        assertThat(repository.deleteById(1L, version + 1)).isFalse();
+        assertThat(repository.findByUsername("Bret")).isEmpty();
+    }
+
+    @Test
+    void mutationsShouldBePublishedToChangeLogInOrder() {
+        UserChangeLog changeLog = new UserChangeLog(16);
+        InMemoryUserRepository published = new InMemoryUserRepository(null, changeLog);
+        published.initializeData();
+        long seeded = changeLog.lastSequence();
+
+        published.update(1L, user -> user.setName("renamed"));
+        published.deleteById(2L);
+        published.deleteById(999L);
+        assertThatThrownBy(() -> published.save(newUser("Bret"))).isInstanceOf(DuplicateUserException.class);
+
+        assertThat(changeLog.readAfter(seeded, 10))
+                .extracting(UserChangeLog.Change::type, UserChangeLog.Change::userId)
+                .containsExactly(tuple(UserChangeEvent.Type.UPDATED, 1L), tuple(UserChangeEvent.Type.DELETED, 2L));
+        assertThat(changeLog.readAfter(seeded, 1).get(0).user())
+                .isSameAs(published.findById(1L).orElseThrow());
+    }
+
+    @Test
+    void updateShouldRejectTakingAnotherUsersKeys() {
+        User original = repository.findById(1L).orElseThrow();
+
+        assertThatThrownBy(() -> repository.update(1L, user -> user.setEmail("shanna@melissa.TV")))
+                .isInstanceOf(DuplicateUserException.class);
+
+        assertThat(repository.findById(1L)).containsSame(original);
+        assertThat(repository.findByEmail("Sincere@april.biz")).containsSame(original);
+    }
+
+    @Test
+    void concurrentSavesOfSameUsernameShouldLetExactlyOneWin() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    repository.save(newUser("contended"));
+                    return true;
+                } catch (DuplicateUserException ex) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int winners = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS)) {
+                winners++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(winners).isEqualTo(1);
+        assertThat(repository.findAll()).filteredOn(user -> "contended".equals(user.getUsername())).hasSize(1);
+    }
+
+    @Test
+    void searchShouldFollowSavesUpdatesAndDeletes() {
+        assertThat(repository.search("clem", 10)).extracting(User::getName).containsExactly("Clementine Bauch");
+
+        User user = repository.save(new User(null, "Clementine Hartley", "clemh", "clem@example.com", null, null));
+        assertThat(repository.search("clem", 10)).extracting(User::getName)
+                .containsExactly("Clementine Bauch", "Clementine Hartley");
+
+        repository.update(user.getId(), changes -> changes.setName("Jane Hartley"));
+        assertThat(repository.search("clementine", 10)).extracting(User::getName).containsExactly("Clementine Bauch");
+        assertThat(repository.search("hartley", 10)).extracting(User::getName).containsExactly("Jane Hartley");
+
+        repository.deleteById(user.getId());
+        assertThat(repository.search("hartley", 10)).isEmpty();
+    }
+
+    @Test
+    void initializeDataShouldSeedFromAJsonArrayOrOneUserPerLine(@TempDir Path directory) throws Exception {
+        Path array = Files.writeString(directory.resolve("users.json"), """
+                [{"id": 40, "name": "Ann Lee", "username": "ann", "email": "ann@example.com"},
+                 {"name": "Bo Park", "username": "bo", "email": "bo@example.com", "website": "bo.dev"}]
+                """);
+        Path lines = Files.writeString(directory.resolve("users.ndjson"), """
+                {"name": "Ann Lee", "username": "ann", "email": "ann@example.com"}
+                {"name": "Ann Again", "username": "ann", "email": "again@example.com"}
+                """);
+
+        InMemoryUserRepository fromArray = seeded(UserSeed.file(array, new ObjectMapper()));
+        InMemoryUserRepository fromLines = seeded(UserSeed.file(lines, new ObjectMapper()));
+
+        assertThat(fromArray.findAll()).extracting(User::getId, User::getUsername)
+                .containsExactly(tuple(1L, "ann"), tuple(2L, "bo"));
+        assertThat(fromArray.nextId()).isEqualTo(3L);
+        assertThat(fromLines.findAll()).extracting(User::getUsername).containsExactly("ann");
+        assertThat(seeded(UserSeed.none()).count()).isZero();
+    }
+
+    @Test
+    void lazySeedShouldBeLoadedInTheBackground() throws Exception {
+        InMemoryUserRepository lazy = seeded(UserSeed.samples().lazy(true));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (lazy.count() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(lazy.findByUsername("Bret")).isPresent();
+        assertThat(lazy.count()).isEqualTo(5);
+    }
+
+    private static InMemoryUserRepository seeded(UserSeed seed) {
+        InMemoryUserRepository repository = new InMemoryUserRepository(null, null, seed);
+        repository.initializeData();
+        return repository;
+    }
+}
@@ -0,0 +1,206 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("jpa")
+@Import(JpaUserRepository.class)
+class JpaUserRepositoryTest {
+
+    @Autowired
+    private JpaUserRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User bret;
+
+    @BeforeEach
+    void setUp() {
+        bret = repository.save(newUser("Bret", "Sincere@april.biz"));
+        repository.save(newUser("Antonette", "Shanna@melissa.tv"));
+        repository.save(newUser("Samantha", "Nathan@yesenia.net"));
+    }
+
+    @Test
+    void saveShouldAssignIdsFromSequenceAndRejectDuplicates() {
+        User fresh = repository.save(newUser("fresh", "fresh@example.com"));
+
+        assertThat(fresh.getId()).isGreaterThan(bret.getId());
+        assertThatThrownBy(() -> repository.save(newUser("Bret", "other@example.com")))
+                .isInstanceOf(DuplicateUserException.class)
+                .hasMessage("User already exists with username: Bret");
+        assertThatThrownBy(() -> repository.save(newUser("other", "SINCERE@april.biz")))
+                .isInstanceOf(DuplicateUserException.class)
+                .hasMessage("User already exists with email: SINCERE@april.biz");
+        assertThat(repository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void saveShouldUpdateExistingUserKeepingItsOwnKeys() {
+        User update = newUser("Bret", "Sincere@april.biz");
+        update.setId(bret.getId());
+        update.setName("Renamed");
+
+        repository.save(update);
+        entityManager.clear();
+
+        assertThat(repository.findById(bret.getId())).get().extracting(User::getName).isEqualTo("Renamed");
+    }
+
+    @Test
+    void updateShouldMergeChangesIntoStoredUser() {
+        User updated = repository.update(bret.getId(), user -> user.setWebsite("bret.example.com")).orElseThrow();
+        entityManager.clear();
+
+        assertThat(updated.getWebsite()).isEqualTo("bret.example.com");
+        assertThat(repository.findById(bret.getId())).get()
+                .extracting(User::getUsername, User::getWebsite)
+                .containsExactly("Bret", "bret.example.com");
+        assertThatThrownBy(() -> repository.update(bret.getId(), user -> user.setUsername("Antonette")))
+                .isInstanceOf(DuplicateUserException.class);
+        assertThat(repository.update(bret.getId() + 1_000, user -> user.setName("ghost"))).isEmpty();
+    }
+
+    @Test
+    void versionShouldFollowHibernateOptimisticLocking() {
+        assertThat(repository.findVersionById(bret.getId())).hasValue(0L);
+
+        repository.update(bret.getId(), user -> user.setName("Renamed"));
+
+        assertThat(repository.findVersionById(bret.getId())).hasValue(1L);
+        assertThat(repository.version()).isEmpty();
+        assertThatThrownBy(() -> repository.deleteById(bret.getId(), 0L))
+                .isInstanceOf(UserVersionMismatchException.class);
+        assertThat(repository.deleteById(bret.getId(), 1L)).isTrue();
+        assertThat(repository.deleteById(bret.getId(), 1L)).isFalse();
+    }
+
+    @Test
+    void findPageAndLookupsShouldMatchInMemorySemantics() {
+        List<User> all = repository.findAll();
+
+        assertThat(all).extracting(User::getUsername).containsExactly("Bret", "Antonette", "Samantha");
+        assertThat(repository.findPage(null, 2)).containsExactlyElementsOf(all.subList(0, 2));
+        assertThat(repository.findPage(all.get(1).getId(), 2)).containsExactly(all.get(2));
+        assertThat(repository.findByEmail("shanna@MELISSA.tv")).get().extracting(User::getUsername).isEqualTo("Antonette");
+        assertThat(repository.findByUsername("bret")).isEmpty();
+    }
+
+    @Test
+    void saveAllShouldSkipConflictsAndReturnInputInstances() {
+        User first = newUser("first", "first@example.com");
+        User duplicate = newUser("Bret", "dup@example.com");
+        User twin = newUser("first", "twin@example.com");
+        User renamed = newUser("renamed", "Sincere@april.biz");
+        renamed.setId(bret.getId());
+        User takesOldName = newUser("Bret", "bret2@example.com");
+
+        List<User> saved = repository.saveAll(List.of(first, duplicate, twin, renamed, takesOldName));
+
+        assertThat(saved).containsExactly(first, renamed, takesOldName);
+        assertThat(saved.get(0)).isSameAs(first);
+        assertThat(first.getId()).isNotNull();
+        assertThat(duplicate.getId()).isNull();
+        entityManager.clear();
+        assertThat(repository.findByUsername("renamed")).get().extracting(User::getId).isEqualTo(bret.getId());
+        assertThat(repository.findByUsername("Bret")).get().extracting(User::getId).isEqualTo(takesOldName.getId());
+    }
+
+    @Test
+    void savingUsersWithFreshIdsShouldInsertThemAndMoveNewIdsPastThem() {
+        User imported = newUser("imported", "imported@example.com");
+        imported.setId(888_888L);
+        imported.setVersion(5);
+        User single = newUser("single", "single@example.com");
+        single.setId(999_999L);
+
+        assertThat(repository.saveAll(List.of(imported))).containsExactly(imported);
+        assertThat(repository.save(single).getId()).isEqualTo(999_999L);
+        User fresh = repository.save(newUser("fresh", "fresh@example.com"));
+        entityManager.clear();
+
+        assertThat(repository.findById(888_888L)).get()
+                .extracting(User::getUsername, User::getVersion).containsExactly("imported", 0L);
+        assertThat(repository.findById(999_999L)).isPresent();
+        assertThat(fresh.getId()).isGreaterThan(999_999L);
+    }
+
+    @Test
+    void saveAllShouldReturnTheVersionsTheUsersWereStoredWith() {
+        User renamed = newUser("Bret", "Sincere@april.biz");
+        renamed.setId(bret.getId());
+        renamed.setName("Renamed");
+        User unchanged = new User(repository.findByUsername("Antonette").orElseThrow());
+        entityManager.clear();
+
+        List<User> saved = repository.saveAll(List.of(renamed, unchanged, newUser("new", "new@example.com")));
+        entityManager.clear();
+
+        assertThat(saved).extracting(User::getVersion).containsExactly(1L, 0L, 0L);
+        assertThat(repository.findVersionById(bret.getId())).hasValue(1L);
+    }
+
+    @Test
+    void deleteAllByIdShouldReturnOnlyExistingIds() {
+        List<User> all = repository.findAll();
+        Long missing = all.get(2).getId() + 1_000;
+
+        List<Long> deleted = repository.deleteAllById(List.of(all.get(0).getId(), missing, all.get(2).getId()));
+
+        assertThat(deleted).containsExactly(all.get(0).getId(), all.get(2).getId());
+        entityManager.clear();
+        assertThat(repository.findAll()).extracting(User::getUsername).containsExactly("Antonette");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findByIdShouldBeServedFromSecondLevelCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        try {
+            repository.findById(bret.getId());
+            statistics.clear();
+
+            assertThat(repository.findById(bret.getId())).isPresent();
+
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        } finally {
+            repository.deleteAllById(repository.findAll().stream().map(User::getId).toList());
+        }
+    }
+
+    private User newUser(String username, String email) {
+        return new User(null, "Test User", username, email, null, null);
+    }
+}
@@ -0,0 +1,51 @@
+package com.macode101.exam.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongLongHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 100;
+            long value = random.nextLong() & Long.MAX_VALUE;
+            switch (random.nextInt(3)) {
+                case 0 -> assertThat(map.put(key, value)).isEqualTo(orNoValue(expected.put(key, value)));
+                case 1 -> assertThat(map.remove(key)).isEqualTo(orNoValue(expected.remove(key)));
+                default -> assertThat(map.get(key)).isEqualTo(orNoValue(expected.get(key)));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void clearShouldRemoveAllEntriesIncludingZeroKey() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        map.put(0L, 1L);
+        map.put(7L, 2L);
+
+        map.clear();
+
+        assertThat(map.size()).isZero();
+        assertThat(map.containsKey(0L)).isFalse();
+        assertThat(map.get(7L)).isEqualTo(LongLongHashMap.NO_VALUE);
+    }
+
+    private static long orNoValue(Long value) {
+        return value == null ? LongLongHashMap.NO_VALUE : value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.macode101.exam.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 100;
+            String value = "v" + i;
+            switch (random.nextInt(3)) {
+                case 0 -> assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+                case 1 -> assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+                default -> assertThat(map.get(key)).isEqualTo(expected.get(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    void readersShouldAlwaysSeeStableKeysWhileWritersChurnAndResize() throws Exception {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        for (long key = 1; key <= 1_000; key++) {
+            map.put(key, key);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(3);
+
+        Future<?> writer = executor.submit(() -> {
+            started.countDown();
+            for (long key = 1_001; key <= 200_000; key++) {
+                map.put(key, key);
+                if (key % 3 == 0) {
+                    map.remove(key - 1);
+                }
+            }
+            running.set(false);
+        });
+        Future<?>[] readers = new Future<?>[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = executor.submit(() -> {
+                started.countDown();
+                Random random = new Random();
+                while (running.get()) {
+                    long key = 1 + random.nextInt(1_000);
+                    assertThat(map.get(key)).isEqualTo(key);
+                }
+            });
+        }
+
+        writer.get(60, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(map.get(200_000L)).isEqualTo(200_000L);
+    }
+
+    @Test
+    void concurrentWritersShouldKeepEveryEntryAcrossSegments() throws Exception {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        int writers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch started = new CountDownLatch(writers);
+
+        Future<?>[] futures = new Future<?>[writers];
+        for (int w = 0; w < writers; w++) {
+            long first = w * 100_000L + 1;
+            futures[w] = executor.submit(() -> {
+                started.countDown();
+                started.await();
+                for (long key = first; key < first + 100_000; key++) {
+                    map.put(key, key);
+                    if (key % 2 == 0) {
+                        map.remove(key);
+                    }
+                }
+                return null;
+            });
+        }
+
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(map.size()).isEqualTo(writers * 50_000);
+        for (long key = 1; key <= writers * 100_000L; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? null : key);
+        }
+    }
+}
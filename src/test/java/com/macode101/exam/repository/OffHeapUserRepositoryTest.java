@@ -0,0 +1,212 @@
+package com.macode101.exam.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.macode101.exam.model.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapUserRepositoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapUserRepositoryTest.class);
+
+    private OffHeapUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OffHeapUserRepository(4096);
+        repository.initializeData();
+    }
+
+    @Test
+    void shouldRoundTripUsersIncludingNullAndNonAsciiFields() {
+        User user = new User(null, "Zoë Łukasiewicz 日本", "zoe", "zoe@example.com", null, null);
+
+        repository.save(user);
+
+        assertThat(repository.findById(user.getId())).contains(user);
+        assertThat(repository.findById(1L).get())
+                .isEqualTo(new User(1L, "Leanne Graham", "Bret", "Sincere@april.biz", "1-770-736-8031 x56442",
+                        "hildegard.org", repository.findVersionById(1L).orElseThrow()));
+        assertThat(repository.count()).isEqualTo(6);
+    }
+
+    @Test
+    void findAllAndFindPageShouldWalkUsersInIdOrder() {
+        assertThat(repository.findAll()).extracting(User::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(repository.findPage(null, 2)).extracting(User::getId).containsExactly(1L, 2L);
+        assertThat(repository.findPage(2L, 2)).extracting(User::getId).containsExactly(3L, 4L);
+        assertThat(repository.findPage(5L, 2)).isEmpty();
+    }
+
+    @Test
+    void saveShouldEnforceUniqueUsernameAndCaseInsensitiveEmail() {
+        User duplicateEmail = newUser("fresh");
+        duplicateEmail.setEmail("SINCERE@april.biz");
+
+        assertThatThrownBy(() -> repository.save(newUser("Bret")))
+                .isInstanceOf(DuplicateUserException.class)
+                .hasMessage("User already exists with username: Bret");
+        assertThatThrownBy(() -> repository.save(duplicateEmail))
+                .isInstanceOf(DuplicateUserException.class)
+                .hasMessage("User already exists with email: SINCERE@april.biz");
+        assertThat(repository.findByEmail("shanna@MELISSA.tv")).get().extracting(User::getId).isEqualTo(2L);
+        assertThat(repository.findByUsername("bret")).isEmpty();
+    }
+
+    @Test
+    void updateAndDeleteShouldReleaseIndexedKeys() {
+        User renamed = newUser("renamed");
+        renamed.setId(1L);
+        repository.save(renamed);
+
+        assertThat(repository.findByUsername("Bret")).isEmpty();
+        assertThat(repository.findByUsername("renamed")).get().extracting(User::getId).isEqualTo(1L);
+
+        repository.deleteById(1L);
+
+        assertThat(repository.existsById(1L)).isFalse();
+        assertThat(repository.findByUsername("renamed")).isEmpty();
+        assertThat(repository.save(newUser("renamed")).getId()).isEqualTo(6L);
+    }
+
+    @Test
+    void updateShouldMergeChangesAndReindexKeys() {
+        assertThat(repository.update(2L, user -> user.setUsername("renamed")))
+                .get().extracting(User::getName, User::getUsername).containsExactly("Ervin Howell", "renamed");
+        assertThat(repository.findByUsername("renamed")).get().extracting(User::getId).isEqualTo(2L);
+        assertThat(repository.findByUsername("Antonette")).isEmpty();
+        assertThatThrownBy(() -> repository.update(2L, user -> user.setUsername("Bret")))
+                .isInstanceOf(DuplicateUserException.class);
+        assertThat(repository.update(999L, user -> user.setName("ghost"))).isEmpty();
+    }
+
+    @Test
+    void versionsShouldBeStoredInRecordsAndGuardDeletes() {
+        long storeVersion = repository.version().orElseThrow();
+        long version = repository.findVersionById(2L).orElseThrow();
+
+        repository.update(2L, user -> user.setName("renamed"));
+
+        assertThat(version).isLessThanOrEqualTo(storeVersion);
+        assertThat(repository.findVersionById(2L)).hasValue(version + 1);
+        assertThat(repository.findById(2L)).get().extracting(User::getName, User::getVersion)
+                .containsExactly("renamed", version + 1);
+        assertThat(repository.findByUsername("Antonette")).get().extracting(User::getVersion).isEqualTo(version + 1);
+        assertThatThrownBy(() -> repository.deleteById(2L, version))
+                .isInstanceOf(UserVersionMismatchException.class);
+        assertThat(repository.deleteById(2L, version + 1)).isTrue();
+        assertThat(repository.findVersionById(2L)).isEmpty();
+        assertThat(repository.version()).hasValue(storeVersion + 2);
+    }
+
+    @Test
+    void saveAllAndDeleteAllShouldMatchInMemorySemantics() {
+        User first = newUser("first");
+        User second = newUser("second");
+
+        List<User> saved = repository.saveAll(List.of(first, newUser("Bret"), second));
+
+        assertThat(saved).containsExactly(first, second);
+        assertThat(second.getId()).isEqualTo(8L);
+        assertThat(repository.existsById(7L)).isFalse();
+        assertThat(repository.deleteAllById(List.of(1L, 999L, 8L))).containsExactly(1L, 8L);
+        assertThat(repository.findAll()).extracting(User::getId).containsExactly(2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void repeatedUpdatesShouldBeCompactedIntoBoundedMemory() {
+        long version = repository.findVersionById(5L).orElseThrow();
+        for (int i = 0; i < 10_000; i++) {
+            User user = newUser("churn-" + i);
+            user.setId(1L + i % 5);
+            repository.save(user);
+        }
+
+        assertThat(repository.allocatedBytes()).isLessThanOrEqualTo(3 * 4096);
+        assertThat(repository.findAll()).extracting(User::getUsername)
+                .containsExactly("churn-9995", "churn-9996", "churn-9997", "churn-9998", "churn-9999");
+        assertThat(repository.findByUsername("churn-9999")).get().extracting(User::getId).isEqualTo(5L);
+        assertThat(repository.findVersionById(5L)).hasValue(version + 2_000);
+    }
+
+    @Test
+    void initializeDataShouldSeedFromTheConfiguredFileInBatches(@TempDir Path directory) throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < UserSeed.BATCH_SIZE * 2 + 1; i++) {
+            lines.append("{\"id\": 9, \"name\": \"Seed\", \"username\": \"seed-").append(i)
+                    .append("\", \"email\": \"seed-").append(i).append("@example.com\"}\n");
+        }
+        lines.append("{\"name\": \"Seed\", \"username\": \"seed-0\", \"email\": \"again@example.com\"}\n");
+        Path file = Files.writeString(directory.resolve("users.ndjson"), lines);
+
+        OffHeapUserRepository seeded = new OffHeapUserRepository(4096, null, UserSeed.file(file, new ObjectMapper()));
+        seeded.initializeData();
+
+        assertThat(seeded.count()).isEqualTo(UserSeed.BATCH_SIZE * 2 + 1);
+        assertThat(seeded.findByUsername("seed-2000")).get().extracting(User::getId).isEqualTo(2001L);
+        assertThat(seeded.findByUsername("Bret")).isEmpty();
+    }
+
+    /**
+     * Run with {@code -Dusers.footprint.count=10000000} (and a heap large enough
+     * for the in-memory store) to reproduce the 10M comparison.
+     */
+    @Test
+    void reportHeapFootprintAndGcPauseAgainstInMemoryStore() {
+        int count = Integer.getInteger("users.footprint.count", 200_000);
+
+        Footprint onHeap = measure(count, InMemoryUserRepository::new);
+        Footprint offHeap = measure(count, OffHeapUserRepository::new);
+
+        log.info("{} users - in-memory: {} MB heap, {} ms full GC; off-heap: {} MB heap + {} MB direct, {} ms full GC",
+                count, onHeap.heapBytes() >> 20, onHeap.gcMillis(),
+                offHeap.heapBytes() >> 20, offHeap.directBytes() >> 20, offHeap.gcMillis());
+        assertThat(offHeap.heapBytes()).isLessThan(onHeap.heapBytes() / 2);
+    }
+
+    private Footprint measure(int count, Supplier<UserRepository> factory) {
+        long before = usedHeapAfterGc();
+        UserRepository store = factory.get();
+        for (int i = 0; i < count; i++) {
+            store.save(new User(null, "Test User " + i, "user-" + i, "user-" + i + "@example.com",
+                    "555-0100 x" + i, "user-" + i + ".example.com"));
+        }
+        long gcBefore = gcMillis();
+        long heap = usedHeapAfterGc() - before;
+        long gc = gcMillis() - gcBefore;
+        long direct = store instanceof OffHeapUserRepository offHeap ? offHeap.allocatedBytes() : 0;
+        Reference.reachabilityFence(store);
+        return new Footprint(heap, direct, gc);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+
+    private record Footprint(long heapBytes, long directBytes, long gcMillis) {}
+}
@@ -0,0 +1,89 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.controller.ShardController;
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.GlobalExceptionHandler;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.client.MockMvcClientHttpRequestFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.macode101.exam.model.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two nodes, where node 0 reaches node 1 over its HTTP endpoints.
+ */
+class RemoteUserShardTest {
+
+    private ShardedUserRepository local;
+    private ShardedUserRepository remote;
+
+    @BeforeEach
+    void setUp() {
+        UserShard[] shards = new UserShard[2];
+        remote = new ShardedUserRepository(1, Arrays.asList(shards), 64, new InMemoryUserRepository());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ShardController(remote))
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+        RemoteUserShard client = new RemoteUserShard(RestClient.builder()
+                .baseUrl("http://node-1")
+                .requestFactory(new MockMvcClientHttpRequestFactory(mockMvc))
+                .build());
+        local = new ShardedUserRepository(0, List.of(client, client), 64, new InMemoryUserRepository());
+        shards[0] = local.localShard();
+    }
+
+    @AfterEach
+    void tearDown() {
+        local.shutdown();
+        remote.shutdown();
+    }
+
+    @Test
+    void writesAndReadsShouldReachTheRemoteNode() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(local.save(newUser("user+" + i)).getId());
+        }
+
+        assertThat(remote.localShard().count()).isPositive();
+        assertThat(local.findAll()).extracting(User::getId).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(local.count()).isEqualTo(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(local.findByEmail("user+" + i + "@example.com")).get()
+                    .extracting(User::getId).isEqualTo(ids.get(i));
+        }
+    }
+
+    @Test
+    void conflictsShouldComeBackAsRepositoryExceptions() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(local.save(newUser("user-" + i)));
+        }
+
+        for (User user : users) {
+            assertThatThrownBy(() -> local.save(newUser(user.getUsername())))
+                    .isInstanceOf(DuplicateUserException.class);
+            assertThatThrownBy(() -> local.deleteById(user.getId(), user.getVersion() + 5))
+                    .isInstanceOf(UserVersionMismatchException.class);
+            assertThat(local.update(user.getId(), changed -> changed.setName("Changed")))
+                    .get().extracting(User::getVersion).isEqualTo(user.getVersion() + 1);
+            assertThat(local.deleteById(user.getId(), user.getVersion() + 1)).isTrue();
+            assertThat(local.findById(user.getId())).isEmpty();
+        }
+        assertThat(local.findByUsername("user-0")).isEmpty();
+    }
+}
@@ -0,0 +1,224 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.DuplicateUserException;
+import com.macode101.exam.exception.UserVersionMismatchException;
+import com.macode101.exam.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.macode101.exam.model.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ShardedUserRepositoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedUserRepositoryTest.class);
+
+    private final List<ShardedUserRepository> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ShardedUserRepository::shutdown);
+    }
+
+    @Test
+    void usersShouldSpreadOverNodesAndBeVisibleFromEveryNode() {
+        List<ShardedUserRepository> cluster = cluster(3);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(cluster.get(i % 3).save(newUser("user-" + i)).getId());
+        }
+
+        for (ShardedUserRepository node : cluster) {
+            assertThat(node.localShard().count()).isBetween(50L, 150L);
+            assertThat(node.count()).isEqualTo(300);
+            assertThat(node.findAll()).extracting(User::getId).isSortedAccordingTo(Long::compare).hasSize(300);
+        }
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(cluster.get(1).findById(ids.get(0))).get().extracting(User::getUsername).isEqualTo("user-0");
+        assertThat(cluster.get(2).findByEmail("USER-7@example.com")).get().extracting(User::getId).isEqualTo(ids.get(7));
+    }
+
+    @Test
+    void findPageShouldMergeNodesInIdOrder() {
+        List<ShardedUserRepository> cluster = cluster(3);
+        for (int i = 0; i < 50; i++) {
+            cluster.get(0).save(newUser("user-" + i));
+        }
+        List<User> all = cluster.get(0).findAll();
+
+        List<User> page = cluster.get(1).findPage(all.get(9).getId(), 10);
+
+        assertThat(page).extracting(User::getId)
+                .containsExactlyElementsOf(all.subList(10, 20).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void usernamesAndEmailsShouldBeUniqueAcrossNodes() {
+        List<ShardedUserRepository> cluster = cluster(3);
+        User first = cluster.get(0).save(newUser("taken"));
+
+        assertThatThrownBy(() -> cluster.get(1).save(newUser("taken")))
+                .isInstanceOf(DuplicateUserException.class);
+        User other = newUser("other");
+        other.setEmail("TAKEN@example.com");
+        assertThatThrownBy(() -> cluster.get(2).save(other))
+                .isInstanceOf(DuplicateUserException.class);
+        // The rejected user's username claim was rolled back.
+        assertThat(cluster.get(2).save(newUser("other")).getId()).isNotNull();
+
+        cluster.get(1).update(first.getId(), user -> {
+            user.setUsername("renamed");
+            user.setEmail("renamed@example.com");
+        });
+
+        assertThat(cluster.get(2).save(newUser("taken")).getId()).isNotEqualTo(first.getId());
+        assertThat(cluster.get(0).findByUsername("renamed")).get().extracting(User::getId).isEqualTo(first.getId());
+    }
+
+    @Test
+    void versionedWritesShouldBeCheckedOnTheOwningNode() {
+        List<ShardedUserRepository> cluster = cluster(2);
+        User user = cluster.get(0).save(newUser("versioned"));
+        long id = user.getId();
+
+        User updated = cluster.get(1).update(id, changed -> changed.setName("Changed")).orElseThrow();
+
+        assertThat(updated.getVersion()).isEqualTo(user.getVersion() + 1);
+        assertThat(cluster.get(0).findVersionById(id)).hasValue(updated.getVersion());
+        assertThatThrownBy(() -> cluster.get(0).deleteById(id, user.getVersion()))
+                .isInstanceOf(UserVersionMismatchException.class);
+        assertThat(cluster.get(1).deleteById(id, updated.getVersion())).isTrue();
+        assertThat(cluster.get(0).existsById(id)).isFalse();
+        assertThat(cluster.get(0).save(newUser("versioned")).getId()).isNotEqualTo(id);
+    }
+
+    @Test
+    void versionShouldChangeWithEveryWriteOnAnyNode() {
+        List<ShardedUserRepository> cluster = cluster(3);
+        long before = cluster.get(0).version().orElseThrow();
+
+        cluster.get(2).save(newUser("changed"));
+
+        assertThat(cluster.get(1).version().orElseThrow()).isGreaterThan(before);
+    }
+
+    @Test
+    void reportCreateThroughputByNodeCount() throws Exception {
+        int usersPerNode = 20_000;
+        // The first round only warms up the JIT.
+        int[] sizes = {1, 1, 2, 4};
+        for (int round = 0; round < sizes.length; round++) {
+            int size = sizes[round];
+            List<ShardedUserRepository> cluster = cluster(size);
+            ExecutorService clients = Executors.newFixedThreadPool(size);
+            long started = System.nanoTime();
+            List<Future<?>> done = new ArrayList<>();
+            for (ShardedUserRepository node : cluster) {
+                done.add(clients.submit(() -> {
+                    for (int i = 0; i < usersPerNode; i++) {
+                        node.save(newUser(Thread.currentThread().getName() + "-" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - started;
+            clients.shutdown();
+
+            assertThat(cluster.get(0).count()).isEqualTo((long) usersPerNode * size);
+            if (round == 0) {
+                continue;
+            }
+            log.info("{} node(s), {} available processors: {} creates/s", size,
+                    Runtime.getRuntime().availableProcessors(),
+                    (long) usersPerNode * size * TimeUnit.SECONDS.toNanos(1) / elapsed);
+        }
+    }
+
+    @Test
+    void aWriteWaitingOnAnotherNodesClaimShouldNotHoldUpOtherIds() throws Exception {
+        List<UserShard> shards = new ArrayList<>(Collections.nCopies(2, null));
+        ShardedUserRepository local = new ShardedUserRepository(0, shards, 64, new InMemoryUserRepository());
+        ShardedUserRepository remote = new ShardedUserRepository(1, shards, 64, new InMemoryUserRepository());
+        nodes.add(local);
+        nodes.add(remote);
+        String slowUsername = valueOwnedBy(1, "slow");
+        CountDownLatch claiming = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        UserShard slowRemote = mock(UserShard.class, delegatesTo(remote.localShard()));
+        doAnswer(invocation -> {
+            if (slowUsername.equals(invocation.getArgument(1))) {
+                claiming.countDown();
+                answer.await();
+            }
+            return remote.localShard().claim(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+        }).when(slowRemote).claim(any(), any(), anyLong());
+        shards.set(0, local.localShard());
+        shards.set(1, slowRemote);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            User slow = newUser(slowUsername);
+            slow.setId(1L);
+            Future<?> slowWrite = executor.submit(() -> local.localShard().save(slow, null));
+            assertThat(claiming.await(5, TimeUnit.SECONDS)).isTrue();
+
+            User other = newUser(valueOwnedBy(0, "fast"));
+            other.setId(65L);
+            assertThat(executor.submit(() -> local.localShard().save(other, null)).get(5, TimeUnit.SECONDS)).isPresent();
+
+            answer.countDown();
+            slowWrite.get(5, TimeUnit.SECONDS);
+            assertThat(local.localShard().findById(1L)).get().extracting(User::getUsername).isEqualTo(slowUsername);
+        } finally {
+            answer.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * First of {@code prefix-0}, {@code prefix-1}, ... whose claims live on
+     * {@code node} of a two-node cluster.
+     */
+    private static String valueOwnedBy(int node, String prefix) {
+        ConsistentHashRing ring = new ConsistentHashRing(2, 64);
+        for (int i = 0; ; i++) {
+            String value = prefix + "-" + i;
+            if (ring.nodeFor(ConsistentHashRing.hash(value)) == node && ring.nodeFor(ConsistentHashRing.hash(value + "@example.com")) == node) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Nodes in one JVM, calling each other's partitions directly.
+     */
+    private List<ShardedUserRepository> cluster(int size) {
+        List<UserShard> shards = new ArrayList<>(Collections.nCopies(size, null));
+        List<ShardedUserRepository> cluster = new ArrayList<>(size);
+        for (int node = 0; node < size; node++) {
+            ShardedUserRepository repository = new ShardedUserRepository(node, shards, 64, new InMemoryUserRepository());
+            shards.set(node, repository.localShard());
+            cluster.add(repository);
+        }
+        nodes.addAll(cluster);
+        return cluster;
+    }
+}
@@ -0,0 +1,74 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class UserChangeLogTest {
+
+    @Test
+    void readAfterShouldReturnChangesInOrderUpToLimit() {
+        UserChangeLog changeLog = new UserChangeLog(8);
+        long start = changeLog.lastSequence();
+        changeLog.append(UserChangeEvent.Type.CREATED, 1L, newUser(1L));
+        changeLog.append(UserChangeEvent.Type.UPDATED, 1L, newUser(1L));
+        changeLog.append(UserChangeEvent.Type.DELETED, 1L, null);
+
+        assertThat(changeLog.readAfter(start, 2))
+                .extracting(UserChangeLog.Change::sequence, UserChangeLog.Change::type)
+                .containsExactly(
+                        tuple(start + 1, UserChangeEvent.Type.CREATED),
+                        tuple(start + 2, UserChangeEvent.Type.UPDATED));
+        assertThat(changeLog.readAfter(start + 2, 10)).singleElement()
+                .extracting(UserChangeLog.Change::user).isNull();
+        assertThat(changeLog.readAfter(changeLog.lastSequence(), 10)).isEmpty();
+    }
+
+    @Test
+    void readAfterShouldRejectCursorsThatWereLappedOrNeverIssued() {
+        UserChangeLog changeLog = new UserChangeLog(4);
+        long start = changeLog.lastSequence();
+        for (long id = 1; id <= 6; id++) {
+            changeLog.append(UserChangeEvent.Type.CREATED, id, newUser(id));
+        }
+
+        assertThat(changeLog.readAfter(start + 2, 10)).extracting(UserChangeLog.Change::userId)
+                .containsExactly(3L, 4L, 5L, 6L);
+        assertThatThrownBy(() -> changeLog.readAfter(start + 1, 10)).isInstanceOf(ChangesExpiredException.class);
+        assertThatThrownBy(() -> changeLog.readAfter(start + 7, 10)).isInstanceOf(ChangesExpiredException.class);
+        assertThatThrownBy(() -> new UserChangeLog(4).readAfter(start - 1, 10))
+                .isInstanceOf(ChangesExpiredException.class);
+    }
+
+    @Test
+    void awaitAfterShouldWakeUpWhenChangeIsAppended() throws Exception {
+        UserChangeLog changeLog = new UserChangeLog(4);
+        long start = changeLog.lastSequence();
+
+        assertThat(changeLog.awaitAfter(start, 10)).isFalse();
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return changeLog.awaitAfter(start, TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        Thread.sleep(50);
+        changeLog.append(UserChangeEvent.Type.CREATED, 1L, newUser(1L));
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private User newUser(long id) {
+        return new User(id, "User " + id, "user" + id, "user" + id + "@example.com", null, null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSearchIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndexTest.class);
+
+    private final UserSearchIndex index = new UserSearchIndex();
+    private final Map<Long, User> users = new HashMap<>();
+
+    @Test
+    void searchShouldMatchWordPrefixesAcrossFields() {
+        add(1, "Leanne Graham", "Bret", "Sincere@april.biz", "hildegard.org");
+        add(2, "Clementine Bauch", "Samantha", "Nathan@yesenia.net", "ramiro.info");
+        add(3, "Clementina DuBuque", "Moriah.Stanton", "Rey.Padberg@karina.biz", "ambrose.net");
+
+        assertThat(search("Cle")).extracting(User::getId).containsExactly(2L, 3L);
+        assertThat(search("clementine bau")).extracting(User::getId).containsExactly(2L);
+        assertThat(search("stanton")).extracting(User::getId).containsExactly(3L);
+        assertThat(search("april.biz")).extracting(User::getId).containsExactly(1L);
+        assertThat(search("hilde")).extracting(User::getId).containsExactly(1L);
+        assertThat(search("ementine")).isEmpty();
+        assertThat(search("  -- ")).isEmpty();
+    }
+
+    @Test
+    void searchShouldRankWholeWordsAndStrongerFieldsFirst() {
+        add(1, "Anna Smith", "smithy", "anna@example.com", "example.com");
+        add(2, "Bob Smithers", "bob", "bob@smith.io", "example.com");
+        add(3, "Carl Jones", "carl", "carl@example.com", "smith.org");
+        add(4, "Dan Smith", "dan", "dan@example.com", "example.com");
+
+        assertThat(search("smith")).extracting(User::getId).containsExactly(1L, 4L, 2L, 3L);
+    }
+
+    @Test
+    void updateShouldFollowRenamesAndDeletes() {
+        User user = add(1, "Clementine Bauch", "Samantha", "Nathan@yesenia.net", "ramiro.info");
+        User renamed = new User(user);
+        renamed.setName("Patricia Lebsack");
+        users.put(1L, renamed);
+        index.update(user, renamed);
+
+        assertThat(search("clementine")).isEmpty();
+        assertThat(search("patricia")).extracting(User::getId).containsExactly(1L);
+
+        users.remove(1L);
+        index.update(renamed, null);
+
+        assertThat(search("patricia")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void scanShouldRankLikeTheIndex() {
+        add(1, "Anna Smith", "smithy", "anna@example.com", "example.com");
+        add(2, "Bob Smithers", "bob", "bob@smith.io", "example.com");
+        add(3, "Carl Jones", "carl", "carl@example.com", "smith.org");
+
+        assertThat(UserSearchIndex.scan(users.values(), "smi", 10)).isEqualTo(search("smi"));
+    }
+
+    @Test
+    void multiWordSearchShouldFindMatchesBeyondTheCandidateCapOfAnyOneWord() {
+        int common = 4 * UserSearchIndex.MAX_CANDIDATES;
+        for (long id = 1; id <= common; id++) {
+            add(id, "Clementine Bauch", "user" + id, "user" + id + "@example.com", "example.com");
+        }
+        for (long id = common + 1; id <= 2 * common; id++) {
+            add(id, "Ervin Howell", "howl" + id, "howl" + id + "@example.com", "example.com");
+        }
+        // Whole-word matches of either word come first, so this one is only reached past all of them.
+        long wanted = 2L * common + 1;
+        add(wanted, "Clementines Howells", "clem", "clem@example.com", "example.com");
+
+        assertThat(search("clementine howell")).extracting(User::getId).containsExactly(wanted);
+        assertThat(search("howell clem")).extracting(User::getId).containsExactly(wanted);
+    }
+
+    @Test
+    void reportLookupLatency() {
+        int size = 200_000;
+        String[] names = {"Leanne", "Ervin", "Clementine", "Patricia", "Chelsey", "Dennis", "Kurtis", "Nicholas"};
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long id = 1; id <= size; id++) {
+            String first = names[random.nextInt(names.length)] + Long.toString(id % 997, 36);
+            String last = Long.toString(random.nextLong(Long.MAX_VALUE), 36);
+            add(id, first + " " + last, "user" + id, "user" + id + "@example.com", last.substring(0, 4) + ".org");
+        }
+
+        String[] queries = {"c", "cle", "clementine", "patricia 1", "user12345", "example", "zz"};
+        // The first round only warms up the JIT.
+        for (int round = 0; round < 2; round++) {
+            for (String query : queries) {
+                int lookups = 200;
+                long start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    index.search(query, 10, users::get);
+                }
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / lookups;
+                if (round == 1) {
+                    log.info("{} users, query '{}': {} µs per lookup", size, query, micros);
+                }
+            }
+        }
+        assertThat(search("user12345")).extracting(User::getId).first().isEqualTo(12345L);
+    }
+
+    private User add(long id, String name, String username, String email, String website) {
+        User user = new User(id, name, username, email, null, website);
+        users.put(id, user);
+        index.update(null, user);
+        return user;
+    }
+
+    private List<User> search(String query) {
+        return index.search(query, 10, users::get);
+    }
+}
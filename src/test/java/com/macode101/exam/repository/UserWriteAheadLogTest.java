@@ -0,0 +1,346 @@
+package com.macode101.exam.repository;
+
+import com.macode101.exam.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserWriteAheadLogTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWriteAheadLogTest.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverShouldReturnEmptyWhenNothingWasPersisted() {
+        UserWriteAheadLog wal = newLog(1_000);
+
+        assertThat(wal.recover(new HashMap<>())).isEmpty();
+    }
+
+    @Test
+    void repositoryShouldRecoverStateInsteadOfReseeding() throws Exception {
+        UserWriteAheadLog first = newLog(1_000);
+        InMemoryUserRepository repository = new InMemoryUserRepository(first);
+        repository.initializeData();
+        repository.save(newUser(null, "fresh"));
+        long renamedVersion = repository.save(newUser(1L, "renamed")).getVersion();
+        repository.deleteById(2L);
+        first.close();
+
+        UserWriteAheadLog second = newLog(1_000);
+        InMemoryUserRepository recovered = new InMemoryUserRepository(second);
+        recovered.initializeData();
+
+        assertThat(recovered.findAll()).extracting(User::getId).containsExactly(1L, 3L, 4L, 5L, 6L);
+        assertThat(recovered.findByUsername("renamed")).get()
+                .extracting(User::getId, User::getVersion).containsExactly(1L, renamedVersion);
+        assertThat(recovered.findByUsername("Bret")).isEmpty();
+        assertThat(recovered.findByUsername("fresh")).get().extracting(User::getId).isEqualTo(6L);
+        assertThat(recovered.save(newUser(null, "next")).getId()).isEqualTo(7L);
+        second.close();
+    }
+
+    @Test
+    void compactionShouldWriteSnapshotAndDropOldSegments() throws Exception {
+        UserWriteAheadLog wal = newLog(10);
+        InMemoryUserRepository repository = new InMemoryUserRepository(wal);
+        repository.initializeData();
+        for (int i = 0; i < 50; i++) {
+            repository.save(newUser(null, "user-" + i));
+        }
+        wal.flush();
+        repository.save(newUser(null, "after-snapshot"));
+        wal.close();
+
+        assertThat(directory.resolve("users.snapshot")).exists();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".log"))).hasSize(1);
+        }
+
+        Map<Long, User> recovered = new HashMap<>();
+        OptionalLong nextId = newLog(10).recover(recovered);
+
+        assertThat(recovered).hasSize(56);
+        assertThat(nextId).hasValue(57L);
+    }
+
+    @Test
+    void recoverShouldIgnoreTornRecordAtEndOfLog() throws Exception {
+        UserWriteAheadLog wal = newLog(1_000);
+        wal.recover(new HashMap<>());
+        wal.start(List::of, () -> 1L);
+        wal.appendSave(newUser(1L, "kept"));
+        wal.close();
+
+        Path segment = directory.resolve("users-0.log");
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Map<Long, User> recovered = new HashMap<>();
+        newLog(1_000).recover(recovered);
+
+        assertThat(recovered).containsOnlyKeys(1L);
+        assertThat(recovered.get(1L).getUsername()).isEqualTo("kept");
+    }
+
+    @Test
+    void recoverShouldReplaySegmentsWrittenBeforeTheyHadAHeader() throws Exception {
+        Files.write(directory.resolve("users-0.log"), headerlessSave(1L, "unversioned", null));
+        Files.write(directory.resolve("users-1.log"), headerlessSave(2L, "versioned", 7L));
+
+        Map<Long, User> recovered = new HashMap<>();
+        UserWriteAheadLog wal = newLog(1_000);
+        OptionalLong nextId = wal.recover(recovered);
+        wal.start(List::of, () -> 3L);
+        wal.appendSave(newUser(3L, "after-upgrade"));
+        wal.close();
+
+        assertThat(nextId).hasValue(3L);
+        assertThat(recovered.get(1L)).extracting(User::getUsername, User::getVersion).containsExactly("unversioned", 0L);
+        assertThat(recovered.get(2L)).extracting(User::getUsername, User::getVersion).containsExactly("versioned", 7L);
+        assertThat(ByteBuffer.wrap(Files.readAllBytes(directory.resolve("users-2.log"))).getInt()).isEqualTo(0x55534c47);
+        Map<Long, User> again = new HashMap<>();
+        newLog(1_000).recover(again);
+        assertThat(again).containsOnlyKeys(1L, 2L, 3L);
+    }
+
+    @Test
+    void recoverShouldRefuseSegmentsOfAnUnknownFormat() throws Exception {
+        Files.write(directory.resolve("users-0.log"), ByteBuffer.allocate(8).putInt(0x55534c47).putInt(99).array());
+
+        assertThatThrownBy(() -> newLog(1_000).recover(new HashMap<>()))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasRootCauseMessage("Unsupported record format 99 in " + directory.resolve("users-0.log"));
+    }
+
+    @Test
+    void aFailedFlushShouldKeepItsBatchAndRefuseWritesUntilAFlushSucceeds() throws Exception {
+        FailingChannels channels = new FailingChannels();
+        UserWriteAheadLog wal = new UserWriteAheadLog(directory, Duration.ofHours(1), 1_000) {
+            @Override
+            FileChannel openChannel(Path file) throws IOException {
+                return channels.open(file);
+            }
+        };
+        InMemoryUserRepository repository = new InMemoryUserRepository(wal);
+        repository.initializeData();
+        wal.flush();
+
+        channels.failing = true;
+        repository.save(newUser(null, "lost-before"));
+        assertThatThrownBy(wal::flush).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> repository.save(newUser(null, "refused")))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> repository.deleteById(1L)).isInstanceOf(UncheckedIOException.class);
+        assertThat(repository.findByUsername("refused")).isEmpty();
+        assertThat(repository.existsById(1L)).isTrue();
+
+        channels.failing = false;
+        wal.flush();
+        repository.save(newUser(null, "after"));
+        wal.close();
+
+        Map<Long, User> recovered = new HashMap<>();
+        newLog(1_000).recover(recovered);
+        assertThat(recovered.values()).extracting(User::getUsername)
+                .contains("Bret", "lost-before", "after")
+                .doesNotContain("refused");
+    }
+
+    @Test
+    void reportWriteThroughputAndRecoveryTime() throws Exception {
+        int count = 200_000;
+        UserWriteAheadLog wal = newLog(Long.MAX_VALUE);
+        InMemoryUserRepository repository = new InMemoryUserRepository(wal);
+        repository.initializeData();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            repository.save(newUser(null, "bulk-" + i));
+        }
+        wal.close();
+        long writeNanos = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        Map<Long, User> recovered = new HashMap<>();
+        newLog(Long.MAX_VALUE).recover(recovered);
+        long recoveryNanos = System.nanoTime() - started;
+
+        assertThat(recovered).hasSize(count + 5);
+        log.info("WAL group commit: {} writes/s; recovery: {} ms per million users",
+                count * TimeUnit.SECONDS.toNanos(1) / writeNanos,
+                TimeUnit.NANOSECONDS.toMillis(recoveryNanos) * 1_000_000 / count);
+    }
+
+    private UserWriteAheadLog newLog(long snapshotThreshold) {
+        return new UserWriteAheadLog(directory, Duration.ofMillis(5), snapshotThreshold);
+    }
+
+    /**
+     * Opens segments whose writes, while {@code failing}, write half of what
+     * they are given and then throw, as a disk running full would.
+     */
+    private static final class FailingChannels {
+
+        volatile boolean failing;
+
+        FileChannel open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            return new FileChannel() {
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+                    if (!failing) {
+                        return channel.write(src);
+                    }
+                    ByteBuffer half = src.duplicate();
+                    half.limit(src.position() + Math.max(1, src.remaining() / 2));
+                    channel.write(half);
+                    throw new IOException("No space left on device");
+                }
+
+                @Override
+                public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int write(ByteBuffer src, long position) throws IOException {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    return channel.read(dst);
+                }
+
+                @Override
+                public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+                    return channel.read(dsts, offset, length);
+                }
+
+                @Override
+                public int read(ByteBuffer dst, long position) throws IOException {
+                    return channel.read(dst, position);
+                }
+
+                @Override
+                public long position() throws IOException {
+                    return channel.position();
+                }
+
+                @Override
+                public FileChannel position(long newPosition) throws IOException {
+                    channel.position(newPosition);
+                    return this;
+                }
+
+                @Override
+                public long size() throws IOException {
+                    return channel.size();
+                }
+
+                @Override
+                public FileChannel truncate(long size) throws IOException {
+                    channel.truncate(size);
+                    return this;
+                }
+
+                @Override
+                public void force(boolean metaData) throws IOException {
+                    channel.force(metaData);
+                }
+
+                @Override
+                public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                    return channel.transferTo(position, count, target);
+                }
+
+                @Override
+                public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+                    return channel.transferFrom(src, position, count);
+                }
+
+                @Override
+                public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+                    return channel.map(mode, position, size);
+                }
+
+                @Override
+                public FileLock lock(long position, long size, boolean shared) throws IOException {
+                    return channel.lock(position, size, shared);
+                }
+
+                @Override
+                public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+                    return channel.tryLock(position, size, shared);
+                }
+
+                @Override
+                protected void implCloseChannel() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+    }
+
+    /**
+     * A save record framed as segments were before they had a header, with
+     * the user's version only if {@code version} is given.
+     */
+    private static byte[] headerlessSave(long id, String username, Long version) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(1);
+        out.writeLong(id);
+        for (String field : new String[] {"Old User", username, username + "@example.com"}) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(-1);
+        out.writeInt(-1);
+        if (version != null) {
+            out.writeLong(version);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        return ByteBuffer.allocate(8 + payload.size())
+                .putInt(payload.size())
+                .putInt((int) crc.getValue())
+                .put(payload.toByteArray())
+                .array();
+    }
+
+    private User newUser(Long id, String username) {
+        return new User(id, "Test User", username, username + "@example.com", null, null);
+    }
+}
@@ -0,0 +1,143 @@
+package com.macode101.exam.service;
+
+import com.macode101.exam.config.ChangeFeedProperties;
+import com.macode101.exam.exception.ChangesExpiredException;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserChangeEvent;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.UserChangeLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.macode101.exam.model.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class UserChangeServiceTest {
+
+    private UserChangeLog changeLog;
+    private InMemoryUserRepository repository;
+    private UserChangeServiceImpl userChangeService;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new UserChangeLog(64);
+        repository = new InMemoryUserRepository(null, changeLog);
+        repository.initializeData();
+
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setMaxSubscribers(1);
+        properties.setHeartbeatInterval(Duration.ofMillis(20));
+        userChangeService = new UserChangeServiceImpl(changeLog, Mappers.getMapper(UserMapper.class), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userChangeService.shutdown();
+    }
+
+    @Test
+    void subscriberShouldReceiveChangesAfterItsCursorAndHeartbeats() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+        Future<?> subscription = userChangeService.subscribe(userChangeService.getLatestSequence(), subscriber);
+
+        long renamedVersion = repository.update(1L, user -> user.setName("renamed")).orElseThrow().getVersion();
+        long freshVersion = repository.save(newUser("fresh")).getVersion();
+        repository.deleteById(2L);
+
+        assertThat(subscriber.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.changes)
+                .extracting(UserChangeEvent::getType, UserChangeEvent::getId, UserChangeEvent::getVersion)
+                .containsExactly(
+                        tuple(UserChangeEvent.Type.UPDATED, 1L, renamedVersion),
+                        tuple(UserChangeEvent.Type.CREATED, 6L, freshVersion),
+                        tuple(UserChangeEvent.Type.DELETED, 2L, null));
+        assertThat(subscriber.changes.get(0).getUser().getName()).isEqualTo("renamed");
+        assertThat(subscriber.changes).extracting(UserChangeEvent::getSequence).isSorted();
+
+        Thread.sleep(100);
+        assertThat(subscriber.idle).isPositive();
+        subscription.cancel(true);
+    }
+
+    @Test
+    void stalledSubscriberShouldNeitherBlockWritersNorMissChangesSilently() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1) {
+            @Override
+            public void onChange(UserChangeEvent change) {
+                super.onChange(change);
+                try {
+                    stalled.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        userChangeService.subscribe(userChangeService.getLatestSequence(), subscriber);
+        repository.save(newUser("first"));
+        assertThat(subscriber.received.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 1_000; i++) {
+                repository.save(newUser("burst-" + i));
+            }
+        });
+        stalled.countDown();
+
+        assertThat(subscriber.expired.get(5, TimeUnit.SECONDS)).isInstanceOf(ChangesExpiredException.class);
+        assertThat(subscriber.changes).extracting(UserChangeEvent::getId).containsExactly(6L);
+    }
+
+    @Test
+    void subscribeShouldFailUpFrontForExpiredCursorOrWhenFull() {
+        assertThatThrownBy(() -> userChangeService.subscribe(changeLog.lastSequence() + 1, new RecordingSubscriber(1)))
+                .isInstanceOf(ChangesExpiredException.class);
+
+        userChangeService.subscribe(changeLog.lastSequence(), new RecordingSubscriber(1));
+        assertThatThrownBy(() -> userChangeService.subscribe(changeLog.lastSequence(), new RecordingSubscriber(1)))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static class RecordingSubscriber implements UserChangeSubscriber {
+
+        final List<UserChangeEvent> changes = new CopyOnWriteArrayList<>();
+        final CompletableFuture<ChangesExpiredException> expired = new CompletableFuture<>();
+        final CountDownLatch received;
+        volatile int idle;
+
+        RecordingSubscriber(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onChange(UserChangeEvent change) {
+            changes.add(change);
+            received.countDown();
+        }
+
+        @Override
+        public void onIdle() {
+            idle++;
+        }
+
+        @Override
+        public void onExpired(ChangesExpiredException ex) {
+            expired.complete(ex);
+        }
+    }
+}
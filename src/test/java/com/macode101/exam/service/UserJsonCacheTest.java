@@ -0,0 +1,42 @@
+package com.macode101.exam.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.User;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserJsonCacheTest {
+
+    private final UserJsonCache cache = new UserJsonCache(
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT),
+            Mappers.getMapper(UserMapper.class),
+            1 << 20
+    );
+
+    @Test
+    void getShouldEncodeCompactJsonWithoutVersion() {
+        User user = new User(1L, "John Doe", "johndoe", "john@example.com", null, null);
+
+        assertThat(new String(cache.get(user), StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"name\":\"John Doe\",\"username\":\"johndoe\",\"email\":\"john@example.com\",\"phone\":null,\"website\":null}");
+    }
+
+    @Test
+    void getShouldReuseEncodingUntilVersionChanges() {
+        User user = new User(1L, "John Doe", "johndoe", "john@example.com", null, null);
+        byte[] first = cache.get(user);
+
+        User copy = new User(user);
+        assertThat(cache.get(copy)).isSameAs(first);
+
+        copy.setName("Renamed");
+        copy.setVersion(1);
+        assertThat(new String(cache.get(copy), StandardCharsets.UTF_8)).contains("\"name\":\"Renamed\"");
+    }
+}
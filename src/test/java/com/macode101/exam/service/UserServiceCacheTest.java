@@ -0,0 +1,156 @@
+package com.macode101.exam.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.macode101.exam.config.CachingConfig;
+import com.macode101.exam.exception.MalformedImportException;
+import com.macode101.exam.model.User;
+import com.macode101.exam.model.UserDto;
+import com.macode101.exam.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class UserServiceCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserTransferService userTransferService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CachingConfig.USERS_CACHE).clear();
+        testUser = new User(1L, "John Doe", "johndoe", "john.doe@example.com", null, null);
+    }
+
+    @Test
+    void getUserByIdShouldServeRepeatedReadsFromCache() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        CacheStats before = stats();
+
+        UserDto first = userService.getUserById(1L);
+        UserDto second = userService.getUserById(1L);
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findById(1L);
+
+        CacheStats delta = stats().minus(before);
+        assertThat(delta.missCount()).isEqualTo(1);
+        assertThat(delta.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesShouldLoadTheUserOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            loaded.await(5, TimeUnit.SECONDS);
+            return Optional.of(testUser);
+        });
+        UserDto[] results = new UserDto[2];
+        Thread first = new Thread(() -> results[0] = userService.getUserById(1L));
+        Thread second = new Thread(() -> results[1] = userService.getUserById(1L));
+
+        first.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        second.start();
+        while (second.getState() == Thread.State.NEW || second.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+        loaded.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        verify(userRepository, times(1)).findById(1L);
+        assertThat(results[1]).isSameAs(results[0]).isNotNull();
+    }
+
+    @Test
+    void updateUserShouldReplaceCachedEntry() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        userService.getUserById(1L);
+
+        UserDto update = new UserDto(null, "Updated Name", "johndoe", "john.doe@example.com", null, null);
+        userService.updateUser(1L, update);
+
+        assertThat(userService.getUserById(1L).getName()).isEqualTo("Updated Name");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void deleteUserShouldEvictCachedEntry() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        userService.getUserById(1L);
+
+        userService.deleteUser(1L);
+        userService.getUserById(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void createUserShouldPopulateCache() {
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(42L);
+            return user;
+        });
+
+        UserDto created = userService.createUser(new UserDto(null, "New User", "newuser", "new@example.com", null, null));
+
+        assertThat(userService.getUserById(42L)).isSameAs(created);
+        verify(userRepository, never()).findById(42L);
+    }
+
+    @Test
+    void aMalformedImportShouldStillEvictTheUsersItStored() {
+        User imported = new User(1L, "Imported Name", "johndoe", "john.doe@example.com", null, null);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser), Optional.of(imported));
+        when(userRepository.maxId()).thenReturn(Long.MAX_VALUE);
+        when(userRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        userService.getUserById(1L);
+        String body = "{\"id\": 1, \"name\": \"Imported Name\", \"username\": \"johndoe\", "
+                + "\"email\": \"john.doe@example.com\"}\n{\"id\": ";
+
+        assertThatThrownBy(() -> userTransferService.importUsers(UserTransferService.Format.NDJSON,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(MalformedImportException.class);
+
+        verify(userRepository).saveAll(any());
+        assertThat(userService.getUserById(1L).getName()).isEqualTo("Imported Name");
+    }
+
+    private CacheStats stats() {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(CachingConfig.USERS_CACHE);
+        return cache.getNativeCache().stats();
+    }
+}
@@ -1,7 +1,11 @@
 package com.macode101.exam.service;
 
+import com.macode101.exam.exception.InvalidUserException;
 import com.macode101.exam.exception.UserNotFoundException;
+import com.macode101.exam.exception.UserVersionMismatchException;
 import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.BatchItemResult;
+import com.macode101.exam.model.EncodedUsers;
 import com.macode101.exam.model.User;
 import com.macode101.exam.model.UserDto;
 import com.macode101.exam.repository.UserRepository;
@@ -12,14 +16,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +39,9 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserJsonCache userJsonCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -108,9 +119,35 @@ class UserServiceTest {
         verify(userMapper).toDto(emptyUserList);
     }
 
+    @Test
+    void getUsersShouldReturnRequestedPageAsDtos() {
+        when(userRepository.findPage(1L, 10)).thenReturn(testUsers);
+        when(userMapper.toDto(testUsers)).thenReturn(testUserDtos);
+
+        List<UserDto> result = userService.getUsers(1L, 10);
+
+        assertThat(result).containsExactlyElementsOf(testUserDtos);
+
+        verify(userRepository).findPage(1L, 10);
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void getUsersEncodedShouldUseCachedEncodingsWithoutMapping() {
+        byte[] json = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        when(userRepository.findPage(null, 10)).thenReturn(List.of(testUser));
+        when(userJsonCache.get(testUser)).thenReturn(json);
+
+        EncodedUsers result = userService.getUsersEncoded(null, 10);
+
+        assertThat(result.users()).containsExactly(json);
+        assertThat(result.lastId()).isEqualTo(1L);
+        verifyNoInteractions(userMapper);
+    }
+
     @Test
     void getUserByIdShouldReturnUserDto_WhenUserExists() {
-        Long userId = 1L;
+        long userId = 1L;
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
         when(userMapper.toDto(testUser)).thenReturn(testUserDto);
 
@@ -126,9 +163,38 @@ class UserServiceTest {
         verify(userMapper).toDto(testUser);
     }
 
+    @Test
+    void findUserByUsernameShouldReturnMappedUser_WhenIndexed() {
+        when(userRepository.findByUsername("johndoe")).thenReturn(Optional.of(testUser));
+        when(userMapper.toDto(testUser)).thenReturn(testUserDto);
+
+        assertThat(userService.findUserByUsername("johndoe")).contains(testUserDto);
+
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void findUserByEmailShouldReturnEmpty_WhenNotIndexed() {
+        when(userRepository.findByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+        assertThat(userService.findUserByEmail("nobody@example.com")).isEmpty();
+
+        verify(userMapper, never()).toDto(any(User.class));
+    }
+
+    @Test
+    void searchUsersShouldMapRankedUsersFromTheRepository() {
+        when(userRepository.search("john", 5)).thenReturn(List.of(testUser));
+        when(userMapper.toDto(List.of(testUser))).thenReturn(List.of(testUserDto));
+
+        assertThat(userService.searchUsers("john", 5)).containsExactly(testUserDto);
+
+        verify(userRepository, never()).findAll();
+    }
+
     @Test
     void getUserByIdShouldThrowUserNotFoundException_WhenUserDoesNotExist() {
-        Long userId = 999L;
+        long userId = 999L;
         when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.getUserById(userId))
@@ -163,17 +229,10 @@ class UserServiceTest {
         savedUser.setPhone("555-123-4567");
         savedUser.setWebsite("www.newuser.com");
 
-        UserDto savedUserDto = new UserDto();
-        savedUserDto.setId(3L);
-        savedUserDto.setName("New User");
-        savedUserDto.setUsername("newuser");
-        savedUserDto.setEmail("new.user@example.com");
-        savedUserDto.setPhone("555-123-4567");
-        savedUserDto.setWebsite("www.newuser.com");
 
         when(userMapper.toEntity(inputDto)).thenReturn(inputUser);
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
-        when(userMapper.toDto(savedUser)).thenReturn(savedUserDto);
+        when(userMapper.toSavedDto(inputDto, savedUser)).thenCallRealMethod();
 
         UserDto result = userService.createUser(inputDto);
 
@@ -185,12 +244,12 @@ class UserServiceTest {
         
         verify(userMapper).toEntity(inputDto);
         verify(userRepository).save(argThat(user -> user.getId() == null)); // Verify ID is set to null
-        verify(userMapper).toDto(savedUser);
+        verify(userMapper, never()).toDto(any(User.class));
     }
 
     @Test
     void updateUserShouldUpdateAndReturnExistingUser() {
-        Long userId = 1L;
+        long userId = 1L;
         UserDto updateDto = new UserDto();
         updateDto.setName("Updated Name");
         updateDto.setUsername("updateduser");
@@ -213,18 +272,11 @@ class UserServiceTest {
         savedUser.setPhone("555-999-8888");
         savedUser.setWebsite("www.updateduser.com");
 
-        UserDto savedUserDto = new UserDto();
-        savedUserDto.setId(userId);
-        savedUserDto.setName("Updated Name");
-        savedUserDto.setUsername("updateduser");
-        savedUserDto.setEmail("updated.user@example.com");
-        savedUserDto.setPhone("555-999-8888");
-        savedUserDto.setWebsite("www.updateduser.com");
 
         when(userRepository.existsById(userId)).thenReturn(true);
         when(userMapper.toEntity(updateDto)).thenReturn(updateUser);
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
-        when(userMapper.toDto(savedUser)).thenReturn(savedUserDto);
+        when(userMapper.toSavedDto(updateDto, savedUser)).thenCallRealMethod();
 
         UserDto result = userService.updateUser(userId, updateDto);
 
@@ -237,12 +289,12 @@ class UserServiceTest {
         verify(userRepository).existsById(userId);
         verify(userMapper).toEntity(updateDto);
         verify(userRepository).save(argThat(user -> user.getId().equals(userId)));
-        verify(userMapper).toDto(savedUser);
+        verify(userMapper, never()).toDto(any(User.class));
     }
 
     @Test
     void updateUserShouldThrowUserNotFoundExceptionWhenUserDoesNotExist() {
-        Long userId = 999L;
+        long userId = 999L;
         UserDto updateDto = new UserDto();
         updateDto.setName("Updated Name");
         updateDto.setUsername("updateduser");
@@ -258,9 +310,102 @@ class UserServiceTest {
         verify(userRepository, never()).save(any());
     }
 
+    @Test
+    void patchUserShouldApplyChangesThroughAtomicRepositoryUpdate() {
+        UserDto changes = new UserDto(null, "Johnny", null, null, null, null);
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            User copy = new User(testUser);
+            invocation.<Consumer<User>>getArgument(1).accept(copy);
+            return Optional.of(copy);
+        });
+        when(userMapper.toDto(any(User.class))).thenReturn(testUserDto);
+
+        UserDto result = userService.patchUser(1L, changes, false);
+
+        assertThat(result).isEqualTo(testUserDto);
+        verify(userMapper).partialUpdate(any(User.class), eq(changes));
+        verify(userRepository, never()).existsById(anyLong());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void patchUserShouldReturnOnlyChangedFieldsWhenRequested() {
+        UserDto changes = new UserDto(null, "Johnny", "johndoe", null, "555-000-1111", null);
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            User copy = new User(testUser);
+            invocation.<Consumer<User>>getArgument(1).accept(copy);
+            return Optional.of(copy);
+        });
+
+        UserDto result = userService.patchUser(1L, changes, true);
+
+        assertThat(result).isEqualTo(new UserDto(1L, "Johnny", null, null, "555-000-1111", null));
+        verify(userMapper, never()).toDto(any(User.class));
+    }
+
+    @Test
+    void patchUserShouldRejectBlankFieldsWithoutTouchingRepository() {
+        UserDto changes = new UserDto(null, null, " ", null, null, null);
+
+        assertThatThrownBy(() -> userService.patchUser(1L, changes, false))
+                .isInstanceOfSatisfying(InvalidUserException.class, ex ->
+                        assertThat(ex.getErrors()).containsExactly("username: " + UserDto.USERNAME_REQUIRED));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void patchUserShouldThrowUserNotFoundExceptionWhenUserDoesNotExist() {
+        when(userRepository.update(eq(999L), any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userService.patchUser(999L, new UserDto(), false))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("User not found with id: 999");
+    }
+
+    @Test
+    void updateUserShouldReplaceFieldsWhenVersionMatches() {
+        testUser.setVersion(3L);
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            User copy = new User(testUser);
+            invocation.<Consumer<User>>getArgument(1).accept(copy);
+            return Optional.of(copy);
+        });
+        when(userMapper.toSavedDto(eq(testUserDto), any(User.class))).thenCallRealMethod();
+
+        UserDto result = userService.updateUser(1L, testUserDto, 3L);
+
+        assertThat(result).isSameAs(testUserDto);
+        assertThat(result.getVersion()).isEqualTo(3L);
+        verify(userMapper).update(any(User.class), eq(testUserDto));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void updateUserShouldRejectStaleVersionWithoutApplyingChanges() {
+        testUser.setVersion(4L);
+        when(userRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<User>>getArgument(1).accept(new User(testUser));
+            return Optional.of(testUser);
+        });
+
+        assertThatThrownBy(() -> userService.updateUser(1L, testUserDto, 3L))
+                .isInstanceOf(UserVersionMismatchException.class)
+                .hasMessage("User with id 1 is at version 4, not 3");
+        verify(userMapper, never()).update(any(User.class), any(UserDto.class));
+    }
+
+    @Test
+    void deleteUserWithVersionShouldThrowUserNotFoundException_WhenUserDoesNotExist() {
+        when(userRepository.deleteById(999L, 3L)).thenReturn(false);
+
+        assertThatThrownBy(() -> userService.deleteUser(999L, 3L))
+                .isInstanceOf(UserNotFoundException.class);
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
     @Test
     void deleteUserShouldDeleteExistingUser() {
-        Long userId = 1L;
+        long userId = 1L;
         when(userRepository.existsById(userId)).thenReturn(true);
 
         userService.deleteUser(userId);
@@ -271,7 +416,7 @@ class UserServiceTest {
 
     @Test
     void deleteUserShouldThrowUserNotFoundExceptionWhenUserDoesNotExist() {
-        Long userId = 999L;
+        long userId = 999L;
         when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThatThrownBy(() -> userService.deleteUser(userId))
@@ -281,4 +426,57 @@ class UserServiceTest {
         verify(userRepository).existsById(userId);
         verify(userRepository, never()).deleteById(anyLong());
     }
+
+    @Test
+    void createUsersShouldReportResultPerItem() {
+        UserDto valid = new UserDto(null, "New User", "newuser", "new.user@example.com", null, null);
+        UserDto invalid = new UserDto(null, "", "blank", "blank@example.com", null, null);
+        UserDto conflicting = new UserDto(null, "John Doe", "johndoe", "john.doe@example.com", null, null);
+        User validUser = new User(null, "New User", "newuser", "new.user@example.com", null, null);
+        User conflictingUser = new User(null, "John Doe", "johndoe", "john.doe@example.com", null, null);
+
+        when(userMapper.toEntity(valid)).thenReturn(validUser);
+        when(userMapper.toEntity(conflicting)).thenReturn(conflictingUser);
+        when(userRepository.saveAll(List.of(validUser, conflictingUser))).thenAnswer(invocation -> {
+            validUser.setId(3L);
+            conflictingUser.setId(4L);
+            return List.of(validUser);
+        });
+        when(userMapper.toSavedDto(valid, validUser)).thenCallRealMethod();
+
+        List<BatchItemResult> results = userService.createUsers(List.of(valid, invalid, conflicting));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(201, 400, 409);
+        assertThat(results.get(0).getUser()).isSameAs(valid);
+        assertThat(valid.getId()).isEqualTo(3L);
+        assertThat(results.get(1).getErrors()).containsExactly("name: Name is required and cannot be blank");
+        assertThat(results.get(2).getId()).isNull();
+        verify(userRepository).saveAll(anyList());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void updateUsersShouldRejectMissingIdAndUnknownUsers() {
+        UserDto noId = new UserDto(null, "John Doe", "johndoe", "john.doe@example.com", null, null);
+        UserDto unknown = new UserDto(999L, "Ghost", "ghost", "ghost@example.com", null, null);
+        when(userRepository.existsById(999L)).thenReturn(false);
+
+        List<BatchItemResult> results = userService.updateUsers(List.of(noId, unknown));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(400, 404);
+        assertThat(results.get(0).getErrors()).containsExactly("id: Id is required for batch update");
+        assertThat(results.get(1).getErrors()).containsExactly("User not found with id: 999");
+        verify(userRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void deleteUsersShouldReportMissingIds() {
+        when(userRepository.deleteAllById(List.of(1L, 999L))).thenReturn(List.of(1L));
+
+        List<BatchItemResult> results = userService.deleteUsers(List.of(1L, 999L));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(204, 404);
+        assertThat(results).extracting(BatchItemResult::getId).containsExactly(1L, 999L);
+        verify(userRepository, never()).deleteById(anyLong());
+    }
 }
@@ -0,0 +1,159 @@
+package com.macode101.exam.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macode101.exam.exception.MalformedImportException;
+import com.macode101.exam.mapper.UserMapper;
+import com.macode101.exam.model.ImportResult;
+import com.macode101.exam.model.User;
+import com.macode101.exam.repository.InMemoryUserRepository;
+import com.macode101.exam.repository.OffHeapUserRepository;
+import com.macode101.exam.repository.UserRepository;
+import com.macode101.exam.repository.UserSeed;
+import com.macode101.exam.service.UserTransferService.Format;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mapstruct.factory.Mappers;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class UserTransferServiceTest {
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void importShouldRestoreExportedUsersWithTheirIds(Format format) throws Exception {
+        InMemoryUserRepository source = repository(UserSeed.none());
+        for (int i = 0; i < 2500; i++) {
+            source.save(new User(null, "User " + i, "user" + i, "user" + i + "@example.com", null, i % 2 == 0 ? "site.org" : null));
+        }
+        source.deleteById(7L);
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        service(source).exportUsers(format, exported);
+
+        InMemoryUserRepository target = repository(UserSeed.none());
+        ImportResult result = service(target).importUsers(format, new ByteArrayInputStream(exported.toByteArray()));
+
+        assertThat(result).isEqualTo(new ImportResult(2499, 0));
+        assertThat(target.findAll()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("version")
+                .containsExactlyElementsOf(source.findAll());
+        assertThat(target.nextId()).isEqualTo(2501);
+        assertThat(target.save(new User(null, "New", "new", "new@example.com", null, null)).getId()).isEqualTo(2501);
+    }
+
+    @Test
+    void importShouldSkipTakenUsernamesAndNumberUsersWithoutId() {
+        InMemoryUserRepository target = repository(UserSeed.none());
+        target.save(new User(null, "Taken", "taken", "taken@example.com", null, null));
+        String ndjson = """
+                {"name":"A","username":"a","email":"a@example.com"}
+                {"id":40,"name":"B","username":"taken","email":"b@example.com"}
+
+                {"id":41,"name":"C","username":"c","email":"c@example.com"}
+                """;
+
+        ImportResult result = importNdjson(target, ndjson);
+
+        assertThat(result).isEqualTo(new ImportResult(2, 1));
+        // Ids in a batch are reserved before any are generated, so none collide.
+        assertThat(target.findAll()).extracting(User::getId, User::getUsername)
+                .containsExactly(tuple(1L, "taken"), tuple(41L, "c"), tuple(42L, "a"));
+        assertThat(target.nextId()).isEqualTo(43);
+    }
+
+    @Test
+    void importShouldSkipInvalidUsersAndIdsTheStoreCannotHold() {
+        OffHeapUserRepository target = new OffHeapUserRepository();
+        String ndjson = """
+                {"id":20,"name":" ","username":"blank","email":"blank@example.com"}
+                {"id":0,"name":"Zero","username":"zero","email":"zero@example.com"}
+                {"id":-3,"name":"Negative","username":"negative","email":"negative@example.com"}
+                {"id":2147483647,"name":"Huge","username":"huge","email":"huge@example.com"}
+                {"id":21,"name":"Kept","username":"kept"}
+                {"id":22,"name":"Kept","username":"kept","email":"kept@example.com"}
+                """;
+
+        ImportResult result = importNdjson(target, ndjson);
+
+        assertThat(result).isEqualTo(new ImportResult(1, 5));
+        assertThat(target.findAll()).extracting(User::getId, User::getUsername).containsExactly(tuple(22L, "kept"));
+        assertThat(target.nextId()).isEqualTo(23);
+    }
+
+    @Test
+    void importShouldKeepUsersBeforeMalformedInput() {
+        InMemoryUserRepository target = repository(UserSeed.none());
+
+        assertThatThrownBy(() -> importNdjson(target, "{\"id\":5,\"name\":\"A\",\"username\":\"a\",\"email\":\"a@x.org\"}\n{\"id\":"))
+                .isInstanceOf(MalformedImportException.class)
+                .hasMessageContaining("1 users were imported");
+        assertThat(target.findAll()).extracting(User::getId).containsExactly(5L);
+
+        assertThatThrownBy(() -> service(target).importUsers(Format.BINARY, new ByteArrayInputStream(new byte[]{1, 2, 3, 4})))
+                .isInstanceOf(MalformedImportException.class)
+                .hasMessageStartingWith("Not a binary user export");
+    }
+
+    @Test
+    void importShouldRejectStringLengthsBeyondTheRecordBeforeAllocating() throws IOException {
+        InMemoryUserRepository target = repository(UserSeed.none());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(UserTransferServiceImpl.BINARY_MAGIC);
+        out.writeInt(24);
+        out.writeLong(1L);
+        out.writeInt(0x7ffffff0);
+        out.write(new byte[12]);
+
+        assertThatThrownBy(() -> service(target).importUsers(Format.BINARY, new ByteArrayInputStream(bytes.toByteArray())))
+                .isInstanceOf(MalformedImportException.class)
+                .hasMessageStartingWith("Invalid record: String of 2147483632 bytes");
+        assertThat(target.count()).isZero();
+    }
+
+    @Test
+    void importShouldNotServeTheCachedJsonOfADeletedUserWithTheSameId() throws IOException {
+        InMemoryUserRepository repository = repository(UserSeed.samples());
+        UserTransferService service = service(repository);
+        service.exportUsers(Format.NDJSON, new ByteArrayOutputStream());
+        repository.deleteById(1L);
+
+        service.importUsers(Format.NDJSON, new ByteArrayInputStream(
+                "{\"id\":1,\"name\":\"Impostor\",\"username\":\"impostor\",\"email\":\"impostor@example.com\"}"
+                        .getBytes(StandardCharsets.UTF_8)));
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        service.exportUsers(Format.NDJSON, exported);
+
+        assertThat(repository.findVersionById(1L).orElseThrow()).isPositive();
+        assertThat(exported.toString(StandardCharsets.UTF_8)).contains("Impostor").doesNotContain("Leanne Graham");
+    }
+
+    private ImportResult importNdjson(UserRepository target, String ndjson) {
+        try {
+            return service(target).importUsers(Format.NDJSON, new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static InMemoryUserRepository repository(UserSeed seed) {
+        InMemoryUserRepository repository = new InMemoryUserRepository(null, null, seed);
+        repository.initializeData();
+        return repository;
+    }
+
+    private static UserTransferService service(UserRepository repository) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+        return new UserTransferServiceImpl(repository, userMapper, new UserJsonCache(objectMapper, userMapper, 1 << 20), new NoOpCacheManager(), objectMapper);
+    }
+}
@@ -0,0 +1,85 @@
+package com.macode101.exam.validation;
+
+import com.macode101.exam.model.UserDto;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDtoValidatorTest {
+
+    private static final String[] VALUES = {null, "", " ", "\t\n", "\u2003", "\u0000", "a", " a ", "é"};
+
+    private final UserDtoValidator userDtoValidator = new UserDtoValidator();
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void violationsShouldMatchBeanValidation() {
+        for (String name : VALUES) {
+            for (String username : VALUES) {
+                for (String email : Arrays.asList(null, " ", "a@example.com")) {
+                    UserDto userDto = new UserDto(null, name, username, email, null, null);
+                    List<String> expected = beanValidator.validate(userDto).stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .toList();
+
+                    assertThat(userDtoValidator.violations(userDto)).as("%s", userDto).isEqualTo(expected);
+                    assertThat(userDtoValidator.isValid(userDto)).isEqualTo(expected.isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    void patchViolationsShouldMatchBeanValidationOfTheFieldsThatAreSet() {
+        UserDtoValidator patchValidator = UserDtoValidator.forPatches();
+        for (String name : VALUES) {
+            for (String username : VALUES) {
+                for (String email : Arrays.asList(null, " ", "a@example.com")) {
+                    UserDto changes = new UserDto(null, name, username, email, null, null);
+                    List<String> expected = new ArrayList<>();
+                    addViolations(changes, "email", email, expected);
+                    addViolations(changes, "name", name, expected);
+                    addViolations(changes, "username", username, expected);
+
+                    assertThat(patchValidator.violations(changes)).as("%s", changes).isEqualTo(expected);
+                    assertThat(patchValidator.isValid(changes)).isEqualTo(expected.isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    void validateShouldRejectBlankFieldsWithTheirMessages() {
+        UserDto userDto = new UserDto(null, "John Doe", "", null, null, null);
+        Errors errors = new BeanPropertyBindingResult(userDto, "userDto");
+
+        userDtoValidator.validate(userDto, errors);
+
+        List<String> rejected = new ArrayList<>();
+        for (FieldError error : errors.getFieldErrors()) {
+            rejected.add(error.getField() + ": " + error.getDefaultMessage());
+        }
+        assertThat(rejected).containsExactly(
+                "username: " + UserDto.USERNAME_REQUIRED, "email: " + UserDto.EMAIL_REQUIRED);
+    }
+
+    /**
+     * What validating {@code field} alone reports, unless a patch leaves it out.
+     */
+    private void addViolations(UserDto changes, String field, String value, List<String> violations) {
+        if (value != null) {
+            beanValidator.validateProperty(changes, field).forEach(violation ->
+                    violations.add(violation.getPropertyPath() + ": " + violation.getMessage()));
+        }
+    }
+}
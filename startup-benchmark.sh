@@ -0,0 +1,66 @@
+#!/bin/bash
+# Measures time to first request of ExamApplication: from launching the JVM
+# until GET /users answers 200. Compares the plain fat jar with the extracted
+# jar under Spring AOT, with and without a CDS archive. Arguments after the
+# number of runs go to the application, e.g. to compare seed settings:
+#
+#   ./startup-benchmark.sh [runs] [--users.seed.lazy=true ...]
+
+set -e
+
+RUNS=${1:-5}
+shift || true
+APP_ARGS=("$@")
+PORT=${PORT:-8090}
+JAR=target/exam-0.0.1-SNAPSHOT.jar
+EXTRACTED=target/extracted
+ARCHIVE=$EXTRACTED/app.jsa
+
+echo "Building with Spring AOT..."
+./mvnw -B -q -DskipTests -Paot package
+
+rm -rf "$EXTRACTED"
+java -Djarmode=tools -jar "$JAR" extract --destination "$EXTRACTED"
+
+echo "Training the CDS archive..."
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -jar "$EXTRACTED/exam-0.0.1-SNAPSHOT.jar" --server.port=0 --logging.level.root=WARN > /dev/null
+
+now_millis() {
+    date +%s%3N
+}
+
+# Prints the milliseconds until the first successful request.
+time_to_first_request() {
+    local start pid
+    start=$(now_millis)
+    java "$@" "${APP_ARGS[@]}" --server.port="$PORT" --logging.level.root=WARN > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/users"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "failed to start" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    echo $(($(now_millis) - start))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+report() {
+    local mode=$1 total=0 times=() elapsed
+    shift
+    for ((run = 0; run < RUNS; run++)); do
+        elapsed=$(time_to_first_request "$@")
+        times+=("$elapsed")
+        total=$((total + elapsed))
+    done
+    printf "%-10s %6d ms   (%s)\n" "$mode" $((total / RUNS)) "${times[*]}"
+}
+
+echo ""
+echo "Time to first request, mean of $RUNS runs:"
+report jar -jar "$JAR"
+report aot -Dspring.aot.enabled=true -jar "$EXTRACTED/exam-0.0.1-SNAPSHOT.jar"
+report aot+cds -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true -jar "$EXTRACTED/exam-0.0.1-SNAPSHOT.jar"